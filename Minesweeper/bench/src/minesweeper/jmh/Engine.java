@@ -0,0 +1,170 @@
+package minesweeper.jmh;
+
+import java.io.File;
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.lang.reflect.Constructor;
+import java.lang.reflect.Method;
+import java.util.SplittableRandom;
+import java.util.concurrent.ForkJoinPool;
+
+/**
+ * Handles on the game classes for the JMH benchmarks. JMH only runs benchmarks
+ * in a named package, and classes in a named package cannot refer to the game,
+ * which is in the default package, so the benchmarks call it through method
+ * handles. The handles are constants, so the JIT inlines the calls like direct
+ * ones.
+ *
+ * Boards, maps, tiles and results are passed around as Objects.
+ *
+ * @author Kanishka Ragula
+ *
+ */
+final class Engine {
+
+	/** new MineBoard(int width, int height, int mines, long seed) */
+	static final MethodHandle NEW_BOARD = constructor("MineBoard", int.class, int.class, int.class,
+			long.class);
+	/** MineBoard.reset(long seed) */
+	static final MethodHandle RESET = method("MineBoard", "reset", long.class);
+	/** MineBoard.reveal(int r, int c) */
+	static final MethodHandle REVEAL = method("MineBoard", "reveal", int.class, int.class);
+	/** MineBoard.getCell(int cell) */
+	static final MethodHandle GET_CELL = method("MineBoard", "getCell", int.class);
+	/** MineBoard.countNeighbors(byte[] cells, int width, int[] mineCells, int numMines) */
+	static final MethodHandle COUNT_NEIGHBORS = method("MineBoard", "countNeighbors", byte[].class,
+			int.class, int[].class, int.class);
+	/** BoardGenerator.generate(cells, width, mineCells, numMines, random, pool) */
+	static final MethodHandle GENERATE = method("BoardGenerator", "generate", byte[].class, int.class,
+			int[].class, int.class, SplittableRandom.class, ForkJoinPool.class);
+
+	/** new Solver(MineBoard board) */
+	static final MethodHandle NEW_SOLVER = constructor("Solver", type("MineBoard"));
+	/** Solver.rescan() */
+	static final MethodHandle RESCAN = method("Solver", "rescan");
+	/** Solver.getKnownMines() */
+	static final MethodHandle KNOWN_MINES = method("Solver", "getKnownMines");
+	/** new MineProbabilities(Solver solver) */
+	static final MethodHandle NEW_PROBABILITIES = constructor("MineProbabilities",
+			type("Solver"));
+	/** MineProbabilities.compute() */
+	static final MethodHandle COMPUTE = method("MineProbabilities", "compute");
+	/** NoGuessGenerator.generate(MineBoard board, int row, int col, ForkJoinPool pool) */
+	static final MethodHandle NO_GUESS = method("NoGuessGenerator", "generate", type("MineBoard"),
+			int.class, int.class, ForkJoinPool.class);
+	/** MineProbabilities.getSafest() */
+	static final MethodHandle SAFEST = method("MineProbabilities", "getSafest");
+
+	/** new MineMap(width, height, mines, null, null, boolean painted) */
+	static final MethodHandle NEW_MAP = MethodHandles.insertArguments(
+			constructor("MineMap", int.class, int.class, int.class, type("javax.swing.JFrame"),
+					type("javax.swing.JLabel"), boolean.class),
+			3, null, null);
+	/** MineMap.reset() */
+	static final MethodHandle MAP_RESET = method("MineMap", "reset");
+	/** BoardPool.shared() */
+	static final MethodHandle SHARED_POOL = method("BoardPool", "shared");
+	/** BoardPool.shutdown() */
+	static final MethodHandle POOL_SHUTDOWN = method("BoardPool", "shutdown");
+	/** MineMap.victory() */
+	static final MethodHandle VICTORY = method("MineMap", "victory");
+
+	/** BoardFile.writeBinary(MineBoard board, File f) */
+	static final MethodHandle WRITE_BINARY = method("BoardFile", "writeBinary", type("MineBoard"),
+			File.class);
+	/** BoardFile.writeText(MineBoard board, File f) */
+	static final MethodHandle WRITE_TEXT = method("BoardFile", "writeText", type("MineBoard"),
+			File.class);
+	/** BoardFile.readBinary(File f) */
+	static final MethodHandle READ_BINARY = method("BoardFile", "readBinary", File.class);
+	/** BoardFile.readText(File f, boolean firstMove) */
+	static final MethodHandle READ_TEXT = method("BoardFile", "readText", File.class, boolean.class);
+	/** Tile.tilesFromFile(File entry) */
+	static final MethodHandle TILES_FROM_FILE = method("Tile", "tilesFromFile", File.class);
+	/** new Tile(String tileVal, boolean flagged, boolean covered) */
+	static final MethodHandle NEW_TILE = constructor("Tile", String.class, boolean.class,
+			boolean.class);
+	/** Tile.isValidTile(char tileVal) */
+	static final MethodHandle IS_VALID_TILE = method("Tile", "isValidTile", char.class);
+	/** Tile.isBoolChar(char boolVal) */
+	static final MethodHandle IS_BOOL_CHAR = method("Tile", "isBoolChar", char.class);
+
+	private Engine() {
+	}
+
+	/**
+	 * @param name Name of a class
+	 * @return The class
+	 */
+	private static Class<?> type(String name) {
+		try {
+			return Class.forName(name);
+		} catch (ClassNotFoundException e) {
+			throw new IllegalStateException("Game class missing from the classpath", e);
+		}
+	}
+
+	/**
+	 * Finds a constructor, taking and returning Objects in place of game classes
+	 *
+	 * @param owner      Name of the class
+	 * @param parameters Types of the parameters
+	 * @return Handle on the constructor
+	 */
+	private static MethodHandle constructor(String owner, Class<?>... parameters) {
+		try {
+			Constructor<?> constructor = type(owner).getDeclaredConstructor(parameters);
+			constructor.setAccessible(true);
+			return erase(MethodHandles.lookup().unreflectConstructor(constructor));
+		} catch (ReflectiveOperationException e) {
+			throw new IllegalStateException("Game constructor missing: " + owner, e);
+		}
+	}
+
+	/**
+	 * Finds a method, taking and returning Objects in place of game classes.
+	 * Package private methods are found too
+	 *
+	 * @param owner      Name of the class
+	 * @param name       Name of the method
+	 * @param parameters Types of the parameters
+	 * @return Handle on the method
+	 */
+	private static MethodHandle method(String owner, String name, Class<?>... parameters) {
+		try {
+			Method method = type(owner).getDeclaredMethod(name, parameters);
+			method.setAccessible(true);
+			return erase(MethodHandles.lookup().unreflect(method));
+		} catch (ReflectiveOperationException e) {
+			throw new IllegalStateException("Game method missing: " + owner + "." + name, e);
+		}
+	}
+
+	/**
+	 * @param handle Handle on a game method
+	 * @return The handle with every game class in its type replaced by Object
+	 */
+	private static MethodHandle erase(MethodHandle handle) {
+		MethodType type = handle.type();
+		for (int i = 0; i < type.parameterCount(); i++) {
+			if (isGameClass(type.parameterType(i)))
+				type = type.changeParameterType(i, Object.class);
+		}
+		if (isGameClass(type.returnType()))
+			type = type.changeReturnType(Object.class);
+		return handle.asType(type);
+	}
+
+	/**
+	 * @param type A type
+	 * @return Whether it is a class of the game, in the default package, or an
+	 *         array of one
+	 */
+	private static boolean isGameClass(Class<?> type) {
+		while (type.isArray()) {
+			type = type.getComponentType();
+		}
+		return !type.isPrimitive() && type.getName().indexOf('.') < 0;
+	}
+}
@@ -0,0 +1,110 @@
+package minesweeper.jmh;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Generating boards: placing the mines and counting the numbers together
+ * (MineBoard.reset), and counting the numbers alone (MineBoard.countNeighbors),
+ * against asking every tile for its neighboring mines as setupMap used to.
+ *
+ * @author Kanishka Ragula
+ *
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@State(Scope.Benchmark)
+@Fork(1)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+public class GenerationBenchmarks {
+
+	@Param({ "16", "64", "256", "1024", "4096" })
+	int size;
+
+	// Mines per 1000 tiles. 206 is the density of an expert game
+	@Param({ "100", "206", "400" })
+	int density;
+
+	private Object board;
+	private long seed;
+	private byte[] empty;
+	private byte[] cells;
+	private int[] mineCells;
+
+	@Setup
+	public void setUp() throws Throwable {
+		int mines = (int) ((long) size * size * density / 1000);
+		board = (Object) Engine.NEW_BOARD.invokeExact(size, size, mines, 1L);
+
+		// The mines of the board without their numbers
+		empty = new byte[size * size];
+		cells = new byte[size * size];
+		mineCells = new int[mines];
+		int numMines = 0;
+		for (int i = 0; i < empty.length; i++) {
+			if (((byte) Engine.GET_CELL.invokeExact(board, i) & 0x0F) == 9) {
+				empty[i] = 0x20 | 9;
+				mineCells[numMines++] = i;
+			} else {
+				empty[i] = 0x20;
+			}
+		}
+	}
+
+	/**
+	 * Generates a new board from the next seed, on the common pool
+	 */
+	@Benchmark
+	public Object generate() throws Throwable {
+		Engine.RESET.invokeExact(board, seed++);
+		return board;
+	}
+
+	/**
+	 * Counts the numbers of a board. Includes copying the mines in, which takes a
+	 * fraction of the count
+	 */
+	@Benchmark
+	public byte[] countNeighbors() throws Throwable {
+		System.arraycopy(empty, 0, cells, 0, empty.length);
+		Engine.COUNT_NEIGHBORS.invokeExact(cells, size, mineCells, mineCells.length);
+		return cells;
+	}
+
+	/**
+	 * Counts the numbers of a board by counting the mines around every tile, with
+	 * a bounds check for each of the eight neighbors. Includes the same copy
+	 */
+	@Benchmark
+	public byte[] countPerTile() {
+		System.arraycopy(empty, 0, cells, 0, empty.length);
+		for (int r = 0; r < size; r++) {
+			for (int c = 0; c < size; c++) {
+				if ((cells[r * size + c] & 0x0F) == 9)
+					continue;
+				int count = 0;
+				for (int i = -1; i <= 1; i++) {
+					for (int j = -1; j <= 1; j++) {
+						if (!(i == 0 && j == 0) && r + i >= 0 && r + i < size && c + j >= 0
+								&& c + j < size && (cells[(r + i) * size + c + j] & 0x0F) == 9)
+							count++;
+					}
+				}
+				cells[r * size + c] |= count;
+			}
+		}
+		return cells;
+	}
+}
@@ -0,0 +1,80 @@
+package minesweeper.jmh;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Creating and resetting a MineMap, and checking it for a victory. Like Game,
+ * maps of more than 1024 tiles are painted instead of using buttons. Runs
+ * headless, the map is never shown.
+ *
+ * New maps and resets take their boards from the BoardPool. Its background
+ * thread is stopped before measuring, so every board is generated when it is
+ * asked for, as it was before the pool, and nothing generates boards next to
+ * the benchmark.
+ *
+ * @author Kanishka Ragula
+ *
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@State(Scope.Benchmark)
+@Fork(value = 1, jvmArgsAppend = "-Djava.awt.headless=true")
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+public class MineMapBenchmarks {
+
+	// Same threshold as Game.MAX_BUTTON_TILES
+	private static final int MAX_BUTTON_TILES = 1024;
+
+	@Param({ "16", "32", "256", "1024", "4096" })
+	int size;
+
+	private int mines;
+	private boolean painted;
+	private Object map;
+
+	@Setup
+	public void setUp() throws Throwable {
+		Engine.POOL_SHUTDOWN.invokeExact((Object) Engine.SHARED_POOL.invokeExact());
+		mines = (int) ((long) size * size * 206 / 1000);
+		painted = size * size > MAX_BUTTON_TILES;
+		map = (Object) Engine.NEW_MAP.invokeExact(size, size, mines, painted);
+	}
+
+	/**
+	 * Creates a new map, with its board and its buttons or canvas
+	 */
+	@Benchmark
+	public Object construct() throws Throwable {
+		return (Object) Engine.NEW_MAP.invokeExact(size, size, mines, painted);
+	}
+
+	/**
+	 * Resets the map to a new board, generated then
+	 */
+	@Benchmark
+	public Object reset() throws Throwable {
+		Engine.MAP_RESET.invokeExact(map);
+		return map;
+	}
+
+	/**
+	 * Checks whether the map has been won
+	 */
+	@Benchmark
+	public boolean victory() throws Throwable {
+		return (boolean) Engine.VICTORY.invokeExact(map);
+	}
+}
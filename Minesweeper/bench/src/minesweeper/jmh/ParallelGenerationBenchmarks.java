@@ -0,0 +1,69 @@
+package minesweeper.jmh;
+
+import java.util.SplittableRandom;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Generating a large board with BoardGenerator on pools of different numbers
+ * of threads, to see how it scales. Every pool generates the same board for a
+ * seed, which BoardGeneratorTest checks.
+ *
+ * @author Kanishka Ragula
+ *
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@State(Scope.Benchmark)
+@Fork(1)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+public class ParallelGenerationBenchmarks {
+
+	@Param({ "1024", "4096" })
+	int size;
+
+	@Param({ "1", "2", "4", "8" })
+	int threads;
+
+	private byte[] cells;
+	private int[] mineCells;
+	private ForkJoinPool pool;
+	private long seed;
+
+	@Setup
+	public void setUp() {
+		// The density of an expert game
+		cells = new byte[size * size];
+		mineCells = new int[(int) ((long) size * size * 206 / 1000)];
+		pool = new ForkJoinPool(threads);
+	}
+
+	@TearDown
+	public void tearDown() {
+		pool.shutdown();
+	}
+
+	/**
+	 * Generates a board from the next seed
+	 */
+	@Benchmark
+	public byte[] generate() throws Throwable {
+		Engine.GENERATE.invokeExact(cells, size, mineCells, mineCells.length,
+				new SplittableRandom(seed++), pool);
+		return cells;
+	}
+}
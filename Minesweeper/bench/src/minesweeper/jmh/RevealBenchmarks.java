@@ -0,0 +1,65 @@
+package minesweeper.jmh;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * The first reveal of a new board, which flood fills the opening around the
+ * tile clicked. Sparser boards have larger openings.
+ *
+ * Every reveal needs a new board, generated outside of the measurement. On the
+ * smallest boards the reveal is short enough that the time is partly that of
+ * setting up each invocation.
+ *
+ * @author Kanishka Ragula
+ *
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@State(Scope.Benchmark)
+@Fork(1)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+public class RevealBenchmarks {
+
+	@Param({ "16", "64", "256", "1024", "4096" })
+	int size;
+
+	// Mines per 1000 tiles
+	@Param({ "50", "100", "206" })
+	int density;
+
+	private Object board;
+	private long seed;
+
+	@Setup(Level.Trial)
+	public void createBoard() throws Throwable {
+		int mines = (int) ((long) size * size * density / 1000);
+		board = (Object) Engine.NEW_BOARD.invokeExact(size, size, mines, 1L);
+	}
+
+	@Setup(Level.Invocation)
+	public void resetBoard() throws Throwable {
+		Engine.RESET.invokeExact(board, seed++);
+	}
+
+	/**
+	 * Reveals the middle tile of a new board
+	 */
+	@Benchmark
+	public Object revealOpening() throws Throwable {
+		return (Object) Engine.REVEAL.invokeExact(board, size / 2, size / 2);
+	}
+}
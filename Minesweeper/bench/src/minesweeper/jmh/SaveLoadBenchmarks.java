@@ -0,0 +1,133 @@
+package minesweeper.jmh;
+
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.FileReader;
+import java.io.IOException;
+import java.io.StringReader;
+import java.util.ArrayList;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Saving and loading a board part way through a game, in the binary and text
+ * formats, and reading a text save into tiles with Tile.tilesFromFile, or line
+ * by line as it used to. The saves are written to temporary files, not to the
+ * save of the game.
+ *
+ * @author Kanishka Ragula
+ *
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@State(Scope.Benchmark)
+@Fork(1)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+public class SaveLoadBenchmarks {
+
+	@Param({ "16", "64", "256", "1024", "4096" })
+	int size;
+
+	private Object board;
+	private File binary;
+	private File text;
+	private File scratch;
+
+	@Setup
+	public void setUp() throws Throwable {
+		board = (Object) Engine.NEW_BOARD.invokeExact(size, size, size * size / 6, 1L);
+		// invokeExact needs the result to be taken, even if it is not used
+		Object result = (Object) Engine.REVEAL.invokeExact(board, size / 2, size / 2);
+		binary = File.createTempFile("minesweeper", ".bin");
+		text = File.createTempFile("minesweeper", ".txt");
+		scratch = File.createTempFile("minesweeper", ".tmp");
+		Engine.WRITE_BINARY.invokeExact(board, binary);
+		Engine.WRITE_TEXT.invokeExact(board, text);
+	}
+
+	@TearDown
+	public void tearDown() {
+		binary.delete();
+		text.delete();
+		scratch.delete();
+	}
+
+	@Benchmark
+	public File saveBinary() throws Throwable {
+		Engine.WRITE_BINARY.invokeExact(board, scratch);
+		return scratch;
+	}
+
+	@Benchmark
+	public File saveText() throws Throwable {
+		Engine.WRITE_TEXT.invokeExact(board, scratch);
+		return scratch;
+	}
+
+	@Benchmark
+	public Object loadBinary() throws Throwable {
+		return (Object) Engine.READ_BINARY.invokeExact(binary);
+	}
+
+	@Benchmark
+	public Object loadText() throws Throwable {
+		return (Object) Engine.READ_TEXT.invokeExact(text, false);
+	}
+
+	@Benchmark
+	public Object tilesFromFile() throws Throwable {
+		return (Object) Engine.TILES_FROM_FILE.invokeExact(text);
+	}
+
+	/**
+	 * Reads the text save into tiles the way tilesFromFile used to: every line is
+	 * kept in a list, then read back one char at a time
+	 */
+	@Benchmark
+	public Object[][] tilesLineByLine() throws Throwable {
+		BufferedReader br = new BufferedReader(new FileReader(text));
+		ArrayList<String> tilesStrings = new ArrayList<String>();
+		String currLine = br.readLine();
+		while (currLine != null) {
+			tilesStrings.add(currLine);
+			currLine = br.readLine();
+		}
+		br.close();
+
+		int length1 = tilesStrings.get(0).length();
+		for (String s : tilesStrings) {
+			if (s.length() % 3 != 0 || s.length() != length1 || length1 == 0)
+				throw new IOException("Input File Formatted Poorly, length");
+		}
+
+		Object[][] returnVal = new Object[tilesStrings.size()][length1 / 3];
+		for (int i = 0; i < tilesStrings.size(); i++) {
+			StringReader sr = new StringReader(tilesStrings.get(i));
+			for (int index = 0; index < length1 / 3; index++) {
+				char tileVal = (char) sr.read();
+				char flaggedChar = (char) sr.read();
+				char coveredChar = (char) sr.read();
+				if (!(boolean) Engine.IS_VALID_TILE.invokeExact(tileVal)
+						|| !(boolean) Engine.IS_BOOL_CHAR.invokeExact(flaggedChar)
+						|| !(boolean) Engine.IS_BOOL_CHAR.invokeExact(coveredChar))
+					throw new IOException("Input File Formatted Poorly, char vals");
+				returnVal[i][index] = (Object) Engine.NEW_TILE.invokeExact(String.valueOf(tileVal),
+						flaggedChar == 'T', coveredChar == 'T');
+			}
+		}
+		return returnVal;
+	}
+}
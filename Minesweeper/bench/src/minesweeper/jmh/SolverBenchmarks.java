@@ -0,0 +1,85 @@
+package minesweeper.jmh;
+
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Solving the whole frontier of an expert board from scratch, after the first
+ * opening. Keeping up with a game move by move only looks at the numbers around
+ * each move, so it costs a fraction of this. The chances of the tiles are
+ * computed on the same position.
+ *
+ * Finding a no-guess board solves candidates until one is won, so it is
+ * measured on a new seed each time, on the common pool.
+ *
+ * @author Kanishka Ragula
+ *
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@State(Scope.Benchmark)
+@Fork(1)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+public class SolverBenchmarks {
+
+	@Param({ "1", "2", "3" })
+	long seed;
+
+	private Object solver;
+	private Object odds;
+	private Object candidate;
+	private long nextSeed;
+
+	@Setup
+	public void openBoard() throws Throwable {
+		Object board = (Object) Engine.NEW_BOARD.invokeExact(30, 16, 99, seed);
+		int zero = 0;
+		while (((byte) Engine.GET_CELL.invokeExact(board, zero) & 0x0F) != 0) {
+			zero++;
+		}
+		Object result = (Object) Engine.REVEAL.invokeExact(board, zero / 30, zero % 30);
+		solver = (Object) Engine.NEW_SOLVER.invokeExact(board);
+		odds = (Object) Engine.NEW_PROBABILITIES.invokeExact(solver);
+		candidate = (Object) Engine.NEW_BOARD.invokeExact(30, 16, 99, seed);
+	}
+
+	/**
+	 * Forgets every deduction and solves the frontier again
+	 */
+	@Benchmark
+	public int rescan() throws Throwable {
+		Engine.RESCAN.invokeExact(solver);
+		return (int) Engine.KNOWN_MINES.invokeExact(solver);
+	}
+
+	/**
+	 * Computes the chance of every tile and picks the safest
+	 */
+	@Benchmark
+	public int probabilities() throws Throwable {
+		Engine.COMPUTE.invokeExact(odds);
+		return (int) Engine.SAFEST.invokeExact(odds);
+	}
+
+	/**
+	 * Finds an expert board that can be won without guessing from the middle
+	 */
+	@Benchmark
+	public boolean noGuess() throws Throwable {
+		Engine.RESET.invokeExact(candidate, nextSeed++);
+		return (boolean) Engine.NO_GUESS.invokeExact(candidate, 8, 15, ForkJoinPool.commonPool());
+	}
+}
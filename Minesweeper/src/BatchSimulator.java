@@ -0,0 +1,340 @@
+import java.util.ArrayList;
+import java.util.List;
+import java.util.SplittableRandom;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Plays games without a display, on MineBoards, to measure board generators and
+ * playing strategies over many seeds. Every game starts in the middle of the
+ * board and is played to the end by the strategy.
+ *
+ * The games are spread over a pool of threads. Each thread keeps one board,
+ * solver and calculator that are reset for every game it takes, and adds up its
+ * own totals, which are combined at the end. A game depends only on its seed,
+ * so the totals are the same on any number of threads.
+ *
+ * Usage: java BatchSimulator [width] [height] [mines per 1000 tiles] [first
+ * seed] [games] [random|solver|odds] [random|noguess] [threads]
+ *
+ * @author Kanishka Ragula
+ *
+ */
+public class BatchSimulator {
+
+	/**
+	 * How the next tile to click is picked
+	 */
+	public enum Strategy {
+		// Any covered tile
+		RANDOM,
+		// A tile the Solver knows is safe, or any tile it knows nothing about
+		SOLVER,
+		// A tile the Solver knows is safe, or the tile least likely to be a mine
+		ODDS
+	}
+
+	/**
+	 * Totals over a batch of games
+	 */
+	public static class Totals {
+		long games;
+		long wins;
+		long threeBV;
+		long clicks;
+		double seconds;
+
+		/**
+		 * Adds the totals of other games to these
+		 *
+		 * @param other Totals to add
+		 */
+		void add(Totals other) {
+			games += other.games;
+			wins += other.wins;
+			threeBV += other.threeBV;
+			clicks += other.clicks;
+		}
+
+		/**
+		 * @return Number of games played
+		 */
+		public long getGames() {
+			return games;
+		}
+
+		/**
+		 * @return Number of games won
+		 */
+		public long getWins() {
+			return wins;
+		}
+
+		/**
+		 * @return Share of the games won
+		 */
+		public double getWinRate() {
+			return games == 0 ? 0 : (double) wins / games;
+		}
+
+		/**
+		 * @return Mean 3BV of the boards, the fewest clicks that clear them
+		 */
+		public double getMeanThreeBV() {
+			return games == 0 ? 0 : (double) threeBV / games;
+		}
+
+		/**
+		 * @return Mean number of tiles clicked per game
+		 */
+		public double getMeanClicks() {
+			return games == 0 ? 0 : (double) clicks / games;
+		}
+
+		/**
+		 * @return Games played per second of the batch
+		 */
+		public double getGamesPerSecond() {
+			return seconds == 0 ? 0 : games / seconds;
+		}
+
+		@Override
+		public String toString() {
+			return String.format("Games: %d  Won: %d (%.2f%%)%nMean 3BV: %.2f  Mean clicks: %.2f%n"
+					+ "Games per second: %.1f (%.2f s)", games, wins, 100 * getWinRate(),
+					getMeanThreeBV(), getMeanClicks(), getGamesPerSecond(), seconds);
+		}
+	}
+
+	private final int width;
+	private final int height;
+	private final int mines;
+	private final Strategy strategy;
+	private final boolean noGuess;
+
+	/**
+	 * Creates a simulator for boards of a size
+	 *
+	 * @param width    Width of the boards
+	 * @param height   Height of the boards
+	 * @param mines    Number of mines, restricted like any MineBoard
+	 * @param strategy How tiles are picked
+	 * @param noGuess  Whether boards are found by the NoGuessGenerator
+	 */
+	public BatchSimulator(int width, int height, int mines, Strategy strategy, boolean noGuess) {
+		this.width = width;
+		this.height = height;
+		this.mines = mines;
+		this.strategy = strategy;
+		this.noGuess = noGuess;
+	}
+
+	/**
+	 * Plays a game for every seed of a range
+	 *
+	 * @param firstSeed Seed of the first game
+	 * @param games     Number of games, on consecutive seeds
+	 * @param threads   Number of threads playing
+	 * @return Totals over the games
+	 */
+	public Totals run(long firstSeed, long games, int threads) {
+		AtomicLong next = new AtomicLong();
+		ExecutorService pool = Executors.newFixedThreadPool(threads);
+		long start = System.nanoTime();
+		try {
+			List<Future<Totals>> results = new ArrayList<Future<Totals>>(threads);
+			for (int t = 0; t < threads; t++) {
+				results.add(pool.submit(new Player(firstSeed, games, next)));
+			}
+			Totals totals = new Totals();
+			for (Future<Totals> result : results) {
+				totals.add(result.get());
+			}
+			totals.seconds = (System.nanoTime() - start) / 1e9;
+			return totals;
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			throw new IllegalStateException("Interrupted while playing", e);
+		} catch (ExecutionException e) {
+			throw new IllegalStateException("A game failed", e.getCause());
+		} finally {
+			pool.shutdown();
+		}
+	}
+
+	/**
+	 * Plays games on one thread until there are none left to take
+	 */
+	private class Player implements Callable<Totals> {
+		// Games are taken this many at a time
+		private static final int BATCH = 64;
+		private final long firstSeed;
+		private final long games;
+		private final AtomicLong next;
+
+		Player(long firstSeed, long games, AtomicLong next) {
+			this.firstSeed = firstSeed;
+			this.games = games;
+			this.next = next;
+		}
+
+		@Override
+		public Totals call() {
+			MineBoard board = new MineBoard(width, height, mines, firstSeed);
+			Solver solver = new Solver(board);
+			MineProbabilities odds = new MineProbabilities(solver);
+			int[] covered = new int[board.getWidth() * board.getHeight()];
+			ForkJoinPool candidates = noGuess ? new ForkJoinPool(1) : null;
+			Totals totals = new Totals();
+			try {
+				for (long from = next.getAndAdd(BATCH); from < games; from = next.getAndAdd(BATCH)) {
+					for (long game = from; game < Math.min(games, from + BATCH); game++) {
+						play(board, solver, odds, covered, candidates, firstSeed + game, totals);
+					}
+				}
+			} finally {
+				if (candidates != null)
+					candidates.shutdown();
+			}
+			return totals;
+		}
+	}
+
+	/**
+	 * Plays one game to the end and adds it to the totals
+	 *
+	 * @param board      Board reset for the game
+	 * @param solver     Solver of the board
+	 * @param odds       Calculator on the solver
+	 * @param covered    Room for the index of every tile
+	 * @param candidates Pool no-guess boards are found on, or null
+	 * @param seed       Seed of the game
+	 * @param totals     Totals to add the game to
+	 */
+	private void play(MineBoard board, Solver solver, MineProbabilities odds, int[] covered,
+			ForkJoinPool candidates, long seed, Totals totals) {
+		int boardWidth = board.getWidth();
+		int cell = board.getHeight() / 2 * boardWidth + boardWidth / 2;
+		board.reset(seed);
+		if (candidates != null)
+			NoGuessGenerator.generate(board, cell / boardWidth, cell % boardWidth, candidates);
+		solver.rescan();
+		SplittableRandom random = new SplittableRandom(seed);
+
+		long clicks = 0;
+		while (true) {
+			board.reveal(cell / boardWidth, cell % boardWidth);
+			clicks++;
+			if (board.isOver())
+				break;
+			cell = -1;
+			if (strategy != Strategy.RANDOM) {
+				solver.update();
+				cell = solver.nextSafe();
+			}
+			if (cell < 0 && strategy == Strategy.ODDS) {
+				odds.compute();
+				cell = odds.getSafest();
+			}
+			if (cell < 0)
+				cell = randomTile(board, solver, covered, random);
+		}
+
+		totals.games++;
+		if (board.isWon())
+			totals.wins++;
+		totals.threeBV += threeBV(board);
+		totals.clicks += clicks;
+	}
+
+	/**
+	 * Picks a covered tile at random, leaving out the ones the solver knows are
+	 * mines unless the strategy is random
+	 *
+	 * @param board   Board being played
+	 * @param solver  Solver of the board
+	 * @param covered Room for the index of every tile
+	 * @param random  Generator of the game
+	 * @return Index of the tile
+	 */
+	private int randomTile(MineBoard board, Solver solver, int[] covered, SplittableRandom random) {
+		int count = 0;
+		for (int i = 0; i < covered.length; i++) {
+			if ((board.getCell(i) & MineBoard.COVERED) != 0
+					&& (strategy == Strategy.RANDOM || !solver.isKnownMine(i)))
+				covered[count++] = i;
+		}
+		return covered[random.nextInt(count)];
+	}
+
+	/**
+	 * Counts the 3BV of a board: the openings, plus the safe tiles that are not
+	 * uncovered by any opening. That is the fewest clicks that clear the board.
+	 * Only the values of the tiles are used, so it can be counted after a game
+	 *
+	 * @param board A board
+	 * @return The 3BV of the board
+	 */
+	static int threeBV(MineBoard board) {
+		int width = board.getWidth();
+		int height = board.getHeight();
+		boolean[] opened = new boolean[width * height];
+		int[] stack = new int[width * height];
+		int clicks = 0;
+		for (int start = 0; start < opened.length; start++) {
+			if (opened[start] || (board.getCell(start) & MineBoard.VALUE) != 0)
+				continue;
+			// Flood the opening, uncovering the numbers around it too
+			clicks++;
+			int size = 0;
+			opened[start] = true;
+			stack[size++] = start;
+			while (size > 0) {
+				int cell = stack[--size];
+				if ((board.getCell(cell) & MineBoard.VALUE) != 0)
+					continue;
+				int r = cell / width;
+				int c = cell % width;
+				for (int i = Math.max(r - 1, 0); i <= Math.min(r + 1, height - 1); i++) {
+					for (int j = Math.max(c - 1, 0); j <= Math.min(c + 1, width - 1); j++) {
+						if (!opened[i * width + j]) {
+							opened[i * width + j] = true;
+							stack[size++] = i * width + j;
+						}
+					}
+				}
+			}
+		}
+		for (int cell = 0; cell < opened.length; cell++) {
+			int value = board.getCell(cell) & MineBoard.VALUE;
+			if (!opened[cell] && value != MineBoard.MINE && value != MineBoard.TRIPPED)
+				clicks++;
+		}
+		return clicks;
+	}
+
+	public static void main(String[] args) {
+		int width = args.length > 0 ? Integer.parseInt(args[0]) : 30;
+		int height = args.length > 1 ? Integer.parseInt(args[1]) : 16;
+		int density = args.length > 2 ? Integer.parseInt(args[2]) : 206;
+		long firstSeed = args.length > 3 ? Long.parseLong(args[3]) : 0;
+		long games = args.length > 4 ? Long.parseLong(args[4]) : 10000;
+		Strategy strategy = args.length > 5 ? Strategy.valueOf(args[5].toUpperCase())
+				: Strategy.ODDS;
+		boolean noGuess = args.length > 6 && args[6].equalsIgnoreCase("noguess");
+		int threads = args.length > 7 ? Integer.parseInt(args[7])
+				: Runtime.getRuntime().availableProcessors();
+
+		int mines = (int) ((long) width * height * density / 1000);
+		System.out.printf("%dx%d boards, %d mines, seeds %d to %d, %s strategy%s, %d threads%n",
+				width, height, mines, firstSeed, firstSeed + games - 1,
+				strategy.name().toLowerCase(), noGuess ? ", no-guess boards" : "", threads);
+		System.out.println(new BatchSimulator(width, height, mines, strategy, noGuess)
+				.run(firstSeed, games, threads));
+	}
+}
@@ -0,0 +1,104 @@
+import java.awt.Dimension;
+import java.awt.Graphics;
+import java.awt.Rectangle;
+import java.awt.image.BufferedImage;
+
+import javax.swing.JComponent;
+
+/**
+ * BoardCanvas draws every tile of a MineBoard itself from the shared sprite
+ * sheet, so a board is a single component however many tiles it has. It only
+ * paints the tiles inside the clip and maps mouse coordinates back to tiles;
+ * what a click does is left to whoever listens to it (see MineMap).
+ *
+ * @author Kanishka Ragula
+ *
+ */
+public class BoardCanvas extends JComponent {
+
+	// Eclipse wanted this. Don't know what it is
+	private static final long serialVersionUID = 4118604402925131307L;
+	private MineBoard board;
+
+	/**
+	 * Creates a canvas drawing the given board
+	 *
+	 * @param board Board to draw
+	 */
+	public BoardCanvas(MineBoard board) {
+		super();
+		this.board = board;
+		setOpaque(true);
+	}
+
+	/**
+	 * Replaces the board being drawn (used when loading a save)
+	 *
+	 * @param board Board to draw
+	 */
+	public void setBoard(MineBoard board) {
+		this.board = board;
+		revalidate();
+		repaint();
+	}
+
+	/**
+	 * Returns the row of the tile under a y coordinate of this component
+	 *
+	 * @param y y coordinate in pixels
+	 * @return Row of the tile, may be off the board
+	 */
+	public int rowAt(int y) {
+		return Math.floorDiv(y, TileIcons.SIZE);
+	}
+
+	/**
+	 * Returns the column of the tile under an x coordinate of this component
+	 *
+	 * @param x x coordinate in pixels
+	 * @return Column of the tile, may be off the board
+	 */
+	public int columnAt(int x) {
+		return Math.floorDiv(x, TileIcons.SIZE);
+	}
+
+	@Override
+	protected void paintComponent(Graphics g) {
+		long start = Metrics.ENABLED ? System.nanoTime() : 0;
+		BufferedImage sprites = TileIcons.spriteSheet();
+		Rectangle clip = g.getClipBounds();
+		if (clip == null) {
+			clip = new Rectangle(0, 0, getWidth(), getHeight());
+		}
+
+		// Anything past the edge of the board is left as background
+		if (clip.x + clip.width > TileIcons.SIZE * board.getWidth()
+				|| clip.y + clip.height > TileIcons.SIZE * board.getHeight()) {
+			g.setColor(getBackground());
+			g.fillRect(clip.x, clip.y, clip.width, clip.height);
+		}
+
+		// Only the tiles that intersect the clip need to be drawn
+		int firstRow = Math.max(0, rowAt(clip.y));
+		int lastRow = Math.min(board.getHeight() - 1, rowAt(clip.y + clip.height - 1));
+		int firstCol = Math.max(0, columnAt(clip.x));
+		int lastCol = Math.min(board.getWidth() - 1, columnAt(clip.x + clip.width - 1));
+
+		for (int i = firstRow; i <= lastRow; i++) {
+			int y = i * TileIcons.SIZE;
+			for (int j = firstCol; j <= lastCol; j++) {
+				int x = j * TileIcons.SIZE;
+				int sprite = TileIcons.spriteFor(board.getCell(i, j)) * TileIcons.SIZE;
+				g.drawImage(sprites, x, y, x + TileIcons.SIZE, y + TileIcons.SIZE, sprite, 0,
+						sprite + TileIcons.SIZE, TileIcons.SIZE, null);
+			}
+		}
+		if (Metrics.ENABLED)
+			Metrics.PAINT.recordSince(start);
+	}
+
+	@Override
+	public Dimension getPreferredSize() {
+		return new Dimension(TileIcons.SIZE * board.getWidth(), TileIcons.SIZE * board.getHeight());
+	}
+}
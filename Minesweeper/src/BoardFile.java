@@ -0,0 +1,563 @@
+import java.io.BufferedWriter;
+import java.io.File;
+import java.io.FileWriter;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+
+/**
+ * Reads and writes saved games. Games are saved in a compact binary format and
+ * can be loaded from either that format or the original text format, where
+ * every tile is written as three characters ("MFT").
+ *
+ * The binary format starts with a header: the magic bytes "MSWB", a version
+ * byte, a flags byte (bit 0 set if the next reveal is protected from hitting a
+ * mine, bit 1 set if the board is exactly as generated from its seed), the
+ * width, height, number of mines and number of moves made as big-endian ints
+ * and the seed of the board as a big-endian long. Version 1 saves stop after
+ * the number of mines and version 2 saves after the number of moves. Unless
+ * the board is generated from its seed, the header is followed by one nibble
+ * per tile, read row by row with the high nibble first.
+ * The low two bits of a nibble are the state of the tile (covered, flagged or
+ * uncovered), the third bit is set for a mine and the fourth for the mine that
+ * lost the game. Numbers are not stored, they are recounted from the mines.
+ *
+ * @author Kanishka Ragula
+ *
+ */
+public final class BoardFile {
+
+	/** Version of the binary format written by this class */
+	public static final int VERSION = 3;
+
+	// Size of the binary header in bytes, in the first version and now
+	private static final int V1_HEADER_SIZE = 4 + 1 + 1 + 4 + 4 + 4;
+	private static final int HEADER_SIZE = V1_HEADER_SIZE + 4 + 8;
+	private static final byte[] MAGIC = { 'M', 'S', 'W', 'B' };
+
+	// States in the low bits of a nibble
+	private static final int STATE_COVERED = 0;
+	private static final int STATE_FLAGGED = 1;
+	private static final int STATE_UNCOVERED = 2;
+	private static final int NIBBLE_MINE = 4;
+	private static final int NIBBLE_TRIPPED = 8;
+
+	// Unused cell bit marking a tripped mine while the numbers are counted
+	private static final int TRIPPED_MARK = 0x40;
+
+	// Header flags set when the next reveal is protected, and when no tiles follow
+	private static final int FLAG_FIRST_MOVE = 1;
+	private static final int FLAG_GENERATED = 2;
+
+	// Cell for each nibble, before the numbers are counted. -1 for invalid nibbles
+	private static final int[] NIBBLE_CELLS = new int[16];
+
+	static {
+		for (int nibble = 0; nibble < NIBBLE_CELLS.length; nibble++) {
+			NIBBLE_CELLS[nibble] = fromNibble(nibble);
+		}
+	}
+
+	// Number of bytes of tiles decoded at a time
+	private static final int READ_CHUNK = 1 << 16;
+
+	// Value bits for each character of a text save, -1 for invalid characters
+	private static final int[] TEXT_VALUES = new int[256];
+	// 1 for T and 0 for F in a text save, -1 for invalid characters
+	private static final int[] TEXT_BOOLS = new int[256];
+
+	static {
+		for (int c = 0; c < 256; c++) {
+			TEXT_VALUES[c] = -1;
+			TEXT_BOOLS[c] = -1;
+		}
+		for (int value = 0; value <= MineBoard.TRIPPED; value++) {
+			TEXT_VALUES[Tile.valueOf((byte) value).charAt(0)] = value;
+		}
+		TEXT_BOOLS['T'] = 1;
+		TEXT_BOOLS['F'] = 0;
+	}
+
+	// Size of the buffer used to write the tiles
+	private static final int WRITE_BUFFER = 1 << 16;
+
+	private BoardFile() {
+	}
+
+	/**
+	 * Writes a board in the binary format
+	 *
+	 * @param board Board to save
+	 * @param f     File to write to, replaced if it exists
+	 * @throws IOException If the file cannot be written
+	 */
+	public static void writeBinary(MineBoard board, File f) throws IOException {
+		FileChannel channel = FileChannel.open(f.toPath(), StandardOpenOption.WRITE,
+				StandardOpenOption.CREATE, StandardOpenOption.TRUNCATE_EXISTING);
+		try {
+			ByteBuffer buffer = ByteBuffer.allocateDirect(WRITE_BUFFER);
+			putHeader(buffer, board, board.isFirstMove() ? FLAG_FIRST_MOVE : 0, board.getMoves());
+
+			int numCells = board.getWidth() * board.getHeight();
+			for (int i = 0; i < numCells; i += 2) {
+				int packed = toNibble(board.getCell(i)) << 4;
+				if (i + 1 < numCells) {
+					packed |= toNibble(board.getCell(i + 1));
+				}
+				buffer.put((byte) packed);
+				if (!buffer.hasRemaining()) {
+					flush(buffer, channel);
+				}
+			}
+			flush(buffer, channel);
+		} finally {
+			channel.close();
+		}
+	}
+
+	/**
+	 * Encodes a board in the binary format into an array, for boards embedded in
+	 * other files
+	 *
+	 * @param board Board to encode
+	 * @return The same bytes writeBinary writes
+	 */
+	static byte[] encode(MineBoard board) {
+		int numCells = board.getWidth() * board.getHeight();
+		ByteBuffer buffer = ByteBuffer.allocate(HEADER_SIZE + (numCells + 1) / 2);
+		putHeader(buffer, board, board.isFirstMove() ? FLAG_FIRST_MOVE : 0, board.getMoves());
+		for (int i = 0; i < numCells; i += 2) {
+			int packed = toNibble(board.getCell(i)) << 4;
+			if (i + 1 < numCells) {
+				packed |= toNibble(board.getCell(i + 1));
+			}
+			buffer.put((byte) packed);
+		}
+		return buffer.array();
+	}
+
+	/**
+	 * Writes a board as it was generated, before any move was made, in the binary
+	 * format. Only the header is written, the tiles are generated again from the
+	 * seed when the save is read
+	 *
+	 * @param board Generated board to save
+	 * @param f     File to write to, replaced if it exists
+	 * @throws IOException              If the file cannot be written
+	 * @throws IllegalArgumentException If the board was not generated from its
+	 *                                  seed
+	 */
+	public static void writeSeed(MineBoard board, File f) throws IOException {
+		if (!board.isGenerated())
+			throw new IllegalArgumentException("Board was not generated from a seed");
+		FileChannel channel = FileChannel.open(f.toPath(), StandardOpenOption.WRITE,
+				StandardOpenOption.CREATE, StandardOpenOption.TRUNCATE_EXISTING);
+		try {
+			ByteBuffer buffer = ByteBuffer.allocate(HEADER_SIZE);
+			putHeader(buffer, board, FLAG_FIRST_MOVE | FLAG_GENERATED, 0);
+			flush(buffer, channel);
+		} finally {
+			channel.close();
+		}
+	}
+
+	/**
+	 * Puts the header of a binary save in a buffer
+	 *
+	 * @param buffer Buffer to put the header in
+	 * @param board  Board being saved
+	 * @param flags  Flags of the save
+	 * @param moves  Number of moves made on the saved board
+	 */
+	private static void putHeader(ByteBuffer buffer, MineBoard board, int flags, int moves) {
+		buffer.put(MAGIC);
+		buffer.put((byte) VERSION);
+		buffer.put((byte) flags);
+		buffer.putInt(board.getWidth());
+		buffer.putInt(board.getHeight());
+		buffer.putInt(board.getMines());
+		buffer.putInt(moves);
+		buffer.putLong(board.getSeed());
+	}
+
+	/**
+	 * Writes out everything in the buffer and clears it
+	 *
+	 * @param buffer  Buffer to write
+	 * @param channel Channel to write to
+	 * @throws IOException If the channel cannot be written
+	 */
+	private static void flush(ByteBuffer buffer, FileChannel channel) throws IOException {
+		buffer.flip();
+		while (buffer.hasRemaining()) {
+			channel.write(buffer);
+		}
+		buffer.clear();
+	}
+
+	/**
+	 * Writes a board in the original text format. The board is written to a
+	 * temporary file first and moved over the old one, so a save cut short never
+	 * replaces a complete one
+	 *
+	 * @param board Board to save
+	 * @param f     File to write to, replaced if it exists
+	 * @throws IOException If the file cannot be written
+	 */
+	public static void writeText(MineBoard board, File f) throws IOException {
+		File temp = new File(f.getPath() + ".tmp");
+		BufferedWriter bw = new BufferedWriter(new FileWriter(temp));
+		try {
+			for (int i = 0; i < board.getHeight(); i++) {
+				for (int j = 0; j < board.getWidth(); j++) {
+					bw.write(board.getTile(i, j).toString());
+				}
+				bw.newLine();
+			}
+		} finally {
+			bw.close();
+		}
+		Files.move(temp.toPath(), f.toPath(), StandardCopyOption.REPLACE_EXISTING,
+				StandardCopyOption.ATOMIC_MOVE);
+	}
+
+	/**
+	 * Reads a board saved in either format
+	 *
+	 * @param f         File to read from
+	 * @param firstMove Whether the next reveal is protected from hitting a mine,
+	 *                  for text saves which do not store it
+	 * @return The saved board
+	 * @throws IOException If the file cannot be read or is formatted poorly
+	 */
+	public static MineBoard read(File f, boolean firstMove) throws IOException {
+		if (isBinary(f)) {
+			return readBinary(f);
+		}
+		return readText(f, firstMove);
+	}
+
+	/**
+	 * Reads a board in the text format by mapping the file into memory
+	 *
+	 * @param f         File to read from
+	 * @param firstMove Whether the next reveal is protected from hitting a mine
+	 * @return The saved board
+	 * @throws IOException If the file cannot be read or is formatted poorly
+	 */
+	public static MineBoard readText(File f, boolean firstMove) throws IOException {
+		FileChannel channel = FileChannel.open(f.toPath(), StandardOpenOption.READ);
+		try {
+			if (channel.size() > Integer.MAX_VALUE)
+				throw new IOException("Input File too large");
+			MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+			return decodeText(buffer, firstMove);
+		} finally {
+			channel.close();
+		}
+	}
+
+	/**
+	 * Decodes a text save in a single pass over the buffer. Each tile is decoded
+	 * with lookup tables straight into a packed cell, and every row is checked
+	 * against the width of the first one as soon as it ends. Rows may end with
+	 * either \n or \r\n.
+	 *
+	 * @param buffer    Buffer holding the save, from its position to its limit
+	 * @param firstMove Whether the next reveal is protected from hitting a mine
+	 * @return The saved board
+	 * @throws IOException If the save is formatted poorly, with the line and column
+	 *                     (both starting at 1) of the first error
+	 */
+	static MineBoard decodeText(ByteBuffer buffer, boolean firstMove) throws IOException {
+		// Every tile takes three characters, so this is enough for any valid save
+		byte[] cells = new byte[buffer.remaining() / 3];
+		int numCells = 0;
+		int lineLength = -1;
+		int line = 1;
+		int column = 0;
+		int cell = 0;
+
+		while (buffer.hasRemaining()) {
+			int c = buffer.get() & 0xFF;
+			if (c == '\n' || c == '\r') {
+				if (c == '\r' && buffer.hasRemaining() && buffer.get(buffer.position()) == '\n') {
+					buffer.get();
+				}
+				if (lineLength < 0) {
+					if (column == 0 || column % 3 != 0)
+						throw formatError("length of " + column + " is not a multiple of 3", line, column + 1);
+					lineLength = column;
+				} else if (column != lineLength) {
+					throw formatError("length of " + column + " does not match " + lineLength, line,
+							column + 1);
+				}
+				line++;
+				column = 0;
+				continue;
+			}
+
+			if (column == lineLength)
+				throw formatError("line longer than " + lineLength, line, column + 1);
+			switch (column % 3) {
+			case 0:
+				cell = TEXT_VALUES[c];
+				if (cell < 0)
+					throw formatError("invalid tile value '" + (char) c + "'", line, column + 1);
+				break;
+			case 1:
+				if (TEXT_BOOLS[c] < 0)
+					throw formatError("invalid flagged value '" + (char) c + "'", line, column + 1);
+				cell |= TEXT_BOOLS[c] * MineBoard.FLAGGED;
+				break;
+			default:
+				if (TEXT_BOOLS[c] < 0)
+					throw formatError("invalid covered value '" + (char) c + "'", line, column + 1);
+				cells[numCells++] = (byte) (cell | TEXT_BOOLS[c] * MineBoard.COVERED);
+			}
+			column++;
+		}
+
+		// The last line does not need to end with a new line
+		if (column > 0) {
+			if (lineLength < 0 && column % 3 != 0)
+				throw formatError("length of " + column + " is not a multiple of 3", line, column + 1);
+			if (lineLength >= 0 && column != lineLength)
+				throw formatError("length of " + column + " does not match " + lineLength, line,
+						column + 1);
+			if (lineLength < 0)
+				lineLength = column;
+		}
+		if (numCells == 0)
+			throw new IOException("Input File Empty");
+
+		int width = lineLength / 3;
+		if (numCells != cells.length) {
+			cells = Arrays.copyOf(cells, numCells);
+		}
+		return new MineBoard(width, numCells / width, cells, firstMove);
+	}
+
+	/**
+	 * Creates the exception for a poorly formatted text save
+	 *
+	 * @param problem What is wrong
+	 * @param line    Line of the error, starting at 1
+	 * @param column  Column of the error, starting at 1
+	 * @return Exception to throw
+	 */
+	private static IOException formatError(String problem, int line, int column) {
+		return new IOException("Input File Formatted Poorly, " + problem + " at line " + line 
+				+ ", column " + column);
+	}
+
+	/**
+	 * Checks whether a file starts with the magic bytes of the binary format
+	 *
+	 * @param f File to check
+	 * @return Whether the file is a binary save
+	 * @throws IOException If the file cannot be read
+	 */
+	public static boolean isBinary(File f) throws IOException {
+		FileChannel channel = FileChannel.open(f.toPath(), StandardOpenOption.READ);
+		try {
+			ByteBuffer magic = ByteBuffer.allocate(MAGIC.length);
+			while (magic.hasRemaining() && channel.read(magic) >= 0) {
+				// Keep reading until the magic bytes are in or the file ends
+			}
+			return !magic.hasRemaining() && magic.array()[0] == MAGIC[0]
+					&& magic.array()[1] == MAGIC[1] && magic.array()[2] == MAGIC[2]
+					&& magic.array()[3] == MAGIC[3];
+		} finally {
+			channel.close();
+		}
+	}
+
+	/**
+	 * Reads a board in the binary format by mapping the file into memory
+	 *
+	 * @param f File to read from
+	 * @return The saved board
+	 * @throws IOException If the file cannot be read or is formatted poorly
+	 */
+	public static MineBoard readBinary(File f) throws IOException {
+		FileChannel channel = FileChannel.open(f.toPath(), StandardOpenOption.READ);
+		try {
+			if (channel.size() < V1_HEADER_SIZE)
+				throw new IOException("Binary save too short for its header");
+			MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+			return decode(buffer);
+		} finally {
+			channel.close();
+		}
+	}
+
+	/**
+	 * Decodes a binary save, starting at the position of the buffer
+	 *
+	 * @param buffer Buffer holding the save
+	 * @return The saved board
+	 * @throws IOException If the save is formatted poorly
+	 */
+	static MineBoard decode(ByteBuffer buffer) throws IOException {
+		for (int i = 0; i < MAGIC.length; i++) {
+			if (buffer.get() != MAGIC[i])
+				throw new IOException("Not a binary save");
+		}
+		int version = buffer.get();
+		if (version < 1 || version > VERSION)
+			throw new IOException("Unsupported save version " + version);
+		if (buffer.remaining() < headerSize(version) - MAGIC.length - 1)
+			throw new IOException("Binary save too short for its header");
+		int flags = buffer.get();
+		int width = buffer.getInt();
+		int height = buffer.getInt();
+		int mines = buffer.getInt();
+		int moves = version < 2 ? 0 : buffer.getInt();
+		boolean seeded = version >= 3;
+		long seed = seeded ? buffer.getLong() : 0;
+		if (width <= 0 || height <= 0 || (long) width * height > Integer.MAX_VALUE - 8)
+			throw new IOException("Invalid board size " + width + "x" + height);
+		if ((flags & FLAG_GENERATED) != 0) {
+			return generate(width, height, mines, seed);
+		}
+		int numCells = width * height;
+		if (buffer.remaining() < (numCells + 1) / 2)
+			throw new IOException("Binary save too short for a " + width + "x" + height + " board");
+
+		byte[] cells = new byte[numCells];
+		int[] mineCells = new int[Math.max(0, Math.min(mines, numCells)) + 1];
+		int numMines = 0;
+		byte[] chunk = new byte[READ_CHUNK];
+		for (int i = 0; i < numCells; i += 2 * READ_CHUNK) {
+			int length = Math.min(READ_CHUNK, (numCells - i + 1) / 2);
+			buffer.get(chunk, 0, length);
+			for (int k = 0; k < 2 * length && i + k < numCells; k++) {
+				int cell = NIBBLE_CELLS[(k % 2 == 0 ? chunk[k >> 1] >> 4 : chunk[k >> 1]) & 0xF];
+				if (cell < 0) {
+					throw new IOException("Invalid tile at row " + (i + k) / width + ", column " 
+							+ (i + k) % width);
+				}
+				cells[i + k] = (byte) cell;
+				if ((cell & MineBoard.VALUE) == MineBoard.MINE) {
+					if (numMines == mineCells.length) {
+						mineCells = Arrays.copyOf(mineCells, Math.min(numCells, mineCells.length * 2));
+					}
+					mineCells[numMines++] = i + k;
+				}
+			}
+		}
+
+		// Tripped mines are decoded as marked mines so they count for their neighbors
+		MineBoard.countNeighbors(cells, width, mineCells, numMines);
+		for (int m = 0; m < numMines; m++) {
+			if ((cells[mineCells[m]] & TRIPPED_MARK) != 0) {
+				cells[mineCells[m]] = (byte) (cells[mineCells[m]] & ~(TRIPPED_MARK | MineBoard.VALUE)
+						| MineBoard.TRIPPED);
+			}
+		}
+
+		if (numMines != mines)
+			throw new IOException("Save has " + numMines + " mines, header says " + mines);
+		MineBoard board = new MineBoard(width, height, cells, (flags & FLAG_FIRST_MOVE) != 0);
+		board.setMoves(moves);
+		if (seeded) {
+			board.setSeed(seed);
+		}
+		return board;
+	}
+
+	/**
+	 * @param version Version of a binary save
+	 * @return Size of the header of that version in bytes
+	 */
+	private static int headerSize(int version) {
+		if (version == 1)
+			return V1_HEADER_SIZE;
+		if (version == 2)
+			return V1_HEADER_SIZE + 4;
+		return HEADER_SIZE;
+	}
+
+	/**
+	 * Generates the board of a save holding only a header
+	 *
+	 * @param width  Width from the header
+	 * @param height Height from the header
+	 * @param mines  Number of mines from the header
+	 * @param seed   Seed from the header
+	 * @return The generated board
+	 * @throws IOException If the header does not describe a board that can be
+	 *                     generated
+	 */
+	private static MineBoard generate(int width, int height, int mines, long seed)
+			throws IOException {
+		MineBoard board = new MineBoard(width, height, mines, seed);
+		if (board.getWidth() != width || board.getHeight() != height || board.getMines() != mines)
+			throw new IOException("Cannot generate a " + width + "x" + height + " board with " + mines
+					+ " mines");
+		return board;
+	}
+
+	/**
+	 * Packs the state of a cell into a nibble of the binary format
+	 *
+	 * @param cell Packed cell of a MineBoard
+	 * @return Nibble for the cell
+	 */
+	private static int toNibble(byte cell) {
+		int nibble;
+		if ((cell & MineBoard.FLAGGED) != 0) {
+			nibble = STATE_FLAGGED;
+		} else if ((cell & MineBoard.COVERED) != 0) {
+			nibble = STATE_COVERED;
+		} else {
+			nibble = STATE_UNCOVERED;
+		}
+		if ((cell & MineBoard.VALUE) == MineBoard.MINE) {
+			nibble |= NIBBLE_MINE;
+		} else if ((cell & MineBoard.VALUE) == MineBoard.TRIPPED) {
+			nibble |= NIBBLE_TRIPPED;
+		}
+		return nibble;
+	}
+
+	/**
+	 * Unpacks a nibble of the binary format into a cell without its number. Mines
+	 * have the MINE value (tripped ones also have TRIPPED_MARK set), everything else
+	 * has a value of 0
+	 *
+	 * @param nibble Nibble in the low four bits
+	 * @return Packed cell, or -1 if the nibble is not valid
+	 */
+	private static int fromNibble(int nibble) {
+		int cell;
+		switch (nibble & 3) {
+		case STATE_COVERED:
+			cell = MineBoard.COVERED;
+			break;
+		case STATE_FLAGGED:
+			cell = MineBoard.COVERED | MineBoard.FLAGGED;
+			break;
+		case STATE_UNCOVERED:
+			cell = 0;
+			break;
+		default:
+			return -1;
+		}
+		if ((nibble & NIBBLE_TRIPPED) != 0) {
+			// Only an uncovered tile without a mine bit can be the tripped mine
+			if ((nibble & (NIBBLE_MINE | 3)) != STATE_UNCOVERED)
+				return -1;
+			cell |= MineBoard.MINE | TRIPPED_MARK;
+		} else if ((nibble & NIBBLE_MINE) != 0) {
+			cell |= MineBoard.MINE;
+		}
+		return cell;
+	}
+}
@@ -0,0 +1,291 @@
+import java.util.SplittableRandom;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+
+/**
+ * Places the mines of a new board and counts its numbers, splitting large
+ * boards into stripes of rows that are generated on a ForkJoinPool.
+ *
+ * The number of mines in each stripe is drawn first, stripe after stripe, from
+ * the hypergeometric distribution of the mines left over the tiles left, and
+ * each stripe gets its own generator split from the one of the board. Each
+ * stripe then places its mines with Floyd's sampling and counts the numbers of
+ * its own rows, from its own mines and those in the rows just above and below
+ * it. The stripes only depend on the seed, so a board comes out the same on any
+ * number of threads, and a board that fits in one stripe is placed exactly as
+ * MineBoard always placed it.
+ *
+ * @author Kanishka Ragula
+ *
+ */
+public final class BoardGenerator {
+
+	// Tiles in a stripe, rounded to whole rows. Smaller boards are a single stripe
+	private static final int STRIPE_CELLS = 1 << 20;
+
+	// Log factorials up to this are kept in a table, larger ones are approximated
+	private static final int LOG_FACTORIALS = 256;
+	private static final double[] LOG_FACTORIAL = new double[LOG_FACTORIALS];
+
+	static {
+		for (int n = 1; n < LOG_FACTORIALS; n++) {
+			LOG_FACTORIAL[n] = LOG_FACTORIAL[n - 1] + Math.log(n);
+		}
+	}
+
+	/**
+	 * The stripes of a board being generated
+	 */
+	private static class Stripes {
+		byte[] cells;
+		int width;
+		int height;
+		int stripeRows;
+		int[] mineCells;
+		// Number of mines in each stripe and where they start in mineCells
+		int[] mines;
+		int[] offsets;
+		SplittableRandom[] randoms;
+	}
+
+	/**
+	 * Generates one phase of a range of stripes, splitting the range in two until
+	 * a single stripe is left
+	 */
+	private static class StripeTask extends RecursiveAction {
+		// Eclipse wanted this. Don't know what it is
+		private static final long serialVersionUID = 6617240318441236187L;
+		private final Stripes stripes;
+		private final boolean count;
+		private final int from;
+		private final int to;
+
+		StripeTask(Stripes stripes, boolean count, int from, int to) {
+			this.stripes = stripes;
+			this.count = count;
+			this.from = from;
+			this.to = to;
+		}
+
+		@Override
+		protected void compute() {
+			if (to - from > 1) {
+				int middle = (from + to) >>> 1;
+				invokeAll(new StripeTask(stripes, count, from, middle),
+						new StripeTask(stripes, count, middle, to));
+			} else if (count) {
+				countStripe(stripes, from);
+			} else {
+				placeStripe(stripes, from);
+			}
+		}
+	}
+
+	private BoardGenerator() {
+	}
+
+	/**
+	 * Fills a board with covered tiles, places its mines and counts its numbers
+	 *
+	 * @param cells     Packed cells of the board, overwritten
+	 * @param width     Width of the board
+	 * @param mineCells Filled with the indices of the mines
+	 * @param numMines  Number of mines to place
+	 * @param random    Generator of the board. Single stripe boards draw the
+	 *                  mines from it, larger ones the mines per stripe and the
+	 *                  generators of the stripes
+	 * @param pool      Pool the stripes are generated on
+	 */
+	public static void generate(byte[] cells, int width, int[] mineCells, int numMines,
+			SplittableRandom random, ForkJoinPool pool) {
+		int height = cells.length / width;
+		int stripeRows = Math.max(1, STRIPE_CELLS / width);
+		int numStripes = (height + stripeRows - 1) / stripeRows;
+
+		Stripes stripes = new Stripes();
+		stripes.cells = cells;
+		stripes.width = width;
+		stripes.height = height;
+		stripes.stripeRows = stripeRows;
+		stripes.mineCells = mineCells;
+		stripes.mines = new int[numStripes];
+		stripes.offsets = new int[numStripes];
+		stripes.randoms = new SplittableRandom[numStripes];
+
+		if (numStripes == 1) {
+			stripes.mines[0] = numMines;
+			stripes.randoms[0] = random;
+			placeStripe(stripes, 0);
+			MineBoard.countNeighbors(cells, width, mineCells, numMines);
+			return;
+		}
+
+		// Deal the mines out to the stripes in order, so only the seed decides them
+		long cellsLeft = cells.length;
+		int minesLeft = numMines;
+		for (int s = 0; s < numStripes; s++) {
+			int stripeCells = (Math.min(height, (s + 1) * stripeRows) - s * stripeRows) * width;
+			stripes.mines[s] = s == numStripes - 1 ? minesLeft
+					: hypergeometric(random, cellsLeft, minesLeft, stripeCells);
+			stripes.offsets[s] = numMines - minesLeft;
+			stripes.randoms[s] = random.split();
+			cellsLeft -= stripeCells;
+			minesLeft -= stripes.mines[s];
+		}
+
+		// Every stripe has to be placed before any can count its halo rows
+		pool.invoke(new StripeTask(stripes, false, 0, numStripes));
+		pool.invoke(new StripeTask(stripes, true, 0, numStripes));
+	}
+
+	/**
+	 * Covers the tiles of a stripe and places its mines with Floyd's sampling: for
+	 * each of the last mines tiles, a random tile up to it is picked, falling back
+	 * to the tile itself if that one is already taken
+	 *
+	 * @param stripes Stripes of the board
+	 * @param s       Stripe to place
+	 */
+	private static void placeStripe(Stripes stripes, int s) {
+		byte[] cells = stripes.cells;
+		int start = s * stripes.stripeRows * stripes.width;
+		int end = Math.min(stripes.height, (s + 1) * stripes.stripeRows) * stripes.width;
+		for (int i = start; i < end; i++) {
+			cells[i] = MineBoard.COVERED;
+		}
+
+		SplittableRandom random = stripes.randoms[s];
+		int numMines = stripes.offsets[s];
+		for (int j = end - start - stripes.mines[s]; j < end - start; j++) {
+			int cell = start + random.nextInt(j + 1);
+			if ((cells[cell] & MineBoard.VALUE) == MineBoard.MINE) {
+				cell = start + j;
+			}
+			cells[cell] = MineBoard.COVERED | MineBoard.MINE;
+			stripes.mineCells[numMines++] = cell;
+		}
+	}
+
+	/**
+	 * Counts the numbers of the rows of a stripe. Only tiles of the stripe are
+	 * written, so stripes can be counted at the same time
+	 *
+	 * @param stripes Stripes of the board
+	 * @param s       Stripe to count
+	 */
+	private static void countStripe(Stripes stripes, int s) {
+		byte[] cells = stripes.cells;
+		int width = stripes.width;
+		int firstRow = s * stripes.stripeRows;
+		int lastRow = Math.min(stripes.height, firstRow + stripes.stripeRows) - 1;
+
+		for (int m = stripes.offsets[s]; m < stripes.offsets[s] + stripes.mines[s]; m++) {
+			addAround(cells, width, stripes.mineCells[m], firstRow, lastRow);
+		}
+
+		// Mines in the rows next to the stripe count for its edge rows
+		for (int row : new int[] { firstRow - 1, lastRow + 1 }) {
+			if (row < 0 || row >= stripes.height)
+				continue;
+			for (int cell = row * width; cell < (row + 1) * width; cell++) {
+				if ((cells[cell] & MineBoard.VALUE) == MineBoard.MINE)
+					addAround(cells, width, cell, firstRow, lastRow);
+			}
+		}
+	}
+
+	/**
+	 * Adds one to the tiles without a mine around a mine, within a range of rows
+	 *
+	 * @param cells    Packed cells of the board
+	 * @param width    Width of the board
+	 * @param mine     Index of the mine
+	 * @param firstRow First row that may be written
+	 * @param lastRow  Last row that may be written
+	 */
+	private static void addAround(byte[] cells, int width, int mine, int firstRow, int lastRow) {
+		int r = mine / width;
+		int c = mine - r * width;
+		int rowEnd = Math.min(r + 1, lastRow);
+		int colEnd = Math.min(c + 1, width - 1);
+		for (int i = Math.max(r - 1, firstRow); i <= rowEnd; i++) {
+			for (int j = Math.max(c - 1, 0); j <= colEnd; j++) {
+				if ((cells[i * width + j] & MineBoard.VALUE) != MineBoard.MINE)
+					cells[i * width + j]++;
+			}
+		}
+	}
+
+	/**
+	 * Draws the number of mines among some tiles picked from a board, when the
+	 * mines are spread uniformly. The probabilities are added up outwards from
+	 * the most likely count, so this takes steps in the order of the standard
+	 * deviation
+	 *
+	 * @param random     Generator to draw from
+	 * @param population Number of tiles
+	 * @param successes  Number of mines among the tiles
+	 * @param draws      Number of tiles picked
+	 * @return Number of mines among the tiles picked
+	 */
+	static int hypergeometric(SplittableRandom random, long population, long successes,
+			long draws) {
+		long low = Math.max(0, draws - (population - successes));
+		long high = Math.min(draws, successes);
+		if (low == high)
+			return (int) low;
+
+		long mode = (draws + 1) * (successes + 1) / (population + 2);
+		mode = Math.max(low, Math.min(high, mode));
+		double pMode = Math.exp(logChoose(successes, mode)
+				+ logChoose(population - successes, draws - mode) - logChoose(population, draws));
+
+		double u = random.nextDouble() - pMode;
+		long up = mode;
+		long down = mode;
+		double pUp = pMode;
+		double pDown = pMode;
+		while (u > 0 && (up < high || down > low)) {
+			if (up < high) {
+				pUp *= (double) (successes - up) * (draws - up)
+						/ ((double) (up + 1) * (population - successes - draws + up + 1));
+				up++;
+				u -= pUp;
+				if (u <= 0)
+					return (int) up;
+			}
+			if (down > low) {
+				pDown *= (double) down * (population - successes - draws + down)
+						/ ((double) (successes - down + 1) * (draws - down + 1));
+				down--;
+				u -= pDown;
+				if (u <= 0)
+					return (int) down;
+			}
+		}
+		// Only rounding errors are left
+		return (int) mode;
+	}
+
+	/**
+	 * @param n Size of a set
+	 * @param k Size of the subsets
+	 * @return Natural log of the number of subsets
+	 */
+	static double logChoose(long n, long k) {
+		return logFactorial(n) - logFactorial(k) - logFactorial(n - k);
+	}
+
+	/**
+	 * @param n Number to take the factorial of
+	 * @return Natural log of n!, from a table for small n and Stirling's series
+	 *         otherwise
+	 */
+	static double logFactorial(long n) {
+		if (n < LOG_FACTORIALS)
+			return LOG_FACTORIAL[(int) n];
+		double x = n;
+		return x * Math.log(x) - x + 0.5 * Math.log(2 * Math.PI * x) + 1 / (12 * x)
+				- 1 / (360 * x * x * x);
+	}
+}
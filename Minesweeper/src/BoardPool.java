@@ -0,0 +1,210 @@
+import java.util.ArrayDeque;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadFactory;
+
+/**
+ * Keeps a few boards generated ahead of time for the sizes of game played most
+ * recently, so Reset and Custom Game start a new game without waiting for its
+ * board to be generated.
+ *
+ * Every board taken from the pool is replaced by a background thread, at a low
+ * priority so it does not hold up the game. The first game of a size is
+ * generated when it is asked for, and from then on boards of that size are kept
+ * ready, until it is one of the sizes played least recently. Sizes are kept by
+ * the board they give, so asking for a size the board restricts shares the
+ * boards of the size it is restricted to. Boards that would take more than
+ * MAX_BYTES are always generated when they are asked for, so the pool never
+ * holds more than SIZES * BOARDS_PER_SIZE * MAX_BYTES.
+ *
+ * Boards are generated from new seeds like any other, so they are just as
+ * random, and can be reset or saved like any other.
+ *
+ * @author Kanishka Ragula
+ *
+ */
+public final class BoardPool {
+
+	/** Boards kept ready for each size of game */
+	public static final int BOARDS_PER_SIZE = 2;
+	/** Number of sizes of game boards are kept for */
+	public static final int SIZES = 3;
+	/** Most memory a board kept ready may take: a byte per tile and an int per mine */
+	public static final long MAX_BYTES = 1 << 20;
+
+	private static final BoardPool SHARED = new BoardPool(BOARDS_PER_SIZE, SIZES);
+
+	/**
+	 * Width, height and number of mines of a game
+	 */
+	private static final class Size {
+		final int width;
+		final int height;
+		final int mines;
+
+		/**
+		 * @param width  Width asked for, restricted like any MineBoard
+		 * @param height Height asked for
+		 * @param mines  Number of mines asked for
+		 */
+		Size(int width, int height, int mines) {
+			this.width = MineBoard.allowedSide(width);
+			this.height = MineBoard.allowedSide(height);
+			this.mines = MineBoard.allowedMines(this.width, this.height, mines);
+		}
+
+		/**
+		 * @return Memory a board of the size takes
+		 */
+		long bytes() {
+			return (long) width * height + 4L * mines;
+		}
+
+		@Override
+		public boolean equals(Object o) {
+			if (!(o instanceof Size))
+				return false;
+			Size other = (Size) o;
+			return width == other.width && height == other.height && mines == other.mines;
+		}
+
+		@Override
+		public int hashCode() {
+			return (width * 31 + height) * 31 + mines;
+		}
+	}
+
+	private final int boardsPerSize;
+	private final int sizes;
+	// Boards ready for each size, from the size played least recently to the most
+	private final Map<Size, ArrayDeque<MineBoard>> ready =
+			new LinkedHashMap<Size, ArrayDeque<MineBoard>>();
+	// Sizes the background thread has been asked to fill
+	private final Set<Size> filling = new HashSet<Size>();
+	private final ExecutorService filler;
+
+	/**
+	 * Creates a pool with its own background thread
+	 *
+	 * @param boardsPerSize Boards kept ready for each size
+	 * @param sizes         Number of sizes boards are kept for
+	 */
+	public BoardPool(int boardsPerSize, int sizes) {
+		this.boardsPerSize = boardsPerSize;
+		this.sizes = sizes;
+		this.filler = Executors.newSingleThreadExecutor(new ThreadFactory() {
+			@Override
+			public Thread newThread(Runnable r) {
+				Thread thread = new Thread(r, "Board pool");
+				thread.setDaemon(true);
+				thread.setPriority(Thread.MIN_PRIORITY);
+				return thread;
+			}
+		});
+	}
+
+	/**
+	 * @return The pool shared by every map
+	 */
+	public static BoardPool shared() {
+		return SHARED;
+	}
+
+	/**
+	 * Takes a new random board, ready if one was kept for its size and generated
+	 * now otherwise, and has the background thread replace it
+	 *
+	 * @param width  Width of the board, restricted like any MineBoard
+	 * @param height Height of the board
+	 * @param mines  Number of mines
+	 * @return A new board
+	 */
+	public MineBoard take(int width, int height, int mines) {
+		Size size = new Size(width, height, mines);
+		MineBoard board = null;
+		if (size.bytes() <= MAX_BYTES) {
+			synchronized (this) {
+				// Move the size to the end, as the one played most recently
+				ArrayDeque<MineBoard> boards = ready.remove(size);
+				if (boards == null)
+					boards = new ArrayDeque<MineBoard>();
+				ready.put(size, boards);
+				board = boards.poll();
+				Iterator<Size> oldest = ready.keySet().iterator();
+				while (ready.size() > sizes) {
+					oldest.next();
+					oldest.remove();
+				}
+				if (filling.add(size))
+					fill(size);
+			}
+		}
+
+		if (board == null) {
+			if (Metrics.ENABLED)
+				Metrics.POOL_MISS.increment();
+			return new MineBoard(size.width, size.height, size.mines);
+		}
+		if (Metrics.ENABLED)
+			Metrics.POOL_HIT.increment();
+		return board;
+	}
+
+	/**
+	 * Has the background thread generate boards of a size until there are
+	 * enough, or the size is no longer kept
+	 *
+	 * @param size Size to generate boards for
+	 */
+	private void fill(final Size size) {
+		try {
+			filler.execute(new Runnable() {
+				@Override
+				public void run() {
+					while (true) {
+						synchronized (BoardPool.this) {
+							ArrayDeque<MineBoard> boards = ready.get(size);
+							if (boards == null || boards.size() >= boardsPerSize) {
+								filling.remove(size);
+								return;
+							}
+						}
+						MineBoard board = new MineBoard(size.width, size.height, size.mines);
+						synchronized (BoardPool.this) {
+							ArrayDeque<MineBoard> boards = ready.get(size);
+							if (boards != null)
+								boards.add(board);
+						}
+					}
+				}
+			});
+		} catch (RejectedExecutionException e) {
+			// The pool was shut down, boards are generated when asked for
+			filling.remove(size);
+		}
+	}
+
+	/**
+	 * @param width  Width of the boards
+	 * @param height Height of the boards
+	 * @param mines  Number of mines
+	 * @return Number of boards ready for the size
+	 */
+	synchronized int getReady(int width, int height, int mines) {
+		ArrayDeque<MineBoard> boards = ready.get(new Size(width, height, mines));
+		return boards == null ? 0 : boards.size();
+	}
+
+	/**
+	 * Stops the background thread. Boards already kept can still be taken
+	 */
+	public void shutdown() {
+		filler.shutdown();
+	}
+}
@@ -0,0 +1,108 @@
+import java.awt.Rectangle;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Turns the cells changed by an action on a MineBoard into the rectangles of
+ * tiles that need to be repainted. Changed cells in the same row are joined
+ * into runs, and runs covering the same columns in consecutive rows are joined
+ * into one rectangle, so an opening becomes a handful of rectangles instead of
+ * one per tile. If that still leaves too many rectangles, their bounding box is
+ * used instead.
+ *
+ * A DirtyRegion reuses its buffers between actions and is meant to be used
+ * from a single thread.
+ *
+ * @author Kanishka Ragula
+ *
+ */
+public class DirtyRegion {
+
+	// Above this many rectangles, a single bounding box is cheaper to repaint
+	private static final int MAX_RECTANGLES = 8;
+
+	private int[] sorted = new int[0];
+	private int[] previousRow = new int[0];
+	private int[] currentRow = new int[0];
+	private final List<Rectangle> rectangles = new ArrayList<Rectangle>();
+
+	/**
+	 * Coalesces the cells changed by the last action on a board into rectangles
+	 *
+	 * @param board Board whose changed cells are repainted
+	 * @return Rectangles in tiles (x is the column, y the row). The list is reused
+	 *         by the next call
+	 */
+	public List<Rectangle> coalesce(MineBoard board) {
+		int count = board.getChangedCount();
+		int width = board.getWidth();
+		rectangles.clear();
+		if (count == 0)
+			return rectangles;
+
+		if (sorted.length < count) {
+			sorted = new int[Math.max(count, sorted.length * 2)];
+		}
+		for (int i = 0; i < count; i++) {
+			sorted[i] = board.getChangedCell(i);
+		}
+		Arrays.sort(sorted, 0, count);
+
+		int numPrevious = 0;
+		int numCurrent = 0;
+		int row = -1;
+		int p = 0;
+		int i = 0;
+		while (i < count) {
+			// Find the run of consecutive cells in this row
+			int start = sorted[i];
+			int end = start;
+			while (i + 1 < count && sorted[i + 1] == end + 1 && (end + 1) % width != 0) {
+				end = sorted[++i];
+			}
+			i++;
+
+			int runRow = start / width;
+			int runCol = start % width;
+			int runWidth = end - start + 1;
+			if (runRow != row) {
+				// Only rectangles that reached the row above can grow into this one
+				int[] swap = previousRow;
+				previousRow = currentRow;
+				currentRow = swap;
+				numPrevious = runRow == row + 1 ? numCurrent : 0;
+				numCurrent = 0;
+				row = runRow;
+				p = 0;
+			}
+			if (currentRow.length <= numCurrent) {
+				currentRow = Arrays.copyOf(currentRow, Math.max(16, currentRow.length * 2));
+			}
+
+			// Rectangles of the row above are in column order, like the runs
+			while (p < numPrevious && rectangles.get(previousRow[p]).x < runCol) {
+				p++;
+			}
+			if (p < numPrevious && rectangles.get(previousRow[p]).x == runCol
+					&& rectangles.get(previousRow[p]).width == runWidth) {
+				rectangles.get(previousRow[p]).height++;
+				currentRow[numCurrent++] = previousRow[p];
+				p++;
+			} else {
+				rectangles.add(new Rectangle(runCol, runRow, runWidth, 1));
+				currentRow[numCurrent++] = rectangles.size() - 1;
+			}
+		}
+
+		if (rectangles.size() > MAX_RECTANGLES) {
+			Rectangle bounds = new Rectangle(rectangles.get(0));
+			for (Rectangle r : rectangles) {
+				bounds.add(r);
+			}
+			rectangles.clear();
+			rectangles.add(bounds);
+		}
+		return rectangles;
+	}
+}
@@ -0,0 +1,346 @@
+import java.awt.EventQueue;
+import java.lang.reflect.Constructor;
+import java.lang.reflect.Method;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Watches the event dispatch thread for stalls: anything running on it for
+ * longer than a threshold, during which the game cannot repaint or take clicks.
+ *
+ * A daemon thread posts a heartbeat to the event queue, and posts the next one
+ * once it has run. If a heartbeat waits longer than the threshold, the stack of
+ * the event dispatch thread is taken right then, so it shows what was holding
+ * it up. When the heartbeat finally runs, the stall is printed to standard error
+ * with that stack, recorded in the Metrics if they are enabled, and committed
+ * as a minesweeper.EdtStall event to any Java Flight Recorder recording, where
+ * it lines up with the other events of the JVM. A stall is timed from when its
+ * heartbeat was posted, so it may be seen as up to a quarter of the threshold
+ * shorter than it was. The heartbeats keep the event dispatch thread running
+ * until the watchdog is stopped.
+ *
+ * The watchdog is off unless the minesweeper.watchdog system property is set,
+ * to the threshold in milliseconds (16 if it is not a number). The game is
+ * built for Java 8, which has no flight recorder API, so the event is defined
+ * at run time through jdk.jfr.EventFactory, and left out on a JVM without it.
+ *
+ * @author Kanishka Ragula
+ *
+ */
+public final class EdtWatchdog {
+
+	/** Threshold used when the property is not a number, about one frame at 60 Hz */
+	public static final long DEFAULT_THRESHOLD = 16;
+
+	/**
+	 * A stall seen by the watchdog
+	 */
+	public static final class Stall {
+		final long nanos;
+		final StackTraceElement[] stack;
+
+		/**
+		 * @param nanos How long the event dispatch thread was held up
+		 * @param stack Its stack during the stall, empty if it was not taken
+		 */
+		Stall(long nanos, StackTraceElement[] stack) {
+			this.nanos = nanos;
+			this.stack = stack;
+		}
+
+		/**
+		 * @return How long the event dispatch thread was held up, in milliseconds
+		 */
+		public long getMillis() {
+			return nanos / 1000000;
+		}
+
+		/**
+		 * @return Stack of the event dispatch thread during the stall
+		 */
+		public StackTraceElement[] getStack() {
+			return stack.clone();
+		}
+
+		/**
+		 * @return The innermost game method on the stack, such as MineMap.saveGame,
+		 *         or the top of the stack if no game method is on it
+		 */
+		public String getAction() {
+			for (StackTraceElement frame : stack) {
+				// The game is in the default package
+				if (frame.getClassName().indexOf('.') < 0)
+					return frame.getClassName() + "." + frame.getMethodName();
+			}
+			return stack.length == 0 ? "unknown"
+					: stack[0].getClassName() + "." + stack[0].getMethodName();
+		}
+
+		@Override
+		public String toString() {
+			StringBuilder s = new StringBuilder();
+			s.append("Event dispatch thread stalled for ").append(getMillis()).append(" ms in ")
+					.append(getAction()).append(System.lineSeparator());
+			for (StackTraceElement frame : stack) {
+				s.append("\tat ").append(frame).append(System.lineSeparator());
+			}
+			return s.toString();
+		}
+	}
+
+	private final long thresholdNanos;
+	private final long period;
+	private final Thread thread;
+	private final Runnable heartbeat;
+	private final StallEvents events = StallEvents.create();
+	// When the heartbeat waiting to run was posted, 0 if none is
+	private long posted;
+	// Event dispatch thread, known once a heartbeat has run on it
+	private Thread edt;
+	// Stack of the stall going on and its flight recorder event, if one is
+	private StackTraceElement[] stack;
+	private Object event;
+	private volatile boolean running;
+	private volatile Stall lastStall;
+	private volatile long stalls;
+
+	/**
+	 * Creates a watchdog, which watches nothing until it is started
+	 *
+	 * @param thresholdMillis Longest the event dispatch thread may be held up
+	 *                        before it counts as a stall
+	 */
+	public EdtWatchdog(long thresholdMillis) {
+		this.thresholdNanos = thresholdMillis * 1000000;
+		this.period = Math.max(1, thresholdMillis / 4);
+		this.heartbeat = new Runnable() {
+			public void run() {
+				beat(System.nanoTime());
+			}
+		};
+		this.thread = new Thread(new Runnable() {
+			public void run() {
+				watch();
+			}
+		}, "EDT watchdog");
+		thread.setDaemon(true);
+	}
+
+	/**
+	 * Starts a watchdog if the minesweeper.watchdog property is set
+	 *
+	 * @return The watchdog started, or null
+	 */
+	public static EdtWatchdog startIfEnabled() {
+		String property = System.getProperty("minesweeper.watchdog");
+		if (property == null)
+			return null;
+		EdtWatchdog watchdog = new EdtWatchdog(
+				Long.getLong("minesweeper.watchdog", DEFAULT_THRESHOLD));
+		watchdog.start();
+		return watchdog;
+	}
+
+	/**
+	 * Starts watching
+	 */
+	public void start() {
+		running = true;
+		thread.start();
+	}
+
+	/**
+	 * Stops watching. A stall going on is not reported
+	 */
+	public void stop() {
+		running = false;
+		thread.interrupt();
+	}
+
+	/**
+	 * @return Number of stalls seen
+	 */
+	public long getStalls() {
+		return stalls;
+	}
+
+	/**
+	 * @return The last stall seen, or null
+	 */
+	public Stall getLastStall() {
+		return lastStall;
+	}
+
+	/**
+	 * Posts heartbeats and takes the stack of the event dispatch thread when one
+	 * is late, until stopped
+	 */
+	private void watch() {
+		while (running) {
+			if (check(System.nanoTime()))
+				EventQueue.invokeLater(heartbeat);
+			try {
+				Thread.sleep(period);
+			} catch (InterruptedException e) {
+				return;
+			}
+		}
+	}
+
+	/**
+	 * Starts the next heartbeat if none is waiting, or takes the stack of the
+	 * event dispatch thread if the one waiting is late
+	 *
+	 * @param now Current time in nanoseconds, as from System.nanoTime
+	 * @return Whether a heartbeat has to be posted
+	 */
+	synchronized boolean check(long now) {
+		if (posted == 0) {
+			posted = now;
+			return true;
+		}
+		if (now - posted > thresholdNanos && stack == null && edt != null) {
+			stack = edt.getStackTrace();
+			event = events == null ? null : events.begin();
+		}
+		return false;
+	}
+
+	/**
+	 * Runs on the event dispatch thread and reports the stall it was held up
+	 * by, if any
+	 *
+	 * @param now Current time in nanoseconds, as from System.nanoTime
+	 */
+	void beat(long now) {
+		long late;
+		StackTraceElement[] stalledStack;
+		Object stalledEvent;
+		synchronized (this) {
+			late = now - posted;
+			edt = Thread.currentThread();
+			stalledStack = stack;
+			stalledEvent = event;
+			posted = 0;
+			stack = null;
+			event = null;
+		}
+		if (late <= thresholdNanos)
+			return;
+
+		Stall stall = new Stall(late,
+				stalledStack == null ? new StackTraceElement[0] : stalledStack);
+		lastStall = stall;
+		stalls++;
+		if (Metrics.ENABLED)
+			Metrics.STALL.record(late);
+		if (stalledEvent != null)
+			events.commit(stalledEvent, stall, thresholdNanos);
+		System.err.print(stall);
+	}
+
+	/**
+	 * The minesweeper.EdtStall flight recorder event, defined through reflection
+	 */
+	private static final class StallEvents {
+		private final Object factory;
+		private final Method newEvent;
+		private final Method set;
+		private final Method begin;
+		private final Method end;
+		private final Method commit;
+
+		private StallEvents(Object factory) throws ReflectiveOperationException {
+			this.factory = factory;
+			Class<?> eventClass = Class.forName("jdk.jfr.Event");
+			newEvent = factory.getClass().getMethod("newEvent");
+			set = eventClass.getMethod("set", int.class, Object.class);
+			begin = eventClass.getMethod("begin");
+			end = eventClass.getMethod("end");
+			commit = eventClass.getMethod("commit");
+		}
+
+		/**
+		 * Defines the event
+		 *
+		 * @return The event, or null if the JVM has no flight recorder API
+		 */
+		static StallEvents create() {
+			try {
+				Class<?> element = Class.forName("jdk.jfr.AnnotationElement");
+				Constructor<?> annotation = element.getConstructor(Class.class, Object.class);
+				Class<?> descriptor = Class.forName("jdk.jfr.ValueDescriptor");
+				Constructor<?> field = descriptor.getConstructor(Class.class, String.class,
+						List.class);
+				Class<?> label = Class.forName("jdk.jfr.Label");
+				Class<?> timespan = Class.forName("jdk.jfr.Timespan");
+
+				List<Object> annotations = Arrays.asList(
+						annotation.newInstance(Class.forName("jdk.jfr.Name"), "minesweeper.EdtStall"),
+						annotation.newInstance(label, "EDT Stall"),
+						annotation.newInstance(Class.forName("jdk.jfr.Category"),
+								new String[] { "Minesweeper" }),
+						annotation.newInstance(Class.forName("jdk.jfr.Description"),
+								"The event dispatch thread was held up past the threshold"),
+						// The event is committed by the heartbeat, whose stack is of no use
+						annotation.newInstance(Class.forName("jdk.jfr.StackTrace"), false));
+				List<Object> fields = Arrays.asList(
+						field.newInstance(long.class, "stall",
+								Arrays.asList(annotation.newInstance(label, "Stall"),
+										annotation.newInstance(timespan, "NANOSECONDS"))),
+						field.newInstance(long.class, "threshold",
+								Arrays.asList(annotation.newInstance(label, "Threshold"),
+										annotation.newInstance(timespan, "NANOSECONDS"))),
+						field.newInstance(String.class, "action",
+								Arrays.asList(annotation.newInstance(label, "Action"))),
+						field.newInstance(String.class, "stack",
+								Arrays.asList(annotation.newInstance(label, "EDT Stack"))));
+				Object factory = Class.forName("jdk.jfr.EventFactory")
+						.getMethod("create", List.class, List.class)
+						.invoke(null, annotations, fields);
+				return new StallEvents(factory);
+			} catch (ReflectiveOperationException | LinkageError e) {
+				return null;
+			}
+		}
+
+		/**
+		 * Starts an event when a stall is seen
+		 *
+		 * @return The event, or null if it could not be started
+		 */
+		Object begin() {
+			try {
+				Object event = newEvent.invoke(factory);
+				begin.invoke(event);
+				return event;
+			} catch (ReflectiveOperationException e) {
+				return null;
+			}
+		}
+
+		/**
+		 * Ends an event and commits it
+		 *
+		 * @param event     Event started for the stall
+		 * @param stall     The stall
+		 * @param threshold Threshold of the watchdog in nanoseconds
+		 */
+		void commit(Object event, Stall stall, long threshold) {
+			StringBuilder stack = new StringBuilder();
+			for (StackTraceElement frame : stall.stack) {
+				stack.append(frame).append('\n');
+			}
+			try {
+				end.invoke(event);
+				set.invoke(event, 0, stall.nanos);
+				set.invoke(event, 1, threshold);
+				set.invoke(event, 2, stall.getAction());
+				set.invoke(event, 3, stack.toString());
+				commit.invoke(event);
+			} catch (ReflectiveOperationException e) {
+				e.printStackTrace();
+			}
+		}
+	}
+}
@@ -0,0 +1,466 @@
+import java.io.File;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.SplittableRandom;
+
+/**
+ * EndlessBoard is a Minesweeper board without edges. The board is split into
+ * square chunks of CHUNK_SIZE tiles that are only generated when a tile in them
+ * is first looked at. The mines of a chunk come from the seed of the board and
+ * the position of the chunk alone, so any chunk can be generated again in any
+ * order, and its numbers are counted from its own mines and those of the eight
+ * chunks around it.
+ *
+ * Only a bounded number of chunks are kept in memory, the least recently used
+ * one is dropped when another is needed. Chunks nobody has played on are simply
+ * generated again when they come back, chunks with moves on them are written to
+ * a spill directory and read back from it. Memory use therefore depends on the
+ * number of chunks kept, however far the board is explored.
+ *
+ * Tiles use the packed cells of MineBoard, and rows and columns may be
+ * negative. The tiles around row 0, column 0 never have mines, so a game
+ * started there opens safely. There is no victory; the game ends when a mine is
+ * uncovered.
+ *
+ * Moves may read and write chunks in the spill directory, and fail with an
+ * UncheckedIOException if that is not possible. An EndlessBoard is meant to be
+ * used from a single thread.
+ *
+ * @author Kanishka Ragula
+ *
+ */
+public class EndlessBoard {
+
+	/** Number of rows and columns of tiles in a chunk */
+	public static final int CHUNK_SIZE = 32;
+	// Number of tiles in a chunk
+	private static final int CHUNK_CELLS = CHUNK_SIZE * CHUNK_SIZE;
+
+	// Limits on the mines of a chunk. Sparser boards have openings too large to play
+	private static final int MIN_CHUNK_MINES = CHUNK_CELLS / 10;
+	private static final int MAX_CHUNK_MINES = CHUNK_CELLS / 2;
+
+	// Starting size of the list of changed cells
+	private static final int INITIAL_CHANGED = 64;
+
+	/**
+	 * A chunk in memory, and whether a move has been made on it since it was
+	 * generated or read back
+	 */
+	private static class Chunk {
+		final byte[] cells;
+		boolean touched;
+
+		Chunk(byte[] cells, boolean touched) {
+			this.cells = cells;
+			this.touched = touched;
+		}
+	}
+
+	private final long seed;
+	private final int chunkMines;
+	private final File spillDirectory;
+	private final LinkedHashMap<Long, Chunk> chunks;
+	private final Set<Long> spilled = new HashSet<Long>();
+	// The chunk of the last tile looked at, which is usually the next one too
+	private long lastKey;
+	private Chunk lastChunk;
+	private long[] changed = new long[INITIAL_CHANGED];
+	private int numChanged;
+	private long numFlags;
+	private long uncovered;
+	private boolean over;
+
+	/**
+	 * Creates an endless board. Nothing is generated until a tile is looked at
+	 *
+	 * @param seed           Seed the mines of every chunk are placed from
+	 * @param chunkMines     Number of mines in each chunk (between a tenth and half
+	 *                       of the tiles of a chunk)
+	 * @param maxChunks      Most chunks kept in memory at once (at least 9, the
+	 *                       chunks around a tile)
+	 * @param spillDirectory Existing directory chunks with moves on them are
+	 *                       written to when they leave memory
+	 */
+	public EndlessBoard(long seed, int chunkMines, int maxChunks, File spillDirectory) {
+		this.seed = seed;
+		this.chunkMines = Math.max(MIN_CHUNK_MINES, Math.min(MAX_CHUNK_MINES, chunkMines));
+		this.spillDirectory = spillDirectory;
+		final int capacity = Math.max(9, maxChunks);
+		chunks = new LinkedHashMap<Long, Chunk>(16, 0.75f, true) {
+			// Eclipse wanted this. Don't know what it is
+			private static final long serialVersionUID = -2406335120957391772L;
+
+			@Override
+			protected boolean removeEldestEntry(Map.Entry<Long, Chunk> eldest) {
+				if (size() <= capacity)
+					return false;
+				evict(eldest.getKey(), eldest.getValue());
+				return true;
+			}
+		};
+	}
+
+	/**
+	 * Uncovers a tile. Uncovering an empty tile also uncovers its neighbors,
+	 * uncovering a mine loses the game.
+	 *
+	 * @param r Row of the tile
+	 * @param c Column of the tile
+	 * @return Outcome of the reveal
+	 */
+	public MineBoard.Result reveal(int r, int c) {
+		numChanged = 0;
+		byte cell = getCell(r, c);
+		if (over || (cell & (MineBoard.COVERED | MineBoard.FLAGGED)) != MineBoard.COVERED) {
+			return MineBoard.Result.IGNORED;
+		}
+
+		if ((cell & MineBoard.VALUE) == MineBoard.MINE) {
+			setCell(r, c, MineBoard.TRIPPED);
+			record(r, c);
+			over = true;
+			return MineBoard.Result.EXPLODED;
+		}
+
+		// Like MineBoard, the list of changed cells is the queue of the fill
+		int head = 0;
+		setCell(r, c, (byte) (cell & ~MineBoard.COVERED));
+		record(r, c);
+		while (head < numChanged) {
+			int row = (int) (changed[head] >> 32);
+			int col = (int) changed[head++];
+			if (getCell(row, col) != 0)
+				continue;
+			for (int i = row - 1; i <= row + 1; i++) {
+				for (int j = col - 1; j <= col + 1; j++) {
+					byte neighbor = getCell(i, j);
+					if ((neighbor & (MineBoard.COVERED | MineBoard.FLAGGED)) == MineBoard.COVERED) {
+						setCell(i, j, (byte) (neighbor & ~MineBoard.COVERED));
+						record(i, j);
+					}
+				}
+			}
+		}
+		uncovered += numChanged;
+		return MineBoard.Result.REVEALED;
+	}
+
+	/**
+	 * Places or removes a flag on a covered tile
+	 *
+	 * @param r Row of the tile
+	 * @param c Column of the tile
+	 * @return FLAGGED or UNFLAGGED, or IGNORED if the tile cannot be flagged
+	 */
+	public MineBoard.Result toggleFlag(int r, int c) {
+		numChanged = 0;
+		byte cell = getCell(r, c);
+		if (over || (cell & MineBoard.COVERED) == 0) {
+			return MineBoard.Result.IGNORED;
+		}
+		setCell(r, c, (byte) (cell ^ MineBoard.FLAGGED));
+		record(r, c);
+		if ((cell & MineBoard.FLAGGED) != 0) {
+			numFlags--;
+			return MineBoard.Result.UNFLAGGED;
+		}
+		numFlags++;
+		return MineBoard.Result.FLAGGED;
+	}
+
+	/**
+	 * Adds a tile to the list of cells changed by the current action, growing the
+	 * list if needed
+	 *
+	 * @param r Row of the changed tile
+	 * @param c Column of the changed tile
+	 */
+	private void record(int r, int c) {
+		if (numChanged == changed.length) {
+			changed = Arrays.copyOf(changed, changed.length * 2);
+		}
+		changed[numChanged++] = ((long) r << 32) | (c & 0xFFFFFFFFL);
+	}
+
+	/**
+	 * @param r Row of the tile
+	 * @param c Column of the tile
+	 * @return Packed value and state of the tile
+	 */
+	public byte getCell(int r, int c) {
+		return chunk(r, c).cells[offset(r, c)];
+	}
+
+	/**
+	 * Changes a tile and marks its chunk as played on
+	 *
+	 * @param r    Row of the tile
+	 * @param c    Column of the tile
+	 * @param cell New packed value and state of the tile
+	 */
+	private void setCell(int r, int c, byte cell) {
+		Chunk chunk = chunk(r, c);
+		chunk.cells[offset(r, c)] = cell;
+		chunk.touched = true;
+	}
+
+	/**
+	 * @param r Row of a tile
+	 * @param c Column of a tile
+	 * @return Index of the tile within its chunk
+	 */
+	private static int offset(int r, int c) {
+		return Math.floorMod(r, CHUNK_SIZE) * CHUNK_SIZE + Math.floorMod(c, CHUNK_SIZE);
+	}
+
+	/**
+	 * @param chunkRow Row of a chunk
+	 * @param chunkCol Column of a chunk
+	 * @return Key of the chunk in the cache
+	 */
+	private static long key(int chunkRow, int chunkCol) {
+		return ((long) chunkRow << 32) | (chunkCol & 0xFFFFFFFFL);
+	}
+
+	/**
+	 * Returns the chunk holding a tile, reading or generating it if it is not in
+	 * memory
+	 *
+	 * @param r Row of the tile
+	 * @param c Column of the tile
+	 * @return Chunk of the tile
+	 */
+	private Chunk chunk(int r, int c) {
+		int chunkRow = Math.floorDiv(r, CHUNK_SIZE);
+		int chunkCol = Math.floorDiv(c, CHUNK_SIZE);
+		long key = key(chunkRow, chunkCol);
+		if (lastChunk != null && lastKey == key)
+			return lastChunk;
+
+		Chunk chunk = chunks.get(key);
+		if (chunk == null) {
+			chunk = load(chunkRow, chunkCol);
+			chunks.put(key, chunk);
+		}
+		lastKey = key;
+		lastChunk = chunk;
+		return chunk;
+	}
+
+	/**
+	 * Reads a chunk back from the spill directory, or generates it if it was never
+	 * written there
+	 *
+	 * @param chunkRow Row of the chunk
+	 * @param chunkCol Column of the chunk
+	 * @return The chunk
+	 */
+	private Chunk load(int chunkRow, int chunkCol) {
+		if (!spilled.contains(key(chunkRow, chunkCol)))
+			return new Chunk(generate(chunkRow, chunkCol), false);
+		try {
+			byte[] cells = Files.readAllBytes(spillFile(chunkRow, chunkCol).toPath());
+			if (cells.length != CHUNK_CELLS)
+				throw new IOException("Spilled chunk " + chunkRow + ", " + chunkCol + " is "
+						+ cells.length + " bytes");
+			return new Chunk(cells, false);
+		} catch (IOException e) {
+			throw new UncheckedIOException(e);
+		}
+	}
+
+	/**
+	 * Removes a chunk from memory, writing it to the spill directory if a move has
+	 * been made on it
+	 *
+	 * @param key   Key of the chunk
+	 * @param chunk The chunk
+	 */
+	private void evict(long key, Chunk chunk) {
+		if (chunk == lastChunk) {
+			lastChunk = null;
+		}
+		if (!chunk.touched)
+			return;
+		try {
+			Files.write(spillFile((int) (key >> 32), (int) key).toPath(), chunk.cells);
+			spilled.add(key);
+		} catch (IOException e) {
+			throw new UncheckedIOException(e);
+		}
+	}
+
+	/**
+	 * @param chunkRow Row of a chunk
+	 * @param chunkCol Column of a chunk
+	 * @return File the chunk is spilled to
+	 */
+	private File spillFile(int chunkRow, int chunkCol) {
+		return new File(spillDirectory, chunkRow + "_" + chunkCol + ".chunk");
+	}
+
+	/**
+	 * Generates the tiles of a chunk, with the mines of the chunk and the numbers
+	 * counted from them and the mines of the chunks around it
+	 *
+	 * @param chunkRow Row of the chunk
+	 * @param chunkCol Column of the chunk
+	 * @return Packed cells of the chunk, read row by row
+	 */
+	private byte[] generate(int chunkRow, int chunkCol) {
+		byte[] cells = new byte[CHUNK_CELLS];
+		Arrays.fill(cells, MineBoard.COVERED);
+		for (int mine : placeMines(chunkRow, chunkCol)) {
+			cells[mine] = MineBoard.COVERED | MineBoard.MINE;
+		}
+
+		for (int i = -1; i <= 1; i++) {
+			for (int j = -1; j <= 1; j++) {
+				for (int mine : placeMines(chunkRow + i, chunkCol + j)) {
+					int mineRow = mine / CHUNK_SIZE + i * CHUNK_SIZE;
+					int mineCol = mine % CHUNK_SIZE + j * CHUNK_SIZE;
+					// Only mines next to this chunk count for its tiles
+					if (mineRow < -1 || mineRow > CHUNK_SIZE || mineCol < -1 || mineCol > CHUNK_SIZE)
+						continue;
+					int rowEnd = Math.min(mineRow + 1, CHUNK_SIZE - 1);
+					int colEnd = Math.min(mineCol + 1, CHUNK_SIZE - 1);
+					for (int r = Math.max(mineRow - 1, 0); r <= rowEnd; r++) {
+						for (int c = Math.max(mineCol - 1, 0); c <= colEnd; c++) {
+							if ((cells[r * CHUNK_SIZE + c] & MineBoard.VALUE) != MineBoard.MINE)
+								cells[r * CHUNK_SIZE + c]++;
+						}
+					}
+				}
+			}
+		}
+		return cells;
+	}
+
+	/**
+	 * Picks the tiles of a chunk that have mines. The generator is seeded from the
+	 * seed of the board and the position of the chunk, so a chunk always gets the
+	 * same mines. Tiles are drawn until a free one comes up, which takes at most
+	 * two tries per mine on average as at most half the chunk is mines
+	 *
+	 * @param chunkRow Row of the chunk
+	 * @param chunkCol Column of the chunk
+	 * @return Indices of the mines within the chunk
+	 */
+	private int[] placeMines(int chunkRow, int chunkCol) {
+		SplittableRandom random = new SplittableRandom(seed ^ key(chunkRow, chunkCol)
+				* 0x9E3779B97F4A7C15L);
+		boolean[] taken = new boolean[CHUNK_CELLS];
+		int[] mines = new int[chunkMines];
+		for (int m = 0; m < chunkMines; m++) {
+			int cell = random.nextInt(CHUNK_CELLS);
+			while (taken[cell] || nearOrigin(chunkRow, chunkCol, cell)) {
+				cell = random.nextInt(CHUNK_CELLS);
+			}
+			taken[cell] = true;
+			mines[m] = cell;
+		}
+		return mines;
+	}
+
+	/**
+	 * @param chunkRow Row of a chunk
+	 * @param chunkCol Column of a chunk
+	 * @param cell     Index of a tile within the chunk
+	 * @return Whether the tile is row 0, column 0 or one of its neighbors
+	 */
+	private static boolean nearOrigin(int chunkRow, int chunkCol, int cell) {
+		int r = chunkRow * CHUNK_SIZE + cell / CHUNK_SIZE;
+		int c = chunkCol * CHUNK_SIZE + cell % CHUNK_SIZE;
+		return Math.abs((long) r) <= 1 && Math.abs((long) c) <= 1;
+	}
+
+	/**
+	 * Deletes the chunks this board wrote to the spill directory. The board can
+	 * still be used, but moves on those chunks are lost
+	 */
+	public void deleteSpilled() {
+		for (long key : spilled) {
+			spillFile((int) (key >> 32), (int) key).delete();
+		}
+		spilled.clear();
+	}
+
+	/**
+	 * @return Number of cells changed by the last reveal or flag action
+	 */
+	public int getChangedCount() {
+		return numChanged;
+	}
+
+	/**
+	 * @param i Position in the list of changed cells, below getChangedCount
+	 * @return Row of a cell changed by the last reveal or flag action
+	 */
+	public int getChangedRow(int i) {
+		return (int) (changed[i] >> 32);
+	}
+
+	/**
+	 * @param i Position in the list of changed cells, below getChangedCount
+	 * @return Column of a cell changed by the last reveal or flag action
+	 */
+	public int getChangedColumn(int i) {
+		return (int) changed[i];
+	}
+
+	/**
+	 * @return Seed of the board
+	 */
+	public long getSeed() {
+		return seed;
+	}
+
+	/**
+	 * @return Number of mines in each chunk
+	 */
+	public int getChunkMines() {
+		return chunkMines;
+	}
+
+	/**
+	 * @return Number of chunks in memory
+	 */
+	public int getLoadedChunks() {
+		return chunks.size();
+	}
+
+	/**
+	 * @return Number of chunks written to the spill directory
+	 */
+	public int getSpilledChunks() {
+		return spilled.size();
+	}
+
+	/**
+	 * @return Number of flags placed on the board
+	 */
+	public long getNumFlags() {
+		return numFlags;
+	}
+
+	/**
+	 * @return Number of tiles without a mine that have been uncovered
+	 */
+	public long getUncovered() {
+		return uncovered;
+	}
+
+	/**
+	 * @return Whether a mine has been uncovered
+	 */
+	public boolean isOver() {
+		return over;
+	}
+}
@@ -1,6 +1,8 @@
 import java.awt.BorderLayout;
 import java.awt.event.ActionEvent;
 import java.awt.event.ActionListener;
+import java.beans.PropertyChangeEvent;
+import java.beans.PropertyChangeListener;
 
 import javax.swing.JButton;
 import javax.swing.JCheckBox;
@@ -19,6 +21,9 @@ import javax.swing.SwingUtilities;
  * @version 1.4.0
  */
 public class Game {
+	// Custom games with more tiles than this are painted instead of using buttons
+	private static final int MAX_BUTTON_TILES = 1024;
+
 	private JFrame game;
 	private MineMap mines;
 	private JLabel numMinesLabel;
@@ -80,6 +85,17 @@ public class Game {
 
 		});
 
+		// Checkbox to only deal boards that can be won without guessing
+		JCheckBox noGuess = new JCheckBox("No Guessing");
+		noGuess.addActionListener(new ActionListener() {
+
+			@Override
+			public void actionPerformed(ActionEvent arg0) {
+				mines.setNoGuess(noGuess.isSelected());
+			}
+
+		});
+
 		// Reset button to create a new game
 		JButton reset = new JButton("Reset");
 		reset.addActionListener(new ActionListener() {
@@ -100,6 +116,7 @@ public class Game {
 		// Toolbar to contain all the elements that contrl the game
 		JPanel toolBar = new JPanel();
 		toolBar.add(flagger);
+		toolBar.add(noGuess);
 		toolBar.add(reset);
 
 		// Instruction button
@@ -126,9 +143,11 @@ public class Game {
 								+ "To flag a mine, check the flag box.  To return to\n"
 								+ "clear mode, uncheck the box.  If you clear all the\n"
 								+ "squares without mines, the mines will be flagged\n"
-								+ "If you want to pause and come back later, press \n"
-								+ "\"Save Game\" and you can close the application.\n"
-								+ "To return to the previous saved game, press \"Load Game\"\n"
+								+ "Check \"No Guessing\" to get boards that can always\n"
+								+ "be cleared from your first click without guessing.\n"
+								+ "Your game is saved after every move, so you can close\n"
+								+ "the application whenever you like. \"Save Game\" saves\n"
+								+ "it in one piece. To return to it, press \"Load Game\"\n"
 								+ "If you want to make a Custom Game with a custom number\n"
 								+ "of tiles and mines, use the \"Custom Game\" button.  This\n"
 								+ "does have some restrictions for size and mines.\n"
@@ -161,19 +180,31 @@ public class Game {
 
 			@Override
 			public void actionPerformed(ActionEvent arg0) {
-				// Mines takes care of getting the game, this just has to repaint
+				// Mines reads the game in the background and lays out the window
+				// once it is shown
 				mines.loadGame();
-				game.update(game.getGraphics());
-				numMinesLabel.setText("Number of Mines Remaining: " + 
-						String.valueOf(mines.getNumMines()));
-				game.pack();
-				game.setVisible(true);
 			}
 
 		});
 
 		// Creates a custom game with values from the user
 		JButton newGame = new JButton("Custom Game");
+
+		// Controls that would replace the board are off while a save or load runs
+		PropertyChangeListener busy = new PropertyChangeListener() {
+
+			@Override
+			public void propertyChange(PropertyChangeEvent evt) {
+				boolean idle = !mines.isBusy();
+				reset.setEnabled(idle);
+				saveGame.setEnabled(idle);
+				loadGame.setEnabled(idle);
+				newGame.setEnabled(idle);
+			}
+
+		};
+		mines.addPropertyChangeListener("busy", busy);
+
 		newGame.addActionListener(new ActionListener() {
 			public void actionPerformed(ActionEvent ae) {
 				int result = JOptionPane.showConfirmDialog(null, customEntry, 
@@ -181,9 +212,16 @@ public class Game {
 				//If the user entered something, create a new map
 				if (result == JOptionPane.OK_OPTION) {
 					minesPanel.remove(mines);
-					mines = new MineMap(Integer.valueOf(width.getText()), 
-							Integer.valueOf(height.getText()), Integer.valueOf(numMines.getText()), 
-							game, numMinesLabel);
+					mines.dispose();
+					int w = Integer.valueOf(width.getText());
+					int h = Integer.valueOf(height.getText());
+					mines = new MineMap(w, h, Integer.valueOf(numMines.getText()), 
+							game, numMinesLabel, (long) w * h > MAX_BUTTON_TILES);
+					mines.setNoGuess(noGuess.isSelected());
+					mines.addPropertyChangeListener("busy", busy);
+					// Boards this large are never swapped, so the mode is off for them
+					noGuess.setEnabled((long) mines.getBoard().getWidth()
+							* mines.getBoard().getHeight() <= NoGuessGenerator.MAX_TILES);
 					
 					minesPanel.add(mines, BorderLayout.CENTER);
 					numMinesLabel.setText("Number of Mines Remaining: " + 
@@ -220,6 +258,7 @@ public class Game {
 	 * @param args
 	 */
 	public static void main(String[] args) {
+		EdtWatchdog.startIfEnabled();
 		SwingUtilities.invokeLater(new Runnable() {
 			public void run() {
 				new Game();
@@ -0,0 +1,471 @@
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * Saves a game as it is played. Every reveal and flag is appended to a journal
+ * file as it happens, which costs the same however large the board is, and
+ * every so often the whole board is written to a snapshot (a binary save, see
+ * BoardFile) and the journal starts over. A game is restored by reading the
+ * snapshot and replaying the moves journaled after it.
+ *
+ * The journal starts with the magic bytes "MSWJ", a version byte and the
+ * number of moves of the snapshot it follows, as a big-endian int. Each move is
+ * then an operation byte and the index of its tile as a big-endian int. A move
+ * cut short by a crash is ignored, and moves the snapshot already has (if the
+ * game stopped between writing a snapshot and restarting the journal) are
+ * skipped.
+ *
+ * When a freshly generated game is first journaled, its snapshot is only the
+ * seed of the board (see BoardFile.writeSeed), so a game is saved as its seed
+ * and moves. Other boards, such as ones loaded from a text save, start with a
+ * full snapshot. A new snapshot is taken once the journal has grown as large as
+ * one, so writing snapshots costs a few bytes per move on average.
+ *
+ * A snapshot can also be written on another thread, so a large board is saved
+ * without holding up the game: beginSnapshot copies the board, writeSnapshot
+ * writes the copy on any thread, and finishSnapshot starts the journal after
+ * it, with the moves made in the meantime. Until then, moves keep going to the
+ * old journal, which restores the game whether or not the new snapshot made it
+ * to disk. Likewise a game can be read on another thread with read, and
+ * journaled again once it is shown with resume. Every other method must be
+ * called on the thread playing the game.
+ *
+ * @author Kanishka Ragula
+ *
+ */
+public class GameJournal {
+
+	/** Version of the journal format written by this class */
+	public static final int VERSION = 1;
+
+	// Size of the journal header and of each move in bytes
+	private static final int HEADER_SIZE = 4 + 1 + 4;
+	private static final int MOVE_SIZE = 1 + 4;
+	private static final byte[] MAGIC = { 'M', 'S', 'W', 'J' };
+
+	// Operations of the moves
+	private static final byte OP_REVEAL = 1;
+	private static final byte OP_FLAG = 2;
+
+	// Fewest moves journaled between snapshots, for small boards
+	private static final int MIN_SNAPSHOT_MOVES = 256;
+
+	private final File snapshotFile;
+	private final File journalFile;
+	private final ByteBuffer move = ByteBuffer.allocate(MOVE_SIZE);
+	// Held while the snapshot file is replaced, which other threads may do
+	private final Object snapshotLock = new Object();
+	private FileChannel journal;
+	private MineBoard board;
+	private long journalMoves;
+	private PendingSnapshot pending;
+
+	/**
+	 * A copy of a board being written to the snapshot by another thread
+	 */
+	public static final class PendingSnapshot {
+		private final MineBoard board;
+		private final byte[] image;
+		private final int moves;
+		// Moves made on the board since it was copied, as journaled
+		private final ByteArrayOutputStream since = new ByteArrayOutputStream();
+		private long sinceMoves;
+		private volatile boolean cancelled;
+		private volatile boolean written;
+
+		/**
+		 * @param board Board being saved
+		 */
+		private PendingSnapshot(MineBoard board) {
+			this.board = board;
+			this.image = BoardFile.encode(board);
+			this.moves = board.getMoves();
+		}
+	}
+
+	/**
+	 * A game read from the files, not journaled yet
+	 */
+	public static final class Saved {
+		private final MineBoard board;
+		// Complete moves in the journal, or -1 if it has to be started over
+		private final long replayed;
+
+		/**
+		 * @param board    Board read
+		 * @param replayed Moves of the journal
+		 */
+		private Saved(MineBoard board, long replayed) {
+			this.board = board;
+			this.replayed = replayed;
+		}
+
+		/**
+		 * @return The board read
+		 */
+		public MineBoard getBoard() {
+			return board;
+		}
+	}
+
+	/**
+	 * Creates a journal saving games to the given files. Nothing is written until
+	 * the first move is recorded, so an existing save can still be restored
+	 *
+	 * @param snapshotFile File holding the last snapshot
+	 * @param journalFile  File holding the moves made since the snapshot
+	 */
+	public GameJournal(File snapshotFile, File journalFile) {
+		this.snapshotFile = snapshotFile;
+		this.journalFile = journalFile;
+	}
+
+	/**
+	 * Records a move that changed the board. The board must already have been
+	 * changed by the move
+	 *
+	 * @param board Board the move was made on
+	 * @param flag  Whether the move placed or removed a flag, rather than
+	 *              revealing a tile
+	 * @param r     Row of the tile
+	 * @param c     Column of the tile
+	 * @throws IOException If the move cannot be written
+	 */
+	public void record(MineBoard board, boolean flag, int r, int c) throws IOException {
+		if (pending != null && board != pending.board)
+			cancelSnapshot();
+		if (board != this.board) {
+			if (!board.isGenerated() || board.getMoves() != 1) {
+				snapshot(board);
+				return;
+			}
+			// The board before this move can be generated again from its seed
+			startJournal(board, true);
+		} else if (needsSnapshot()) {
+			snapshot(board);
+			return;
+		}
+		move.clear();
+		move.put(flag ? OP_FLAG : OP_REVEAL);
+		move.putInt(board.index(r, c));
+		move.flip();
+		while (move.hasRemaining()) {
+			journal.write(move);
+		}
+		journalMoves++;
+		if (pending != null) {
+			pending.since.write(move.array(), 0, MOVE_SIZE);
+			pending.sinceMoves++;
+		}
+	}
+
+	/**
+	 * @return Whether the journal has grown as large as a snapshot
+	 */
+	private boolean needsSnapshot() {
+		long snapshotSize = ((long) board.getWidth() * board.getHeight() + 1) / 2;
+		return journalMoves >= Math.max(MIN_SNAPSHOT_MOVES, snapshotSize / MOVE_SIZE);
+	}
+
+	/**
+	 * Writes the whole board to the snapshot and starts an empty journal after it.
+	 * The snapshot is written to a temporary file first and moved over the old
+	 * one, so there is always a complete snapshot to restore
+	 *
+	 * @param board Board to save
+	 * @throws IOException If the snapshot or journal cannot be written
+	 */
+	public void snapshot(MineBoard board) throws IOException {
+		startJournal(board, false);
+	}
+
+	/**
+	 * Writes a snapshot of the board, either whole or as its seed, and starts an
+	 * empty journal after it
+	 *
+	 * @param board     Board to save
+	 * @param generated Whether only the seed of the board is written, for the
+	 *                  board as it was before its first move
+	 * @throws IOException If the snapshot or journal cannot be written
+	 */
+	private void startJournal(MineBoard board, boolean generated) throws IOException {
+		// A snapshot still being written would be older than this one
+		cancelSnapshot();
+		File temp = new File(snapshotFile.getPath() + ".tmp");
+		if (generated) {
+			BoardFile.writeSeed(board, temp);
+		} else {
+			BoardFile.writeBinary(board, temp);
+		}
+		replaceSnapshot(temp);
+
+		close();
+		openJournal(generated ? 0 : board.getMoves());
+		this.board = board;
+		journalMoves = 0;
+	}
+
+	/**
+	 * Moves a file written next to the snapshot over it
+	 *
+	 * @param temp The new snapshot
+	 * @throws IOException If it cannot be moved
+	 */
+	private void replaceSnapshot(File temp) throws IOException {
+		synchronized (snapshotLock) {
+			Files.move(temp.toPath(), snapshotFile.toPath(), StandardCopyOption.REPLACE_EXISTING,
+					StandardCopyOption.ATOMIC_MOVE);
+		}
+	}
+
+	/**
+	 * Starts an empty journal
+	 *
+	 * @param start Number of moves of the snapshot it follows
+	 * @throws IOException If it cannot be written
+	 */
+	private void openJournal(int start) throws IOException {
+		journal = FileChannel.open(journalFile.toPath(), StandardOpenOption.WRITE,
+				StandardOpenOption.CREATE, StandardOpenOption.TRUNCATE_EXISTING);
+		ByteBuffer header = ByteBuffer.allocate(HEADER_SIZE);
+		header.put(MAGIC);
+		header.put((byte) VERSION);
+		header.putInt(start);
+		header.flip();
+		while (header.hasRemaining()) {
+			journal.write(header);
+		}
+	}
+
+	/**
+	 * Copies a board to be written to the snapshot by another thread. Costs about
+	 * a memory copy of the board
+	 *
+	 * @param board Board to save
+	 * @return The copy, to pass to writeSnapshot then finishSnapshot
+	 */
+	public PendingSnapshot beginSnapshot(MineBoard board) {
+		cancelSnapshot();
+		pending = new PendingSnapshot(board);
+		return pending;
+	}
+
+	/**
+	 * Writes a copy of a board to the snapshot. May be called on any thread.
+	 * Nothing is replaced if another snapshot was taken since the copy, or the
+	 * journal was closed. The copy is on disk before it replaces the snapshot
+	 *
+	 * @param snapshot Copy of the board
+	 * @return Whether the snapshot was replaced
+	 * @throws IOException If the snapshot cannot be written
+	 */
+	public boolean writeSnapshot(PendingSnapshot snapshot) throws IOException {
+		File temp = File.createTempFile(snapshotFile.getName(), ".tmp",
+				snapshotFile.getAbsoluteFile().getParentFile());
+		try {
+			FileChannel channel = FileChannel.open(temp.toPath(), StandardOpenOption.WRITE);
+			try {
+				ByteBuffer image = ByteBuffer.wrap(snapshot.image);
+				while (image.hasRemaining()) {
+					channel.write(image);
+				}
+				// A crash after the move must not leave a snapshot that was never written
+				channel.force(true);
+			} finally {
+				channel.close();
+			}
+			synchronized (snapshotLock) {
+				if (snapshot.cancelled)
+					return false;
+				replaceSnapshot(temp);
+				snapshot.written = true;
+			}
+			return true;
+		} finally {
+			temp.delete();
+		}
+	}
+
+	/**
+	 * Starts the journal after a snapshot written by writeSnapshot, with the
+	 * moves made since the board was copied
+	 *
+	 * @param snapshot Copy of the board
+	 * @return Whether the journal was started, which it is not if the snapshot
+	 *         was not written or another one was taken since
+	 * @throws IOException If the journal cannot be written
+	 */
+	public boolean finishSnapshot(PendingSnapshot snapshot) throws IOException {
+		if (snapshot != pending || !snapshot.written) {
+			if (snapshot == pending)
+				pending = null;
+			return false;
+		}
+		pending = null;
+		closeJournal();
+		openJournal(snapshot.moves);
+		ByteBuffer moves = ByteBuffer.wrap(snapshot.since.toByteArray());
+		while (moves.hasRemaining()) {
+			journal.write(moves);
+		}
+		board = snapshot.board;
+		journalMoves = snapshot.sinceMoves;
+		return true;
+	}
+
+	/**
+	 * Stops a snapshot being written by another thread from replacing the
+	 * snapshot, if it has not already
+	 */
+	private void cancelSnapshot() {
+		if (pending != null) {
+			synchronized (snapshotLock) {
+				pending.cancelled = true;
+			}
+			pending = null;
+		}
+	}
+
+	/**
+	 * @return Whether there is a saved game to restore
+	 */
+	public boolean exists() {
+		return snapshotFile.exists();
+	}
+
+	/**
+	 * Restores the saved game by reading the snapshot and replaying the journal.
+	 * Further moves on the restored board are appended to the same journal
+	 *
+	 * @return The saved board
+	 * @throws IOException If the snapshot cannot be read or the journal is
+	 *                     formatted poorly
+	 */
+	public MineBoard restore() throws IOException {
+		return resume(read());
+	}
+
+	/**
+	 * Reads the saved game from the snapshot and the journal, without journaling
+	 * it. May be called on any thread, while no moves are recorded
+	 *
+	 * @return The saved game, to pass to resume
+	 * @throws IOException If the snapshot cannot be read or the journal is
+	 *                     formatted poorly
+	 */
+	public Saved read() throws IOException {
+		MineBoard restored = BoardFile.readBinary(snapshotFile);
+		long replayed = -1;
+		if (journalFile.exists()) {
+			FileChannel channel = FileChannel.open(journalFile.toPath(), StandardOpenOption.READ);
+			try {
+				replayed = replay(restored, channel);
+			} finally {
+				channel.close();
+			}
+		}
+		return new Saved(restored, replayed);
+	}
+
+	/**
+	 * Journals a game read by read. Further moves on its board are appended to
+	 * the same journal
+	 *
+	 * @param saved The saved game
+	 * @return The saved board
+	 * @throws IOException If the journal cannot be written
+	 */
+	public MineBoard resume(Saved saved) throws IOException {
+		// Keep appending to the journal after the moves that were replayed
+		close();
+		if (saved.replayed < 0) {
+			snapshot(saved.board);
+		} else {
+			journal = FileChannel.open(journalFile.toPath(), StandardOpenOption.WRITE);
+			journal.truncate(HEADER_SIZE + saved.replayed * MOVE_SIZE);
+			journal.position(HEADER_SIZE + saved.replayed * MOVE_SIZE);
+			board = saved.board;
+			journalMoves = saved.replayed;
+		}
+		return saved.board;
+	}
+
+	/**
+	 * Replays the moves of a journal that the board does not have yet
+	 *
+	 * @param board   Board read from the snapshot
+	 * @param channel Journal to read
+	 * @return Number of complete moves in the journal, or -1 if the journal does
+	 *         not continue the snapshot and has to be started over
+	 * @throws IOException If the journal cannot be read or has an invalid move
+	 */
+	private static long replay(MineBoard board, FileChannel channel) throws IOException {
+		ByteBuffer buffer = ByteBuffer.allocate((int) Math.min(channel.size(), Integer.MAX_VALUE));
+		while (buffer.hasRemaining() && channel.read(buffer) >= 0) {
+			// Read the whole journal, it is never much larger than a snapshot
+		}
+		buffer.flip();
+		if (buffer.remaining() < HEADER_SIZE)
+			return -1;
+		for (int i = 0; i < MAGIC.length; i++) {
+			if (buffer.get() != MAGIC[i])
+				throw new IOException("Not a game journal");
+		}
+		int version = buffer.get();
+		if (version != VERSION)
+			throw new IOException("Unsupported journal version " + version);
+
+		// The journal may be older than the snapshot, but never newer
+		long start = buffer.getInt();
+		long numMoves = buffer.remaining() / MOVE_SIZE;
+		if (start > board.getMoves() || start + numMoves < board.getMoves())
+			return -1;
+
+		int numCells = board.getWidth() * board.getHeight();
+		for (long i = 0; i < numMoves; i++) {
+			byte op = buffer.get();
+			int cell = buffer.getInt();
+			if ((op != OP_REVEAL && op != OP_FLAG) || cell < 0 || cell >= numCells)
+				throw new IOException("Invalid move " + i + " in journal");
+			if (start + i < board.getMoves())
+				continue;
+
+			int r = cell / board.getWidth();
+			int c = cell % board.getWidth();
+			MineBoard.Result result = op == OP_FLAG ? board.toggleFlag(r, c) : board.reveal(r, c);
+			if (result == MineBoard.Result.IGNORED)
+				throw new IOException("Move " + i + " in journal does not apply to the snapshot");
+		}
+		return numMoves;
+	}
+
+	/**
+	 * Closes the journal file. The next move recorded takes a new snapshot, and a
+	 * snapshot being written by another thread is dropped
+	 *
+	 * @throws IOException If the journal cannot be closed
+	 */
+	public void close() throws IOException {
+		cancelSnapshot();
+		closeJournal();
+	}
+
+	/**
+	 * Closes the journal file
+	 *
+	 * @throws IOException If the journal cannot be closed
+	 */
+	private void closeJournal() throws IOException {
+		if (journal != null) {
+			journal.close();
+			journal = null;
+		}
+		board = null;
+	}
+}
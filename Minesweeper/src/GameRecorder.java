@@ -0,0 +1,186 @@
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+
+/**
+ * Records every interaction with a MineMap, with the time it happened, so the
+ * session can be replayed exactly by a GameReplay.
+ *
+ * A recording starts with the magic bytes "MSWR" and a version byte. Each event
+ * is then the milliseconds since the previous event as a varint, an operation
+ * byte and the operands of the operation:
+ * <ul>
+ * <li>NEW: width, height and mines as varints and the seed as a big-endian
+ * long, for a board generated from its seed</li>
+ * <li>LOAD: the length of a binary save as a varint and the save (see
+ * BoardFile), for any other board</li>
+ * <li>RESET: the seed of the new board as a big-endian long</li>
+ * <li>REVEAL and FLAG: the row and column clicked as varints</li>
+ * <li>FLAG_MODE and NO_GUESS: a byte, 1 if the mode was turned on</li>
+ * </ul>
+ * Varints hold 7 bits per byte, lowest first, with the high bit set on every
+ * byte but the last, so a click on a board up to 128 tiles a side, less than 16
+ * seconds after the previous event, takes 5 bytes. Each event is flushed as it
+ * is recorded, and an event cut short by a crash is ignored when the recording
+ * is read.
+ *
+ * @author Kanishka Ragula
+ *
+ */
+public class GameRecorder {
+
+	/** Version of the recording format written by this class */
+	public static final int VERSION = 1;
+
+	static final byte[] MAGIC = { 'M', 'S', 'W', 'R' };
+
+	// Operations of the events
+	static final byte OP_NEW = 1;
+	static final byte OP_LOAD = 2;
+	static final byte OP_RESET = 3;
+	static final byte OP_REVEAL = 4;
+	static final byte OP_FLAG = 5;
+	static final byte OP_FLAG_MODE = 6;
+	static final byte OP_NO_GUESS = 7;
+
+	private final DataOutputStream out;
+	private long lastTime;
+
+	/**
+	 * Starts a recording in a file
+	 *
+	 * @param f File to record to, replaced if it exists
+	 * @throws IOException If the file cannot be written
+	 */
+	public GameRecorder(File f) throws IOException {
+		this(new FileOutputStream(f));
+	}
+
+	/**
+	 * Starts a recording on a stream
+	 *
+	 * @param stream Stream to record to, closed with the recorder
+	 * @throws IOException If the stream cannot be written
+	 */
+	public GameRecorder(OutputStream stream) throws IOException {
+		out = new DataOutputStream(new BufferedOutputStream(stream));
+		out.write(MAGIC);
+		out.writeByte(VERSION);
+		out.flush();
+		lastTime = System.nanoTime();
+	}
+
+	/**
+	 * Records the board a map starts showing, by its seed if it is a new
+	 * generated board and as a whole otherwise
+	 *
+	 * @param board Board shown
+	 * @throws IOException If the event cannot be written
+	 */
+	public void board(MineBoard board) throws IOException {
+		if (board.isGenerated() && board.getMoves() == 0 && board.isFirstMove()) {
+			start(OP_NEW);
+			writeVarint(board.getWidth());
+			writeVarint(board.getHeight());
+			writeVarint(board.getMines());
+			out.writeLong(board.getSeed());
+		} else {
+			byte[] save = BoardFile.encode(board);
+			start(OP_LOAD);
+			writeVarint(save.length);
+			out.write(save);
+		}
+		out.flush();
+	}
+
+	/**
+	 * Records a reset of the board
+	 *
+	 * @param seed Seed of the new board
+	 * @throws IOException If the event cannot be written
+	 */
+	public void reset(long seed) throws IOException {
+		start(OP_RESET);
+		out.writeLong(seed);
+		out.flush();
+	}
+
+	/**
+	 * Records a click on a tile, whether or not it changed anything
+	 *
+	 * @param flag Whether the map was in flag mode
+	 * @param r    Row of the tile
+	 * @param c    Column of the tile
+	 * @throws IOException If the event cannot be written
+	 */
+	public void click(boolean flag, int r, int c) throws IOException {
+		start(flag ? OP_FLAG : OP_REVEAL);
+		writeVarint(r);
+		writeVarint(c);
+		out.flush();
+	}
+
+	/**
+	 * Records turning flag mode on or off
+	 *
+	 * @param on Whether flag mode is on
+	 * @throws IOException If the event cannot be written
+	 */
+	public void flagMode(boolean on) throws IOException {
+		start(OP_FLAG_MODE);
+		out.writeByte(on ? 1 : 0);
+		out.flush();
+	}
+
+	/**
+	 * Records turning no-guess mode on or off
+	 *
+	 * @param on Whether no-guess mode is on
+	 * @throws IOException If the event cannot be written
+	 */
+	public void noGuess(boolean on) throws IOException {
+		start(OP_NO_GUESS);
+		out.writeByte(on ? 1 : 0);
+		out.flush();
+	}
+
+	/**
+	 * Ends the recording
+	 *
+	 * @throws IOException If the file cannot be closed
+	 */
+	public void close() throws IOException {
+		out.close();
+	}
+
+	/**
+	 * Writes the time since the last event and the operation of a new one
+	 *
+	 * @param op Operation of the event
+	 * @throws IOException If the event cannot be written
+	 */
+	private void start(byte op) throws IOException {
+		long now = System.nanoTime();
+		writeVarint((now - lastTime) / 1000000);
+		// Sub-millisecond remainders carry over, so the times do not drift
+		lastTime = now - (now - lastTime) % 1000000;
+		out.writeByte(op);
+	}
+
+	/**
+	 * Writes a number that is not negative in as few bytes as it needs
+	 *
+	 * @param value Number to write
+	 * @throws IOException If it cannot be written
+	 */
+	private void writeVarint(long value) throws IOException {
+		while ((value & ~0x7FL) != 0) {
+			out.writeByte((int) (value & 0x7F) | 0x80);
+			value >>>= 7;
+		}
+		out.writeByte((int) value);
+	}
+}
@@ -0,0 +1,330 @@
+import java.awt.BorderLayout;
+import java.awt.Window;
+import java.awt.event.ActionEvent;
+import java.awt.event.ActionListener;
+import java.io.File;
+import java.io.IOException;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+
+import javax.swing.JFrame;
+import javax.swing.JLabel;
+import javax.swing.SwingUtilities;
+import javax.swing.Timer;
+
+/**
+ * Plays back a session recorded by a GameRecorder, either on a MineBoard as
+ * fast as it goes, to replay many recordings in a batch, or on a MineMap at the
+ * pace it was recorded, or faster.
+ *
+ * Usage: java GameReplay recordings... replays each recording without a display
+ * and prints how it ended. java GameReplay -show [speed] recording plays a
+ * recording in a window, at the given multiple of its recorded pace.
+ *
+ * @author Kanishka Ragula
+ *
+ */
+public class GameReplay {
+
+	/**
+	 * An event of the recording
+	 */
+	private static class Event {
+		// Milliseconds since the start of the recording
+		long time;
+		byte op;
+		int row;
+		int col;
+		int width;
+		int height;
+		int mines;
+		long seed;
+		boolean on;
+		byte[] save;
+	}
+
+	private final List<Event> events;
+
+	/**
+	 * @param events Events of the recording
+	 */
+	private GameReplay(List<Event> events) {
+		this.events = events;
+	}
+
+	/**
+	 * Reads a recording
+	 *
+	 * @param f File to read from
+	 * @return The recording
+	 * @throws IOException If the file cannot be read or is not a recording
+	 */
+	public static GameReplay read(File f) throws IOException {
+		return decode(ByteBuffer.wrap(Files.readAllBytes(f.toPath())));
+	}
+
+	/**
+	 * Decodes a recording. An event cut short at the end is left out
+	 *
+	 * @param buffer Buffer holding the recording
+	 * @return The recording
+	 * @throws IOException If it is not a recording
+	 */
+	static GameReplay decode(ByteBuffer buffer) throws IOException {
+		if (buffer.remaining() < GameRecorder.MAGIC.length + 1)
+			throw new IOException("Not a recording");
+		for (int i = 0; i < GameRecorder.MAGIC.length; i++) {
+			if (buffer.get() != GameRecorder.MAGIC[i])
+				throw new IOException("Not a recording");
+		}
+		int version = buffer.get();
+		if (version != GameRecorder.VERSION)
+			throw new IOException("Unsupported recording version " + version);
+
+		List<Event> events = new ArrayList<Event>();
+		long time = 0;
+		try {
+			while (buffer.hasRemaining()) {
+				Event event = new Event();
+				time += readVarint(buffer);
+				event.time = time;
+				event.op = buffer.get();
+				switch (event.op) {
+				case GameRecorder.OP_NEW:
+					event.width = (int) readVarint(buffer);
+					event.height = (int) readVarint(buffer);
+					event.mines = (int) readVarint(buffer);
+					event.seed = buffer.getLong();
+					break;
+				case GameRecorder.OP_LOAD:
+					event.save = new byte[(int) readVarint(buffer)];
+					buffer.get(event.save);
+					break;
+				case GameRecorder.OP_RESET:
+					event.seed = buffer.getLong();
+					break;
+				case GameRecorder.OP_REVEAL:
+				case GameRecorder.OP_FLAG:
+					event.row = (int) readVarint(buffer);
+					event.col = (int) readVarint(buffer);
+					break;
+				case GameRecorder.OP_FLAG_MODE:
+				case GameRecorder.OP_NO_GUESS:
+					event.on = buffer.get() != 0;
+					break;
+				default:
+					throw new IOException("Unknown event " + event.op + " at byte " + buffer.position());
+				}
+				events.add(event);
+			}
+		} catch (BufferUnderflowException e) {
+			// The recording stopped in the middle of its last event
+		}
+		if (!events.isEmpty() && !isBoard(events.get(0)))
+			throw new IOException("Recording does not start with a board");
+		return new GameReplay(events);
+	}
+
+	/**
+	 * Reads a varint written by the GameRecorder
+	 *
+	 * @param buffer Buffer to read from
+	 * @return The number
+	 * @throws IOException If the varint is longer than a long
+	 */
+	private static long readVarint(ByteBuffer buffer) throws IOException {
+		long value = 0;
+		for (int shift = 0; shift < 64; shift += 7) {
+			byte b = buffer.get();
+			value |= (long) (b & 0x7F) << shift;
+			if (b >= 0)
+				return value;
+		}
+		throw new IOException("Varint too long at byte " + buffer.position());
+	}
+
+	/**
+	 * @param event An event
+	 * @return Whether it brings in a new board
+	 */
+	private static boolean isBoard(Event event) {
+		return event.op == GameRecorder.OP_NEW || event.op == GameRecorder.OP_LOAD;
+	}
+
+	/**
+	 * @return Number of events in the recording
+	 */
+	public int size() {
+		return events.size();
+	}
+
+	/**
+	 * @return Milliseconds from the first event to the last
+	 */
+	public long getDuration() {
+		return events.isEmpty() ? 0 : events.get(events.size() - 1).time - events.get(0).time;
+	}
+
+	/**
+	 * Plays every event on a board, as fast as it goes
+	 *
+	 * @return The board as the recording left it, or null for an empty recording
+	 * @throws IOException If a board embedded in the recording cannot be read
+	 */
+	public MineBoard replay() throws IOException {
+		MineBoard board = null;
+		boolean noGuess = false;
+		for (Event event : events) {
+			switch (event.op) {
+			case GameRecorder.OP_NEW:
+				board = new MineBoard(event.width, event.height, event.mines, event.seed);
+				break;
+			case GameRecorder.OP_LOAD:
+				board = BoardFile.decode(ByteBuffer.wrap(event.save));
+				break;
+			case GameRecorder.OP_RESET:
+				board.reset(event.seed);
+				break;
+			case GameRecorder.OP_REVEAL:
+				if (noGuess)
+					NoGuessGenerator.firstClick(board, event.row, event.col, ForkJoinPool.commonPool());
+				board.reveal(event.row, event.col);
+				break;
+			case GameRecorder.OP_FLAG:
+				board.toggleFlag(event.row, event.col);
+				break;
+			case GameRecorder.OP_NO_GUESS:
+				noGuess = event.on;
+				break;
+			default:
+				// Flag mode is already in the clicks
+			}
+		}
+		return board;
+	}
+
+	/**
+	 * Plays the recording on a map with a Swing timer, at a multiple of the pace
+	 * it was recorded at. Must be called on the event dispatch thread
+	 *
+	 * @param map   Map to play on, which does not show dialogs until the end. It
+	 *              should have no journal, or the replay is saved over its game
+	 * @param speed How many times faster than recorded to play, or 0 to play
+	 *              every event right after the previous one
+	 * @return The timer playing the recording, which can be stopped
+	 */
+	public Timer play(final MineMap map, final double speed) {
+		map.setQuiet(true);
+		final Timer timer = new Timer(0, null);
+		timer.setRepeats(false);
+		timer.addActionListener(new ActionListener() {
+			private int next;
+			private boolean noGuess;
+
+			@Override
+			public void actionPerformed(ActionEvent e) {
+				if (next == events.size()) {
+					map.setQuiet(false);
+					return;
+				}
+				Event event = events.get(next++);
+				if (event.op == GameRecorder.OP_NO_GUESS)
+					noGuess = event.on;
+				try {
+					apply(map, event, noGuess);
+				} catch (IOException ex) {
+					ex.printStackTrace();
+					map.setQuiet(false);
+					return;
+				}
+				long wait = next == events.size() ? 0 : events.get(next).time - event.time;
+				timer.setInitialDelay(speed <= 0 ? 0 : (int) Math.min(Integer.MAX_VALUE, wait / speed));
+				timer.start();
+			}
+		});
+		timer.start();
+		return timer;
+	}
+
+	/**
+	 * Plays an event on a map
+	 *
+	 * @param map     Map to play on
+	 * @param event   Event to play
+	 * @param noGuess Whether no-guess mode is on in the recording
+	 * @throws IOException If a board embedded in the recording cannot be read
+	 */
+	private static void apply(MineMap map, Event event, boolean noGuess) throws IOException {
+		switch (event.op) {
+		case GameRecorder.OP_NEW:
+			map.setBoard(new MineBoard(event.width, event.height, event.mines, event.seed));
+			break;
+		case GameRecorder.OP_LOAD:
+			map.setBoard(BoardFile.decode(ByteBuffer.wrap(event.save)));
+			break;
+		case GameRecorder.OP_RESET:
+			map.reset(event.seed);
+			return;
+		case GameRecorder.OP_REVEAL:
+		case GameRecorder.OP_FLAG:
+			// Looked for here, as the map would look in the background and miss the
+			// events after; a board found by the game was recorded as a reset and is
+			// found again straight away
+			if (noGuess && event.op == GameRecorder.OP_REVEAL && NoGuessGenerator
+					.firstClick(map.getBoard(), event.row, event.col, ForkJoinPool.commonPool()))
+				map.setBoard(map.getBoard());
+			map.setFlaggedMode(event.op == GameRecorder.OP_FLAG);
+			map.click(event.row, event.col);
+			return;
+		case GameRecorder.OP_FLAG_MODE:
+			map.setFlaggedMode(event.on);
+			return;
+		default:
+			return;
+		}
+
+		// A board of another size needs the window to be laid out again
+		Window window = SwingUtilities.getWindowAncestor(map);
+		if (window != null)
+			window.pack();
+	}
+
+	public static void main(String[] args) throws IOException {
+		if (args.length > 0 && args[0].equals("-show")) {
+			boolean hasSpeed = args.length > 2;
+			final double speed = hasSpeed ? Double.parseDouble(args[1]) : 1;
+			final GameReplay replay = read(new File(args[hasSpeed ? 2 : 1]));
+			SwingUtilities.invokeLater(new Runnable() {
+				public void run() {
+					JFrame frame = new JFrame("Minesweeper Replay");
+					// The replay is neither saved over the player's game nor recorded again
+					MineMap map = new MineMap(8, 8, 10, frame, new JLabel(), true, null);
+					frame.add(map, BorderLayout.CENTER);
+					frame.setDefaultCloseOperation(JFrame.EXIT_ON_CLOSE);
+					frame.pack();
+					frame.setVisible(true);
+					replay.play(map, speed);
+				}
+			});
+			return;
+		}
+
+		long start = System.nanoTime();
+		long numEvents = 0;
+		for (String name : args) {
+			GameReplay replay = read(new File(name));
+			MineBoard board = replay.replay();
+			numEvents += replay.size();
+			String outcome = board == null ? "empty"
+					: board.isWon() ? "won" : board.isOver() ? "lost" : "in play";
+			System.out.printf("%s: %d events over %.1f s, %s after %d moves%n", name, replay.size(),
+					replay.getDuration() / 1000.0, outcome, board == null ? 0 : board.getMoves());
+		}
+		double seconds = (System.nanoTime() - start) / 1e9;
+		System.out.printf("%d recordings, %d events in %.2f s%n", args.length, numEvents, seconds);
+	}
+}
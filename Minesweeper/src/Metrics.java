@@ -0,0 +1,411 @@
+import java.lang.management.ManagementFactory;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Timer;
+import java.util.TimerTask;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+
+import javax.management.JMException;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+
+/**
+ * Counters and histograms of what the game spends its time on: clicks, the
+ * tiles each reveal uncovers, board generation, saving, loading and painting.
+ *
+ * Metrics are off unless the minesweeper.metrics system property is set. They
+ * are then registered with the platform MBean server under the minesweeper
+ * domain, and if the property is a number of seconds, a report of every metric
+ * is printed to standard error that often. ENABLED is a constant, so when it is
+ * false the JIT drops the code measuring around it at every call site, which
+ * looks like: long start = Metrics.ENABLED ? System.nanoTime() : 0; ... if
+ * (Metrics.ENABLED) Metrics.CLICK.recordSince(start);
+ *
+ * Recording never locks. Counters are LongAdders, and histograms count values
+ * into buckets like an HdrHistogram: every power of two is split into 32
+ * buckets, so any value is known to within about 3% from 1 to 2^63.
+ *
+ * @author Kanishka Ragula
+ *
+ */
+public final class Metrics {
+
+	/** Whether metrics are recorded */
+	public static final boolean ENABLED = System.getProperty("minesweeper.metrics") != null;
+
+	// Every metric, in the order they are reported
+	private static final List<Metric> ALL = new ArrayList<Metric>();
+
+	/** Nanoseconds a click takes to handle, up to the dialog at the end of a game */
+	public static final Histogram CLICK = histogram("click", "ns");
+	/** Tiles changed by each reveal that changed any */
+	public static final Histogram REVEALED = histogram("revealed", "tiles");
+	/** Nanoseconds to place the mines of a board and count its numbers */
+	public static final Histogram GENERATE = histogram("generate", "ns");
+	/** Nanoseconds to write a move to the journal */
+	public static final Histogram AUTOSAVE = histogram("autosave", "ns");
+	/** Nanoseconds to save a game */
+	public static final Histogram SAVE = histogram("save", "ns");
+	/** Nanoseconds to load a game */
+	public static final Histogram LOAD = histogram("load", "ns");
+	/** Nanoseconds to paint the board canvas */
+	public static final Histogram PAINT = histogram("paint", "ns");
+	/** Nanoseconds the event dispatch thread was held up, per stall (see EdtWatchdog) */
+	public static final Histogram STALL = histogram("stall", "ns");
+	/** New games whose board was ready in the BoardPool */
+	public static final Counter POOL_HIT = counter("pool.hit");
+	/** New games whose board had to be generated when asked for */
+	public static final Counter POOL_MISS = counter("pool.miss");
+	/** Clicks that changed nothing */
+	public static final Counter IGNORED = counter("ignored");
+	/** Games won */
+	public static final Counter WON = counter("won");
+	/** Games lost */
+	public static final Counter LOST = counter("lost");
+
+	static {
+		if (ENABLED) {
+			// Registering takes a while the first time, and may be done on the EDT
+			Thread registration = new Thread(new Runnable() {
+				public void run() {
+					register();
+				}
+			}, "Metrics registration");
+			registration.setDaemon(true);
+			registration.start();
+			long period = Long.getLong("minesweeper.metrics", 0) * 1000;
+			if (period > 0) {
+				new Timer("Metrics report", true).schedule(new TimerTask() {
+					@Override
+					public void run() {
+						System.err.print(report());
+					}
+				}, period, period);
+			}
+		}
+	}
+
+	private Metrics() {
+	}
+
+	/**
+	 * A named metric
+	 */
+	abstract static class Metric {
+		final String name;
+
+		Metric(String name) {
+			this.name = name;
+		}
+
+		/**
+		 * @return One line describing the metric, without its name
+		 */
+		abstract String summary();
+	}
+
+	/**
+	 * What a Counter shows over JMX
+	 */
+	public interface CounterMXBean {
+		/**
+		 * @return The count
+		 */
+		long getCount();
+
+		/**
+		 * Sets the count back to 0
+		 */
+		void reset();
+	}
+
+	/**
+	 * What a Histogram shows over JMX
+	 */
+	public interface HistogramMXBean {
+		/**
+		 * @return Unit of the values
+		 */
+		String getUnit();
+
+		/**
+		 * @return Number of values recorded
+		 */
+		long getCount();
+
+		/**
+		 * @return Mean of the values
+		 */
+		double getMean();
+
+		/**
+		 * @return Largest value
+		 */
+		long getMax();
+
+		/**
+		 * @return Median value
+		 */
+		long getP50();
+
+		/**
+		 * @return 99th percentile
+		 */
+		long getP99();
+
+		/**
+		 * @return 99.9th percentile
+		 */
+		long getP999();
+
+		/**
+		 * Forgets every value recorded
+		 */
+		void reset();
+	}
+
+	/**
+	 * A count that any thread can add to
+	 */
+	public static final class Counter extends Metric implements CounterMXBean {
+		private final LongAdder count = new LongAdder();
+
+		/**
+		 * @param name Name of the counter
+		 */
+		Counter(String name) {
+			super(name);
+		}
+
+		/**
+		 * Adds one to the count
+		 */
+		public void increment() {
+			count.increment();
+		}
+
+		@Override
+		public long getCount() {
+			return count.sum();
+		}
+
+		@Override
+		public void reset() {
+			count.reset();
+		}
+
+		@Override
+		String summary() {
+			return String.valueOf(getCount());
+		}
+	}
+
+	/**
+	 * Distribution of values that are not negative, such as durations, that any
+	 * thread can record into
+	 */
+	public static final class Histogram extends Metric implements HistogramMXBean {
+		// Every power of two is split into 2^SUB_BITS buckets
+		private static final int SUB_BITS = 5;
+		private static final int SUB = 1 << SUB_BITS;
+		// Values below SUB have a bucket each, then SUB for each larger power of two
+		private static final int BUCKETS = SUB + (63 - SUB_BITS) * SUB;
+
+		private final String unit;
+		private final AtomicLongArray buckets = new AtomicLongArray(BUCKETS);
+		private final LongAdder sum = new LongAdder();
+		private final AtomicLong max = new AtomicLong();
+
+		/**
+		 * @param name Name of the histogram
+		 * @param unit Unit of the values
+		 */
+		Histogram(String name, String unit) {
+			super(name);
+			this.unit = unit;
+		}
+
+		/**
+		 * Records a value. Negative values are recorded as 0
+		 *
+		 * @param value Value to record
+		 */
+		public void record(long value) {
+			value = Math.max(value, 0);
+			buckets.incrementAndGet(bucket(value));
+			sum.add(value);
+			long largest = max.get();
+			while (value > largest && !max.compareAndSet(largest, value)) {
+				largest = max.get();
+			}
+		}
+
+		/**
+		 * Records the nanoseconds since a time
+		 *
+		 * @param start Result of System.nanoTime at the start
+		 */
+		public void recordSince(long start) {
+			record(System.nanoTime() - start);
+		}
+
+		/**
+		 * @param value A value that is not negative
+		 * @return Index of the bucket the value is counted in
+		 */
+		static int bucket(long value) {
+			if (value < SUB)
+				return (int) value;
+			int exponent = 63 - Long.numberOfLeadingZeros(value);
+			int shift = exponent - SUB_BITS;
+			return SUB + shift * SUB + (int) (value >>> shift) - SUB;
+		}
+
+		/**
+		 * @param bucket Index of a bucket
+		 * @return Largest value counted in the bucket
+		 */
+		static long highest(int bucket) {
+			if (bucket < SUB)
+				return bucket;
+			int shift = (bucket - SUB) / SUB;
+			long lowest = (long) (SUB + (bucket - SUB) % SUB) << shift;
+			return lowest + (1L << shift) - 1;
+		}
+
+		/**
+		 * Finds the value a share of the values are at or below. Values recorded at
+		 * the same time may or may not be seen
+		 *
+		 * @param share Share of the values, from 0 to 1
+		 * @return The value, rounded up to the end of its bucket but not past the
+		 *         largest value, or 0 if nothing was recorded
+		 */
+		public long getPercentile(double share) {
+			long[] counts = new long[BUCKETS];
+			long total = 0;
+			for (int i = 0; i < BUCKETS; i++) {
+				counts[i] = buckets.get(i);
+				total += counts[i];
+			}
+			long rank = Math.max(1, (long) Math.ceil(share * total));
+			long seen = 0;
+			for (int i = 0; i < BUCKETS; i++) {
+				seen += counts[i];
+				if (seen >= rank)
+					return Math.min(highest(i), getMax());
+			}
+			return 0;
+		}
+
+		@Override
+		public String getUnit() {
+			return unit;
+		}
+
+		@Override
+		public long getCount() {
+			long count = 0;
+			for (int i = 0; i < BUCKETS; i++) {
+				count += buckets.get(i);
+			}
+			return count;
+		}
+
+		@Override
+		public double getMean() {
+			long count = getCount();
+			return count == 0 ? 0 : (double) sum.sum() / count;
+		}
+
+		@Override
+		public long getMax() {
+			return max.get();
+		}
+
+		@Override
+		public long getP50() {
+			return getPercentile(0.5);
+		}
+
+		@Override
+		public long getP99() {
+			return getPercentile(0.99);
+		}
+
+		@Override
+		public long getP999() {
+			return getPercentile(0.999);
+		}
+
+		/**
+		 * Forgets every value recorded. Values recorded at the same time may be
+		 * partly kept
+		 */
+		@Override
+		public void reset() {
+			for (int i = 0; i < BUCKETS; i++) {
+				buckets.set(i, 0);
+			}
+			sum.reset();
+			max.set(0);
+		}
+
+		@Override
+		String summary() {
+			return String.format("count=%d mean=%.0f p50=%d p99=%d p99.9=%d max=%d %s", getCount(),
+					getMean(), getP50(), getP99(), getP999(), getMax(), unit);
+		}
+	}
+
+	/**
+	 * @param name Name of the histogram
+	 * @param unit Unit of its values
+	 * @return A new histogram, reported with the others
+	 */
+	private static Histogram histogram(String name, String unit) {
+		Histogram histogram = new Histogram(name, unit);
+		ALL.add(histogram);
+		return histogram;
+	}
+
+	/**
+	 * @param name Name of the counter
+	 * @return A new counter, reported with the others
+	 */
+	private static Counter counter(String name) {
+		Counter counter = new Counter(name);
+		ALL.add(counter);
+		return counter;
+	}
+
+	/**
+	 * Registers every metric with the platform MBean server. Metrics that cannot
+	 * be registered are still recorded and reported
+	 */
+	private static void register() {
+		MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+		for (Metric metric : ALL) {
+			String type = metric instanceof Histogram ? "Histogram" : "Counter";
+			try {
+				server.registerMBean(metric,
+						new ObjectName("minesweeper:type=" + type + ",name=" + metric.name));
+			} catch (JMException e) {
+				e.printStackTrace();
+			}
+		}
+	}
+
+	/**
+	 * @return A line for every metric, with its name and values
+	 */
+	public static String report() {
+		StringBuilder report = new StringBuilder();
+		for (Metric metric : ALL) {
+			report.append(String.format("%-10s %s%n", metric.name, metric.summary()));
+		}
+		return report.toString();
+	}
+}
@@ -0,0 +1,839 @@
+import java.util.Arrays;
+import java.util.SplittableRandom;
+import java.util.concurrent.ForkJoinPool;
+
+/**
+ * MineBoard holds the state and the rules of a single Minesweeper game with no
+ * rendering attached. Every action returns its outcome directly, so games can
+ * be played headless; MineMap is only a view on top of this class.
+ *
+ * The board is stored as one byte per tile, read row by row. The low bits of a
+ * cell hold its value (0-8, MINE or TRIPPED) and the FLAGGED and COVERED bits
+ * hold its state. Tile is only used as a view of a single cell.
+ *
+ * Each action records the cells it changed, so a view only has to update those
+ * cells once the action returns (see getChangedCount and getChangedCell).
+ *
+ * The number of covered safe tiles and correctly flagged mines are kept up to
+ * date as cells change, so checking for a victory takes constant time. Setting
+ * the minesweeper.verify system property (or calling setVerifyCounters) checks
+ * the counters against a full scan of the board after every action.
+ *
+ * Boards are generated from a 64-bit seed, split into one generator placing the
+ * mines and one moving a mine away from the first click. A game is reproduced
+ * exactly by its width, height, number of mines, seed and moves. Large boards
+ * are generated on the common ForkJoinPool (see BoardGenerator).
+ *
+ * @author Kanishka Ragula
+ *
+ */
+public class MineBoard {
+
+	/**
+	 * Outcome of a reveal or flag action
+	 */
+	public enum Result {
+		/** Nothing changed (out of bounds, uncovered, flagged, or game over) */
+		IGNORED,
+		/** One or more tiles were uncovered */
+		REVEALED,
+		/** A flag was placed */
+		FLAGGED,
+		/** A flag was removed */
+		UNFLAGGED,
+		/** A mine was uncovered and the game is lost */
+		EXPLODED,
+		/** The last safe tile was uncovered and the game is won */
+		WON
+	}
+
+	/** Value of a tile with a mine under it */
+	public static final byte MINE = 9;
+	/** Value of the mine that lost the game */
+	public static final byte TRIPPED = 10;
+	/** Bits of a cell holding its value */
+	public static final byte VALUE = 0x0F;
+	/** Bit set when a cell is flagged */
+	public static final byte FLAGGED = 0x10;
+	/** Bit set when a cell is covered */
+	public static final byte COVERED = 0x20;
+
+	// Starting size of the list of changed cells
+	private static final int INITIAL_CHANGED = 64;
+
+	// Whether every action checks the counters against the board. For debugging
+	private static boolean verifyCounters = Boolean.getBoolean("minesweeper.verify");
+
+	private long seed;
+	private boolean generated;
+	private SplittableRandom mineRandom;
+	private SplittableRandom safeRandom;
+	private int mines;
+	private int[] mineCells;
+	private byte[] cells;
+	private int[] changed;
+	private int numChanged;
+	private int width;
+	private int height;
+	private int numFlags;
+	private int coveredSafe;
+	private int correctFlags;
+	private int moves;
+	private boolean firstMove;
+	private boolean over;
+	private boolean won;
+
+	/**
+	 * Generates a new random board of the given width, height and mines.
+	 *
+	 * @param width    Width of the board (cannot be below 8).
+	 * @param height   Height of the board (cannot be below 8).
+	 * @param numMines Number of mines in game (cannot be less than 10 or greater
+	 *                 than w*h-10
+	 */
+	public MineBoard(int width, int height, int numMines) {
+		this(width, height, numMines, newSeed());
+	}
+
+	/**
+	 * Tells whether a board generated with the given width, height and mines has
+	 * exactly them, rather than the nearest ones the restrictions allow. Boards
+	 * read from a save may have others
+	 *
+	 * @param width    Width of the board
+	 * @param height   Height of the board
+	 * @param numMines Number of mines
+	 * @return Whether the restrictions leave them as they are
+	 */
+	public static boolean isAllowed(int width, int height, int numMines) {
+		return width >= 8 && height >= 8 && numMines >= 10 && numMines < (long) width * height;
+	}
+
+	/**
+	 * @param side Width or height asked for
+	 * @return The width or height a new board is given for it
+	 */
+	static int allowedSide(int side) {
+		return side < 8 ? 8 : side;
+	}
+
+	/**
+	 * @param width    Width of the board, as restricted
+	 * @param height   Height of the board, as restricted
+	 * @param numMines Number of mines asked for
+	 * @return The number of mines a new board of that size is given for it
+	 */
+	static int allowedMines(int width, int height, int numMines) {
+		if (numMines >= width * height) {
+			return width * height - 10;
+		} else if (numMines < 10) {
+			return 10;
+		}
+		return numMines;
+	}
+
+	/**
+	 * Generates the board of the given width, height and mines for a seed. The
+	 * same arguments always give the same board.
+	 *
+	 * @param width    Width of the board (cannot be below 8).
+	 * @param height   Height of the board (cannot be below 8).
+	 * @param numMines Number of mines in game (cannot be less than 10 or greater
+	 *                 than w*h-10
+	 * @param seed     Seed the mines are placed from
+	 */
+	public MineBoard(int width, int height, int numMines, long seed) {
+		// Restrictions on the height, width, and number of mines of the game
+		int h = allowedSide(height);
+		int w = allowedSide(width);
+		mines = allowedMines(w, h, numMines);
+
+		this.width = w;
+		this.height = h;
+		cells = new byte[w * h];
+		changed = new int[INITIAL_CHANGED];
+		mineCells = new int[mines];
+		reset(seed);
+	}
+
+	/**
+	 * Creates a board from a pre-made set of tiles (used when loading a save)
+	 *
+	 * @param tiles     Tiles of the board. Missing (null) tiles are filled in with
+	 *                  the number of their neighboring mines
+	 * @param firstMove Whether the next reveal is protected from hitting a mine
+	 */
+	public MineBoard(Tile[][] tiles, boolean firstMove) {
+		this(tiles[0].length, tiles.length, toCells(tiles), firstMove);
+	}
+
+	/**
+	 * Creates a board from pre-made packed cells (used when loading a save). The
+	 * board takes ownership of the array
+	 *
+	 * @param width     Width of the board
+	 * @param height    Height of the board
+	 * @param cells     Packed cells of the board, read row by row
+	 * @param firstMove Whether the next reveal is protected from hitting a mine
+	 * @throws IllegalArgumentException If there are not width * height cells
+	 */
+	public MineBoard(int width, int height, byte[] cells, boolean firstMove) {
+		if (width <= 0 || height <= 0 || cells.length != width * height) {
+			throw new IllegalArgumentException("Expected " + width + "x" + height + " cells, got " 
+					+ cells.length);
+		}
+		this.width = width;
+		this.height = height;
+		this.cells = cells;
+		changed = new int[INITIAL_CHANGED];
+		setSeed(newSeed());
+		generated = false;
+		over = false;
+		won = false;
+		this.firstMove = firstMove;
+
+		int[] counters = scanCounters();
+		numFlags = counters[0];
+		coveredSafe = counters[1];
+		correctFlags = counters[2];
+
+		// The mine that lost a game still counts as one of its mines
+		mines = counters[3];
+		mineCells = new int[mines];
+		int numMines = 0;
+		for (int i = 0; numMines < mines; i++) {
+			if ((cells[i] & VALUE) == TRIPPED) {
+				over = true;
+			}
+			if (isMine(i) || (cells[i] & VALUE) == TRIPPED) {
+				mineCells[numMines++] = i;
+			}
+		}
+
+		// A saved game that was already won stays won
+		if (!over && coveredSafe == 0) {
+			over = true;
+			won = true;
+		}
+
+		// A save with uncovered tiles has had its first move, whatever it says
+		for (int i = 0; this.firstMove && i < cells.length; i++) {
+			if ((cells[i] & COVERED) == 0)
+				this.firstMove = false;
+		}
+	}
+
+	/**
+	 * Packs a 2d array of tiles into cells, filling in missing (null) tiles with
+	 * the number of their neighboring mines
+	 *
+	 * @param tiles Tiles of the board
+	 * @return Packed cells, read row by row
+	 */
+	private static byte[] toCells(Tile[][] tiles) {
+		int width = tiles[0].length;
+		byte[] cells = new byte[tiles.length * width];
+		for (int i = 0; i < tiles.length; i++) {
+			for (int j = 0; j < width; j++) {
+				if (tiles[i][j] != null) {
+					cells[i * width + j] = tiles[i][j].toCell();
+				}
+			}
+		}
+
+		// Fill in the missing tiles once every mine is known
+		for (int i = 0; i < tiles.length; i++) {
+			for (int j = 0; j < width; j++) {
+				if (tiles[i][j] == null) {
+					int count = 0;
+					for (int r = Math.max(i - 1, 0); r <= Math.min(i + 1, tiles.length - 1); r++) {
+						for (int c = Math.max(j - 1, 0); c <= Math.min(j + 1, width - 1); c++) {
+							if (tiles[r][c] != null && (cells[r * width + c] & VALUE) == MINE)
+								count++;
+						}
+					}
+					cells[i * width + j] = (byte) (COVERED | count);
+				}
+			}
+		}
+		return cells;
+	}
+
+	/**
+	 * @return A new seed, different for every board
+	 */
+	private static long newSeed() {
+		return new SplittableRandom().nextLong();
+	}
+
+	/**
+	 * Sets the seed of the board and splits it into the generators placing and
+	 * moving mines
+	 *
+	 * @param seed Seed of the board
+	 */
+	void setSeed(long seed) {
+		this.seed = seed;
+		SplittableRandom root = new SplittableRandom(seed);
+		mineRandom = root.split();
+		safeRandom = root.split();
+	}
+
+	/**
+	 * Resets the board to a new randomized board of the same dimensions.
+	 */
+	public void reset() {
+		reset(newSeed());
+	}
+
+	/**
+	 * Resets the board to the board of the same dimensions generated from a seed.
+	 *
+	 * @param seed Seed the mines are placed from
+	 */
+	public void reset(long seed) {
+		setSeed(seed);
+		// A loaded board of a size the seed alone cannot give back is saved whole
+		generated = isAllowed(width, height, mines);
+		firstMove = true;
+		over = false;
+		won = false;
+		numFlags = 0;
+		numChanged = 0;
+		moves = 0;
+		coveredSafe = cells.length - mines;
+		correctFlags = 0;
+
+		long start = Metrics.ENABLED ? System.nanoTime() : 0;
+		BoardGenerator.generate(cells, width, mineCells, mines, mineRandom, ForkJoinPool.commonPool());
+		if (Metrics.ENABLED)
+			Metrics.GENERATE.recordSince(start);
+		if (verifyCounters)
+			verifyCounters();
+	}
+
+	/**
+	 * Creates the numbers of a board in one pass over its mines: every tile
+	 * without a mine around a mine has its value increased by one. The values of
+	 * the tiles without mines must start at 0.
+	 *
+	 * @param cells     Packed cells of the board
+	 * @param width     Width of the board
+	 * @param mineCells Indices of the mines on the board
+	 * @param numMines  Number of mines in mineCells
+	 */
+	static void countNeighbors(byte[] cells, int width, int[] mineCells, int numMines) {
+		int height = cells.length / width;
+		for (int m = 0; m < numMines; m++) {
+			int cell = mineCells[m];
+			int r = cell / width;
+			int c = cell - r * width;
+			if (r > 0 && r < height - 1 && c > 0 && c < width - 1) {
+				// Away from the edges every neighbor is on the board
+				increment(cells, cell - width - 1);
+				increment(cells, cell - width);
+				increment(cells, cell - width + 1);
+				increment(cells, cell - 1);
+				increment(cells, cell + 1);
+				increment(cells, cell + width - 1);
+				increment(cells, cell + width);
+				increment(cells, cell + width + 1);
+				continue;
+			}
+			int rowEnd = Math.min(r + 1, height - 1);
+			int colEnd = Math.min(c + 1, width - 1);
+			for (int i = Math.max(r - 1, 0); i <= rowEnd; i++) {
+				for (int j = Math.max(c - 1, 0); j <= colEnd; j++) {
+					increment(cells, i * width + j);
+				}
+			}
+		}
+	}
+
+	/**
+	 * Adds one to the value of a tile unless it is a mine
+	 *
+	 * @param cells Packed cells of the board
+	 * @param cell  Index of the tile
+	 */
+	private static void increment(byte[] cells, int cell) {
+		if ((cells[cell] & VALUE) != MINE) {
+			cells[cell]++;
+		}
+	}
+
+	/**
+	 * Uncovers a tile. Uncovering an empty tile also uncovers its neighbors,
+	 * uncovering a mine loses the game unless it is the first move, in which case
+	 * the mine is moved elsewhere first.
+	 *
+	 * @param r Row of the tile
+	 * @param c Column of the tile
+	 * @return Outcome of the reveal
+	 */
+	public Result reveal(int r, int c) {
+		numChanged = 0;
+		if (over || !inBounds(r, c)) {
+			return Result.IGNORED;
+		}
+		int cell = index(r, c);
+		if ((cells[cell] & (COVERED | FLAGGED)) != COVERED) {
+			return Result.IGNORED;
+		}
+		moves++;
+
+		if (isMine(cell)) {
+			if (firstMove) {
+				// It is the user's first click, it cannot be a mine clicked
+				relocateMine(r, c);
+			} else {
+				// Fail the user if they click a mine
+				cells[cell] = TRIPPED;
+				record(cell);
+				over = true;
+				uncoverAll();
+				if (verifyCounters)
+					verifyCounters();
+				return Result.EXPLODED;
+			}
+		}
+		firstMove = false;
+
+		uncover(cell);
+		boolean victory = checkVictory();
+		if (verifyCounters)
+			verifyCounters();
+		return victory ? Result.WON : Result.REVEALED;
+	}
+
+	/**
+	 * Places or removes a flag on a covered tile
+	 *
+	 * @param r Row of the tile
+	 * @param c Column of the tile
+	 * @return FLAGGED or UNFLAGGED, or IGNORED if the tile cannot be flagged
+	 */
+	public Result toggleFlag(int r, int c) {
+		numChanged = 0;
+		if (over || !inBounds(r, c) || (cells[index(r, c)] & COVERED) == 0) {
+			return Result.IGNORED;
+		}
+		int cell = index(r, c);
+		moves++;
+		cells[cell] ^= FLAGGED;
+		record(cell);
+		int delta = (cells[cell] & FLAGGED) == 0 ? -1 : 1;
+		numFlags += delta;
+		if (isMine(cell))
+			correctFlags += delta;
+		if (verifyCounters)
+			verifyCounters();
+		return delta < 0 ? Result.UNFLAGGED : Result.FLAGGED;
+	}
+
+	/**
+	 * Adds a cell to the list of cells changed by the current action, growing the
+	 * list if needed. The list is kept between actions, so it only grows until it
+	 * fits the largest action seen
+	 *
+	 * @param cell Index of the changed cell
+	 */
+	private void record(int cell) {
+		if (numChanged == changed.length) {
+			changed = Arrays.copyOf(changed, Math.min(cells.length, changed.length * 2));
+		}
+		changed[numChanged++] = cell;
+	}
+
+	/**
+	 * Uncovers a tile and, if it is empty, the whole opening around it. The list
+	 * of changed cells doubles as the queue of tiles still to be expanded, so the
+	 * fill needs no recursion and, once the list has grown, no allocation.
+	 *
+	 * @param start Index of the tile
+	 */
+	private void uncover(int start) {
+		int head = numChanged;
+		cells[start] &= ~COVERED;
+		record(start);
+		coveredSafe--;
+
+		while (head < numChanged) {
+			int cell = changed[head++];
+
+			// Only empty squares uncover their neighbors
+			if (cells[cell] != 0)
+				continue;
+
+			int r = cell / width;
+			int c = cell % width;
+			int rowEnd = Math.min(r + 1, height - 1);
+			int colEnd = Math.min(c + 1, width - 1);
+			for (int i = Math.max(r - 1, 0); i <= rowEnd; i++) {
+				for (int j = Math.max(c - 1, 0); j <= colEnd; j++) {
+					int neighbor = i * width + j;
+					if ((cells[neighbor] & (COVERED | FLAGGED)) == COVERED) {
+						cells[neighbor] &= ~COVERED;
+						record(neighbor);
+						coveredSafe--;
+					}
+				}
+			}
+		}
+	}
+
+	/**
+	 * Moves the mine at the given tile to a random covered tile without a mine and
+	 * updates the numbers around both
+	 *
+	 * @param r Row of the mine
+	 * @param c Column of the mine
+	 */
+	private void relocateMine(int r, int c) {
+		int newMine = randomSafeCell();
+		for (int i = 0; i < mines; i++) {
+			if (mineCells[i] == index(r, c)) {
+				mineCells[i] = newMine;
+			}
+		}
+		cells[newMine] = (byte) ((cells[newMine] & ~VALUE) | MINE);
+		cells[index(r, c)] &= ~VALUE;
+
+		// Both tiles are covered, so only a flag on the new mine changes the counters
+		if ((cells[newMine] & FLAGGED) != 0)
+			correctFlags++;
+
+		// Recount the tiles around the old and new mine
+		for (int i = -1; i <= 1; i++) {
+			for (int j = -1; j <= 1; j++) {
+				recount(r + i, c + j);
+				recount(newMine / width + i, newMine % width + j);
+			}
+		}
+	}
+
+	/**
+	 * Picks a random covered tile without a mine. Random tiles are tried while at
+	 * least half the board is covered and safe, otherwise a random covered safe
+	 * tile is counted to directly
+	 *
+	 * @return Index of the tile
+	 */
+	private int randomSafeCell() {
+		if (cells.length - coveredSafe <= cells.length / 2) {
+			int cell = safeRandom.nextInt(cells.length);
+			while (!isCoveredSafe(cell)) {
+				cell = safeRandom.nextInt(cells.length);
+			}
+			return cell;
+		}
+
+		int skip = safeRandom.nextInt(coveredSafe);
+		int cell = 0;
+		while (!isCoveredSafe(cell) || skip-- > 0) {
+			cell++;
+		}
+		return cell;
+	}
+
+	/**
+	 * @param cell Index of the tile
+	 * @return Whether the tile is covered and has no mine
+	 */
+	private boolean isCoveredSafe(int cell) {
+		return (cells[cell] & COVERED) != 0 && !isMine(cell);
+	}
+
+	/**
+	 * Recomputes the number of a tile that is not a mine
+	 *
+	 * @param r Row of the tile
+	 * @param c Column of the tile
+	 */
+	private void recount(int r, int c) {
+		if (inBounds(r, c) && !isMine(index(r, c))) {
+			cells[index(r, c)] = (byte) ((cells[index(r, c)] & ~VALUE) | numNeighboringMines(r, c));
+		}
+	}
+
+	/**
+	 * Uncovers all tiles that are not flagged when a player loses
+	 */
+	private void uncoverAll() {
+		for (int i = 0; i < cells.length; i++) {
+			if ((cells[i] & (COVERED | FLAGGED)) == COVERED) {
+				cells[i] &= ~COVERED;
+				record(i);
+				if (!isMine(i))
+					coveredSafe--;
+			}
+		}
+	}
+
+	/**
+	 * Checks whether all tiles except for the mines have been uncovered and, if so,
+	 * flags all of the mines and ends the game
+	 *
+	 * @return Whether the game has just been won
+	 */
+	private boolean checkVictory() {
+		if (coveredSafe != 0)
+			return false;
+
+		for (int m : mineCells) {
+			if ((cells[m] & FLAGGED) == 0) {
+				cells[m] |= FLAGGED;
+				record(m);
+			}
+		}
+		numFlags = mines;
+		correctFlags = mines;
+		over = true;
+		won = true;
+		return true;
+	}
+
+	/**
+	 * Counts the flags, covered safe tiles, correctly flagged mines and mines by
+	 * scanning the whole board
+	 *
+	 * @return The number of flags, covered safe tiles, correct flags and mines
+	 *         (including a tripped one), in order
+	 */
+	private int[] scanCounters() {
+		int[] counters = new int[4];
+		for (int i = 0; i < cells.length; i++) {
+			int value = cells[i] & VALUE;
+			if ((cells[i] & FLAGGED) != 0) {
+				counters[0]++;
+				if (value == MINE)
+					counters[2]++;
+			}
+			if ((cells[i] & COVERED) != 0 && value != MINE)
+				counters[1]++;
+			if (value >= MINE)
+				counters[3]++;
+		}
+		return counters;
+	}
+
+	/**
+	 * Checks the incrementally updated counters against a full scan of the board.
+	 * For debugging
+	 *
+	 * @throws IllegalStateException If a counter does not match the board
+	 */
+	public void verifyCounters() {
+		int[] counters = scanCounters();
+		if (counters[0] != numFlags || counters[1] != coveredSafe || counters[2] != correctFlags) {
+			throw new IllegalStateException("Counters out of sync: flags " + numFlags + "/" + counters[0]
+					+ ", covered safe " + coveredSafe + "/" + counters[1] + ", correct flags "
+					+ correctFlags + "/" + counters[2]);
+		}
+	}
+
+	/**
+	 * Turns checking the counters against the board after every action on or off.
+	 * For debugging, this makes every action scan the whole board
+	 *
+	 * @param verify Whether to check the counters
+	 */
+	public static void setVerifyCounters(boolean verify) {
+		verifyCounters = verify;
+	}
+
+	/**
+	 * Prints out the number of neighboring mines around a given tile
+	 *
+	 * @param r Row of the tile
+	 * @param c Column of the tile
+	 * @return Number of neighboring mines
+	 */
+	private int numNeighboringMines(int r, int c) {
+		int returnVal = 0;
+
+		for (int i = -1; i <= 1; i++) {
+			for (int j = -1; j <= 1; j++) {
+				if (!(i == 0 && j == 0) && inBounds(r + i, c + j) && isMine(index(r + i, c + j))) {
+					returnVal += 1;
+				}
+			}
+		}
+		return returnVal;
+	}
+
+	/**
+	 * @param cell Index of the tile
+	 * @return Whether the tile is a mine
+	 */
+	private boolean isMine(int cell) {
+		return (cells[cell] & VALUE) == MINE;
+	}
+
+	/**
+	 * @param r Row of the tile
+	 * @param c Column of the tile
+	 * @return Whether the coordinates are on the board
+	 */
+	public boolean inBounds(int r, int c) {
+		return r >= 0 && r < height && c >= 0 && c < width;
+	}
+
+	/**
+	 * @param r Row of the tile
+	 * @param c Column of the tile
+	 * @return Index of the tile when the board is read row by row
+	 */
+	public int index(int r, int c) {
+		return r * width + c;
+	}
+
+	/**
+	 * @param r Row of the tile
+	 * @param c Column of the tile
+	 * @return Packed value and state of the tile
+	 */
+	public byte getCell(int r, int c) {
+		return cells[index(r, c)];
+	}
+
+	/**
+	 * @param cell Index of the tile
+	 * @return Packed value and state of the tile
+	 */
+	public byte getCell(int cell) {
+		return cells[cell];
+	}
+
+	/**
+	 * @return Number of cells changed by the last reveal or flag action
+	 */
+	public int getChangedCount() {
+		return numChanged;
+	}
+
+	/**
+	 * @param i Position in the list of changed cells, below getChangedCount
+	 * @return Index of a cell changed by the last reveal or flag action
+	 */
+	public int getChangedCell(int i) {
+		return changed[i];
+	}
+
+	/**
+	 * @param r Row of the tile
+	 * @param c Column of the tile
+	 * @return A copy of the tile at the given coordinates
+	 */
+	public Tile getTile(int r, int c) {
+		return Tile.fromCell(cells[index(r, c)]);
+	}
+
+	/**
+	 * @return Width of the board (number of columns)
+	 */
+	public int getWidth() {
+		return width;
+	}
+
+	/**
+	 * @return Height of the board (number of rows)
+	 */
+	public int getHeight() {
+		return height;
+	}
+
+	/**
+	 * @return Total number of mines on the board
+	 */
+	public int getMines() {
+		return mines;
+	}
+
+	/**
+	 * @return Number of flags placed on the board
+	 */
+	public int getNumFlags() {
+		return numFlags;
+	}
+
+	/**
+	 * @return Number of tiles without a mine that are still covered
+	 */
+	public int getCoveredSafe() {
+		return coveredSafe;
+	}
+
+	/**
+	 * @return Number of flags placed on mines
+	 */
+	public int getCorrectFlags() {
+		return correctFlags;
+	}
+
+	/**
+	 * Returns the number of mines that haven't been flagged. If a user has
+	 * erroneously put a flag on a tile not a mine, that counts as a mine since the
+	 * user believes it is one.
+	 *
+	 * @return Number of unflagged mines.
+	 */
+	public int getNumMines() {
+		return Math.max(0, mines - numFlags);
+	}
+
+	/**
+	 * @return Seed of the board. For boards read from a save without one, a
+	 *         random seed used to move the mine of the first click
+	 */
+	public long getSeed() {
+		return seed;
+	}
+
+	/**
+	 * @return Whether the mines were placed from the seed, rather than read from
+	 *         a save. The first click may have moved one since
+	 */
+	public boolean isGenerated() {
+		return generated;
+	}
+
+	/**
+	 * @return Number of reveals and flags that changed the board since it was
+	 *         generated
+	 */
+	public int getMoves() {
+		return moves;
+	}
+
+	/**
+	 * Sets the number of moves made on a board read from a save
+	 *
+	 * @param moves Number of moves made before the board was saved
+	 */
+	void setMoves(int moves) {
+		this.moves = moves;
+	}
+
+	/**
+	 * @return Whether the next reveal is protected from hitting a mine
+	 */
+	public boolean isFirstMove() {
+		return firstMove;
+	}
+
+	/**
+	 * @return Whether the game has ended, either won or lost
+	 */
+	public boolean isOver() {
+		return over;
+	}
+
+	/**
+	 * @return Whether the game has been won
+	 */
+	public boolean isWon() {
+		return won;
+	}
+
+}
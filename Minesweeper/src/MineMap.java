@@ -1,25 +1,53 @@
+import java.awt.BorderLayout;
+import java.awt.Cursor;
 import java.awt.Dimension;
-import java.awt.Graphics;
 import java.awt.GridLayout;
-import java.util.HashSet;
-import java.util.Random;
-import java.awt.Point;
+import java.awt.Rectangle;
 import java.awt.event.ActionEvent;
 import java.awt.event.ActionListener;
-import java.io.BufferedWriter;
+import java.awt.event.MouseAdapter;
+import java.awt.event.MouseEvent;
 import java.io.File;
-import java.io.FileWriter;
 import java.io.IOException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
 import javax.swing.JPanel;
 import javax.swing.JFrame;
 import javax.swing.JLabel;
 import javax.swing.JOptionPane;
-import javax.swing.ImageIcon;
 import javax.swing.JButton;
+import javax.swing.SwingWorker;
+import javax.swing.Timer;
 
 /**
  * MineMap is the JPanel that has MineSweeper on it. This can be used anywhere
- * as a Minesweeper widget. Follows the standard rules of Minesweeper.
+ * as a Minesweeper widget. Follows the standard rules of Minesweeper, which
+ * are kept in the MineBoard it renders.
+ * 
+ * The board is either shown as one button per tile or, for painted maps, as a
+ * single BoardCanvas that draws every tile itself. Painted maps are meant for
+ * large custom games, where thousands of buttons make Swing unusable.
+ * 
+ * Every move is saved as it is made in a GameJournal, so "Save Game" only has to
+ * write a fresh snapshot and "Load Game" brings back the last move made. Maps
+ * save to the files directory unless they are given their own journal, or none,
+ * in which case moves are not saved and "Save Game" and "Load Game" do nothing.
+ * 
+ * In no-guess mode, the first click swaps the board for one that can be won
+ * from that click without guessing, found by the NoGuessGenerator on a
+ * background thread while clicks are ignored. The click keeps the random board
+ * if none is found in time, or if the board is too large to look.
+ * 
+ * Every interaction can also be recorded by a GameRecorder, started for every
+ * map saving to the files directory when the minesweeper.record property names
+ * a directory, and played back on a map by a GameReplay.
+ * 
+ * Clicks, saves and loads are timed in the Metrics when they are enabled.
+ * 
+ * Save Game and Load Game do their file work on a background thread. A save
+ * copies the board and lets the game go on while the copy is written; a load
+ * reads the save while clicks are ignored and shows it once it is read. Either
+ * one says so in the label if it takes long enough to notice.
  * 
  * @author Kanishka Ragula
  *
@@ -28,16 +56,31 @@ public class MineMap extends JPanel {
 
 	// Eclipse wanted this. Don't know what it is
 	private static final long serialVersionUID = -6231029321013837603L;
-	private Random randomInts;
-	private int mines;
-	private HashSet<Point> mineLocations;
+	// Where the game and the moves since are saved, and where older versions saved it
+	private static final File SAVE_FILE = new File("files/save.bin");
+	private static final File JOURNAL_FILE = new File("files/save.journal");
+	private static final File TEXT_SAVE_FILE = new File("files/save.txt");
+	// Milliseconds a save or load runs before the label says so
+	private static final int BUSY_DELAY = 200;
+	// Directory every map records its session to, if set
+	private static final String RECORD_DIR = System.getProperty("minesweeper.record");
+	private MineBoard board;
+	private GameJournal journal;
+	private GameRecorder recorder;
 	private JButton[][] displayVals;
-	private boolean notRunning, victoryCalled;
+	private BoardCanvas canvas;
+	private DirtyRegion dirty;
+	private boolean victoryCalled;
 	private boolean flagMode;
+	private boolean noGuess;
+	private boolean quiet;
+	// Save, load or search running in the background, and whether it ignores clicks
+	private SwingWorker<?, ?> io;
+	private boolean loading;
+	private Timer busyTimer;
+	// Set once the map is no longer used, so a save or load still running is dropped
+	private boolean disposed;
 	private JFrame parent;
-	private boolean firstClick;
-	private Tile[][] board;
-	private int numFlags;
 	private JLabel minesLabel;
 
 	/**
@@ -54,323 +97,418 @@ public class MineMap extends JPanel {
 	 * @param minesLabel Label to be updated whenever a mine is flagged
 	 */
 	public MineMap(int width, int height, int numMines, JFrame parent, JLabel minesLabel) {
-		super();
-		int h;
-		int w;
+		this(width, height, numMines, parent, minesLabel, false);
+	}
 
-		// Restrictions on the height, width, and number of mines of the game
-		if (height < 8) {
-			h = 8;
-		} else {
-			h = height;
-		}
-		if (width < 8) {
-			w = 8;
-		} else {
-			w = width;
-		}
-		if (numMines >= w * h) {
-			mines = w * h - 10;
-		} else if (numMines < 10) {
-			mines = 10;
-		} else {
-			mines = numMines;
+	/**
+	 * Generates a new mine map like the other constructor, optionally painting the
+	 * tiles instead of using a button for each of them.
+	 * 
+	 * @param width      Width of the desired mine map (cannot be below 8).
+	 * @param height     Height of the desired mine map (cannot be below 8).
+	 * @param numMines   Number of mines in game (cannot be less than 10 or greater
+	 *                   than w*h-10
+	 * @param parent     JFrame this will be put on so that update can be called
+	 *                   when an event happens
+	 * @param minesLabel Label to be updated whenever a mine is flagged
+	 * @param painted    Whether the tiles are painted on a single canvas
+	 */
+	public MineMap(int width, int height, int numMines, JFrame parent, JLabel minesLabel,
+			boolean painted) {
+		this(width, height, numMines, parent, minesLabel, painted,
+				new GameJournal(SAVE_FILE, JOURNAL_FILE));
+
+		if (RECORD_DIR != null) {
+			try {
+				startRecording(new File(RECORD_DIR, "game-" + System.currentTimeMillis() + ".rec"));
+			} catch (IOException e) {
+				e.printStackTrace();
+			}
 		}
+	}
+
+	/**
+	 * Generates a new mine map like the other constructors, saving the game to the
+	 * given journal instead of the files directory. The map is only recorded if
+	 * startRecording is called, whatever the minesweeper.record property says.
+	 * 
+	 * @param width      Width of the desired mine map (cannot be below 8).
+	 * @param height     Height of the desired mine map (cannot be below 8).
+	 * @param numMines   Number of mines in game (cannot be less than 10 or greater
+	 *                   than w*h-10
+	 * @param parent     JFrame this will be put on so that update can be called
+	 *                   when an event happens
+	 * @param minesLabel Label to be updated whenever a mine is flagged
+	 * @param painted    Whether the tiles are painted on a single canvas
+	 * @param journal    Journal the game is saved to, or null to not save it
+	 */
+	public MineMap(int width, int height, int numMines, JFrame parent, JLabel minesLabel,
+			boolean painted, GameJournal journal) {
+		super();
 
-		// Create a new board of the mines
-		board = new Tile[h][w];
+		// The board applies the restrictions on the size and number of mines
+		board = BoardPool.shared().take(width, height, numMines);
 
 		// Instantiate stuff
 		flagMode = false;
-		notRunning = false;
 		victoryCalled = false;
-		firstClick = true;
-		numFlags = 0;
-		randomInts = new Random();
 		this.parent = parent;
 		this.minesLabel = minesLabel;
+		this.journal = journal;
 
-		reset();
+		if (painted) {
+			initializeCanvas();
+		}
+		initializeView();
 	}
 
 	/**
-	 * Creates a new Mine Map with random mines and adds the individual number
-	 * values for each tile
+	 * Prints the generated map to the console. For debugging purposes
 	 */
-	private void setupMap() {
-
-		// Create 10 unique Mine Locations
-		while (mineLocations.size() < mines) {
-			mineLocations.add(getRandPoint());
+	@SuppressWarnings("unused")
+	private void printMap() {
+		for (int i = 0; i < board.getHeight(); i++) {
+			for (int j = 0; j < board.getWidth(); j++) {
+				System.out.print(Tile.valueOf(board.getCell(i, j)));
+			}
+			System.out.println();
 		}
+	}
 
-		// Add each of those mines to the board
-		for (Point p : mineLocations) {
-			board[(int) p.getX()][(int) p.getY()] = new Tile("M");
-		}
+	/**
+	 * Creates the canvas for a painted map and turns clicks on it into clicks on
+	 * the tile under the mouse
+	 */
+	private void initializeCanvas() {
+		canvas = new BoardCanvas(board);
+		dirty = new DirtyRegion();
+		canvas.addMouseListener(new MouseAdapter() {
+			private int pressedRow;
+			private int pressedCol;
+
+			@Override
+			public void mousePressed(MouseEvent e) {
+				pressedRow = canvas.rowAt(e.getY());
+				pressedCol = canvas.columnAt(e.getX());
+			}
 
-		// Create the rest of the mine board
-		for (int i = 0; i < board.length; i++) {
-			for (int j = 0; j < board[0].length; j++) {
-				if (getMineVal(i, j).equals("Error")) {
-					board[i][j] = new Tile(String.valueOf(numNeighboringMines(i, j)));
+			@Override
+			public void mouseReleased(MouseEvent e) {
+				// Like a button, a tile is only clicked if the mouse is released on it
+				if (canvas.rowAt(e.getY()) == pressedRow && canvas.columnAt(e.getX()) == pressedCol) {
+					handleClick(pressedRow, pressedCol);
 				}
 			}
-		}
+		});
+		super.setLayout(new BorderLayout());
+		super.add(canvas, BorderLayout.CENTER);
 	}
 
 	/**
-	 * Setup Method with some methods excluded for a pre-made mine map (used when
-	 * loading a save)
+	 * Shows the current board, either on the canvas or on a new set of buttons
 	 */
-	private void setupMapPreMade() {
-		mines = 0;
-		numFlags = 0;
-		for (int i = 0; i < board.length; i++) {
-			for (int j = 0; j < board[0].length; j++) {
-				if (getMineVal(i, j).equals("Error")) {
-					board[i][j] = new Tile(String.valueOf(numNeighboringMines(i, j)));
-				}
-				if (getMineVal(i, j).equals("M")) {
-					mineLocations.add(new Point(i, j));
-					mines += 1;
+	private void initializeView() {
+		if (canvas != null) {
+			canvas.setBoard(board);
+		} else if (displayVals != null && displayVals.length == board.getHeight()
+				&& displayVals[0].length == board.getWidth()) {
+			// A board of the same size only needs new icons on the same buttons
+			for (int i = 0; i < board.getHeight(); i++) {
+				for (int j = 0; j < board.getWidth(); j++) {
+					displayVals[i][j].setIcon(TileIcons.forCell(board.getCell(i, j)));
 				}
-				if (board[i][j].isFlagged()) {
-					numFlags += 1;
+			}
+		} else {
+			super.removeAll();
+			initializeButtons();
+			super.setLayout(new GridLayout(board.getHeight(), board.getWidth(), 0, 0));
+			for (int i = 0; i < board.getHeight(); i++) {
+				for (int j = 0; j < board.getWidth(); j++) {
+					super.add(displayVals[i][j]);
 				}
 			}
 		}
-
+		revalidate();
+		repaint();
 	}
 
 	/**
-	 * Generates a random point (for use in making mine maps)
-	 * 
-	 * @return Random Point
+	 * Creates new buttons for each tile of the board and adds the logic that button
+	 * has associated with it to the actionPerformed
 	 */
-	private Point getRandPoint() {
-		return new Point(randomInts.nextInt(board.length), randomInts.nextInt(board[0].length));
+	private void initializeButtons() {
+		displayVals = new JButton[board.getHeight()][board.getWidth()];
+		for (int i = 0; i < board.getHeight(); i++) {
+			for (int j = 0; j < board.getWidth(); j++) {
+				final int x = i;
+				final int y = j;
+
+				// Creates the button that will be rendered
+				JButton valToAdd = new JButton(TileIcons.forCell(board.getCell(x, y)));
+				valToAdd.addActionListener(new ActionListener() {
+
+					@Override
+					public void actionPerformed(ActionEvent e) {
+						handleClick(x, y);
+					}
+				});
+				displayVals[i][j] = valToAdd;
+			}
+		}
 	}
 
 	/**
-	 * Get String value associated with a Tile coordinate
+	 * Handles the logic associated with clicking a tile, either flagging it or
+	 * uncovering it depending on the flag mode, and updates the GUI with the result
 	 * 
-	 * @param r Row of the tile
-	 * @param c Column of the tile
-	 * @return String corresponding to value of the tile
+	 * @param x Row of the tile clicked
+	 * @param y Column of the tile clicked
 	 */
-	private String getMineVal(int r, int c) {
-		if (r < 0 || r >= board.length || c < 0 || c >= board[0].length || board[r][c] == null) {
-			return "Error";
-		} else {
-			return board[r][c].getTileVal();
+	private void handleClick(int x, int y) {
+		// The board is about to be replaced
+		if (loading)
+			return;
+		// Before anything is done on a new board, it can still be swapped
+		if (noGuess && !flagMode && io == null && NoGuessGenerator.canSwap(board, x, y)) {
+			findNoGuess(x, y);
+			return;
 		}
+		play(x, y);
 	}
 
 	/**
-	 * Prints out the number of neighboring mines around a given tile
+	 * Looks for a no-guess board for the first click on a copy of the board in the
+	 * background, then makes the click on the board found, or on the random board
+	 * if none was. Clicks are ignored in the meantime
 	 * 
-	 * @param x x coordinate of the 2d Array
-	 * @param y y coordinate of the 2d array
-	 * @return Number of neighboring mines
-	 */
-	private int numNeighboringMines(int x, int y) {
-		int returnVal = 0;
-
-		for (int i = -1; i <= 1; i++) {
-			for (int j = -1; j <= 1; j++) {
-				if (!(i == 0 && j == 0)) {
-					if (getMineVal(x + i, y + j).equals("M"))
-						returnVal += 1;
+	 * @param x Row of the tile clicked
+	 * @param y Column of the tile clicked
+	 */
+	private void findNoGuess(final int x, final int y) {
+		final MineBoard shown = board;
+		final int width = board.getWidth();
+		final int height = board.getHeight();
+		final int mines = board.getMines();
+		final long seed = board.getSeed();
+		io = new SwingWorker<Long, Void>() {
+			@Override
+			protected Long doInBackground() {
+				MineBoard copy = new MineBoard(width, height, mines, seed);
+				return NoGuessGenerator.firstClick(copy, x, y, ForkJoinPool.commonPool())
+						? copy.getSeed() : null;
+			}
+
+			@Override
+			protected void done() {
+				if (disposed)
+					return;
+				idle();
+				// A reset or another board made the click moot
+				if (board != shown || board.getSeed() != seed || board.getMoves() != 0)
+					return;
+				Long found = null;
+				try {
+					found = get();
+				} catch (InterruptedException e) {
+					Thread.currentThread().interrupt();
+				} catch (ExecutionException e) {
+					e.getCause().printStackTrace();
+				}
+
+				if (found == null) {
+					// Replays must not look again, where they could find a board
+					noGuessRecorded(false);
+					play(x, y);
+					noGuessRecorded(true);
+				} else {
+					// Recorded as a reset, so replays start from the board found
+					if (found != seed)
+						reset(found);
+					play(x, y);
 				}
 			}
-		}
-		return returnVal;
+		};
+		busy("Finding a board without guesses...", true);
 	}
 
 	/**
-	 * Prints the generated map to the console. For debugging purposes
+	 * Records no-guess mode being turned on or off, without changing it
+	 * 
+	 * @param on Whether it is on
 	 */
-	@SuppressWarnings("unused")
-	private void printMap() {
-		for (int i = 0; i < board.length; i++) {
-			for (int j = 0; j < board[0].length; j++) {
-				System.out.print(board[i][j].getTileVal());
+	private void noGuessRecorded(boolean on) {
+		if (recorder != null) {
+			try {
+				recorder.noGuess(on);
+			} catch (IOException e) {
+				recordingFailed(e);
 			}
-			System.out.println();
 		}
 	}
 
 	/**
-	 * Creates new buttons with the corresponding tile values under each button and
-	 * adds the logic that button has associated with it to the actionPerformed
+	 * Makes a click on the board as it is
+	 * 
+	 * @param x Row of the tile clicked
+	 * @param y Column of the tile clicked
 	 */
-	private void initializeButtons() {
-		ImageIcon buttonRender;
-		for (int i = 0; i < board.length; i++) {
-			for (int j = 0; j < board[0].length; j++) {
-				final int x = i;
-				final int y = j;
+	private void play(int x, int y) {
+		long start = Metrics.ENABLED ? System.nanoTime() : 0;
+		if (recorder != null) {
+			try {
+				recorder.click(flagMode, x, y);
+			} catch (IOException e) {
+				recordingFailed(e);
+			}
+		}
 
-				// Determine what image will be rendered onto the button
-				if (board[i][j].isFlagged()) {
-					buttonRender = new ImageIcon("files/Flagged.png");
-				} else if (board[i][j].isCovered()) {
-					buttonRender = new ImageIcon("files/Covered.png");
-				} else {
-					buttonRender = new ImageIcon("files/" + board[i][j].getTileVal() + ".png");
-				}
+		MineBoard.Result result;
+		if (flagMode) {
+			result = board.toggleFlag(x, y);
+		} else {
+			result = board.reveal(x, y);
+		}
+		if (result == MineBoard.Result.IGNORED) {
+			if (Metrics.ENABLED)
+				Metrics.IGNORED.increment();
+			return;
+		}
+		if (journal != null)
+			autosave(x, y);
 
-				// Creates the button that will be rendered
-				JButton valToAdd = new JButton(buttonRender);
-				valToAdd.addActionListener(new ActionListener() {
+		if (canvas != null) {
+			repaintChanged();
+		} else {
+			refreshChanged();
+		}
+		updateLabel();
+		if (Metrics.ENABLED) {
+			Metrics.CLICK.recordSince(start);
+			if (!flagMode)
+				Metrics.REVEALED.record(board.getChangedCount());
+			if (result == MineBoard.Result.WON)
+				Metrics.WON.increment();
+			else if (result == MineBoard.Result.EXPLODED)
+				Metrics.LOST.increment();
+		}
 
-					@Override
-					public void actionPerformed(ActionEvent e) {
-						// repaint the parent
-						parent.repaint();
-
-						// When a non-flagged covered button is clicked
-						if (board[x][y].isCovered() && !board[x][y].isFlagged() && !flagMode) {
-							board[x][y].setCovered(false);
-
-							// Uncover it if the game is running
-							if (!notRunning)
-								uncoverButtons(x, y);
-
-							// Change the value of the button's image
-							valToAdd.setIcon(new ImageIcon("files/" + board[x][y].getTileVal() + 
-									".png"));
-
-							// If the user is victorious call the dialog only once
-							if (victory() && !victoryCalled) {
-								victoryCalled = true;
-								JOptionPane.showMessageDialog(parent, "Congrats!");
-							}
-
-							repaint();
-
-							// Used for preventing a mine from being selected in the first click
-							firstClick = false;
-
-						} else if (board[x][y].isCovered() && flagMode && !notRunning) {
-							// For if the user is in a flag mode
-							if (board[x][y].isFlagged()) {
-								valToAdd.setIcon(new ImageIcon("files/Covered.png"));
-								numFlags--;
-								board[x][y].setFlagged(false);
-							} else {
-								valToAdd.setIcon(new ImageIcon("files/Flagged.png"));
-								numFlags++;
-								board[x][y].setFlagged(true);
-								parent.repaint();
-							}
-							// Update the label
-							minesLabel.setText("Number of Mines Remaining: " + 
-									String.valueOf(getNumMines()));
-							minesLabel.repaint();
-						}
-					}
-				});
-				displayVals[i][j] = valToAdd;
-			}
+		if (quiet) {
+			victoryCalled |= result == MineBoard.Result.WON;
+		} else if (result == MineBoard.Result.EXPLODED) {
+			JOptionPane.showMessageDialog(parent, "You tripped a mine, good luck next time!");
+		} else if (result == MineBoard.Result.WON && !victoryCalled) {
+			// If the user is victorious call the dialog only once
+			victoryCalled = true;
+			JOptionPane.showMessageDialog(parent, "Congrats!");
 		}
 	}
 
 	/**
-	 * Handles the logic associated with clicking either a mine or an empty square
+	 * Appends the move just made to the journal. Failing to do so does not stop the
+	 * game, the next move tries again with a new snapshot
 	 * 
-	 * @param x x coordinate of mine to handle in 2d array
-	 * @param y y coordinate of mine to handle in 2d array
-	 */
-	private void uncoverButtons(int x, int y) {
-		//Recursive method when an empty square is clicked
-		if (board[x][y].getTileVal().equals("0") &&  !board[x][y].isFlagged()) {
-			for (int i = -1; i <= 1; i++) {
-				for (int j = -1; j <= 1; j++) {
-					if (x + i >= 0 && x + i < board.length && y+j >= 0 && y + j < board[0].length) {
-						if (board[x + i][y + j].isCovered()) {
-							displayVals[x + i][y + j].doClick(0);
-							uncoverButtons(x + i, y + j);
-
-						}
-					}
-				}
-			}
-		} else if (board[x][y].getTileVal().equals("M")) {
-			//If it is the user's first click, it cannot be a mine clicked
-			if (firstClick) {
-				while (mineLocations.size() < mines + 1) {
-					mineLocations.add(getRandPoint());
-				}
-				super.removeAll();
-				mineLocations.remove(new Point(x, y));
-				board = new Tile[board.length][board[0].length];
-				displayVals = new JButton[board.length][board[0].length];
-				firstClick = false;
-				numFlags = 0;
-
-				setupMap();
-				initializeButtons();
-				parent.update(parent.getGraphics());
-				parent.setVisible(true);
-				repaint();
-				displayVals[x][y].doClick();
-			} else {
-				//Fail the user if they click a mine
-				board[x][y].setTileVal("F");
-				displayVals[x][y].setIcon(new ImageIcon("files/F.png"));
-				notRunning = true;
-				uncoverAll();
-				JOptionPane.showMessageDialog(parent, "You tripped a mine, good luck next time!");
+	 * @param x Row of the tile clicked
+	 * @param y Column of the tile clicked
+	 */
+	private void autosave(int x, int y) {
+		long start = Metrics.ENABLED ? System.nanoTime() : 0;
+		try {
+			journal.record(board, flagMode, x, y);
+			if (Metrics.ENABLED)
+				Metrics.AUTOSAVE.recordSince(start);
+		} catch (IOException e) {
+			e.printStackTrace();
+			try {
+				journal.close();
+			} catch (IOException closing) {
+				closing.printStackTrace();
 			}
 		}
-		repaint();
 	}
 
 	/**
-	 * Uncovers all buttons when a player loses
+	 * Updates the image of the buttons whose tiles were changed by the last action
 	 */
-	private void uncoverAll() {
-		for (int i = 0; i < board.length; i++) {
-			for (int j = 0; j < board[0].length; j++) {
-				if (board[i][j].isCovered())
-					displayVals[i][j].doClick(0);
-			}
+	private void refreshChanged() {
+		for (int i = 0; i < board.getChangedCount(); i++) {
+			int cell = board.getChangedCell(i);
+			displayVals[cell / board.getWidth()][cell % board.getWidth()]
+					.setIcon(TileIcons.forCell(board.getCell(cell)));
 		}
 	}
 
-	@Override
-	public void paintComponent(Graphics g) {
-		super.paintComponent(g);
-
-		super.setLayout(new GridLayout(board.length, board[0].length, 0, 0));
-		for (int i = 0; i < board.length; i++) {
-			for (int j = 0; j < board[0].length; j++) {
+	/**
+	 * Repaints only the parts of the canvas whose tiles were changed by the last
+	 * action
+	 */
+	private void repaintChanged() {
+		for (Rectangle r : dirty.coalesce(board)) {
+			canvas.repaint(r.x * TileIcons.SIZE, r.y * TileIcons.SIZE, r.width * TileIcons.SIZE,
+					r.height * TileIcons.SIZE);
+		}
+	}
 
-				super.add(displayVals[i][j]);
-			}
+	/**
+	 * Updates the label with the number of mines remaining
+	 */
+	private void updateLabel() {
+		if (minesLabel != null) {
+			minesLabel.setText("Number of Mines Remaining: " + String.valueOf(getNumMines()));
+			minesLabel.repaint();
 		}
 	}
 
 	/**
-	 * Resets the board to a new randomized board of the same dimensions.
+	 * Resets the board to a new randomized board of the same dimensions and number
+	 * of mines, taken from the BoardPool. Does nothing while a load or the search
+	 * for a no-guess board is running, since either would replace the new board
 	 */
 	public void reset() {
-		super.removeAll();
-		board = new Tile[board.length][board[0].length];
-		
-		mineLocations = new HashSet<Point>();
-		displayVals = new JButton[board.length][board[0].length];
-		firstClick = true;
-		notRunning = false;
+		if (loading)
+			return;
+		// A loaded board may have a size or mines a new board cannot, and keeps them
+		if (MineBoard.isAllowed(board.getWidth(), board.getHeight(), board.getMines())) {
+			board = BoardPool.shared().take(board.getWidth(), board.getHeight(), board.getMines());
+		} else {
+			board.reset();
+		}
+		afterReset();
+	}
+
+	/**
+	 * Resets the board to the board of the same dimensions generated from a seed,
+	 * for replays
+	 * 
+	 * @param seed Seed the mines are placed from
+	 */
+	void reset(long seed) {
+		board.reset(seed);
+		afterReset();
+	}
+
+	/**
+	 * Records a reset and shows the new board
+	 */
+	private void afterReset() {
 		victoryCalled = false;
-		numFlags = 0;
+		if (recorder != null) {
+			try {
+				recorder.reset(board.getSeed());
+			} catch (IOException e) {
+				recordingFailed(e);
+			}
+		}
 
-		setupMap();
-		initializeButtons();
-		repaint();
+		// The old game stays saved until a move is made in the new one
+		if (journal != null) {
+			try {
+				journal.close();
+			} catch (IOException e) {
+				e.printStackTrace();
+			}
+		}
 
+		initializeView();
 	}
 
 	/**
@@ -379,11 +517,11 @@ public class MineMap extends JPanel {
 	 */
 	@Override
 	public Dimension getPreferredSize() {
-		return new Dimension(16 * board[0].length, 16 * board.length);
+		return new Dimension(TileIcons.SIZE * board.getWidth(), TileIcons.SIZE * board.getHeight());
 	}
 
 	public boolean failed() {
-		return notRunning;
+		return board.isOver();
 	}
 
 	/**
@@ -394,83 +532,180 @@ public class MineMap extends JPanel {
 	 */
 	public void setFlaggedMode(boolean flagMode) {
 		this.flagMode = flagMode;
+		if (recorder != null) {
+			try {
+				recorder.flagMode(flagMode);
+			} catch (IOException e) {
+				recordingFailed(e);
+			}
+		}
 	}
 
 	/**
-	 * Determines whether or not a victory condition has been met (all tiles cleared
-	 * except for those containing mines under them
+	 * Sets whether new games can be won without guessing. Takes effect from the
+	 * first click of a game not started yet
 	 * 
-	 * @return Whether or not the player has won the game.
+	 * @param noGuess Whether the first click swaps in a no-guess board
 	 */
-	public boolean victory() {
-		int numCovered = 0;
-		for (int i = 0; i < board.length; i++) {
-			for (int j = 0; j < board[0].length; j++) {
-				if (board[i][j].isCovered())
-					numCovered++;
+	public void setNoGuess(boolean noGuess) {
+		this.noGuess = noGuess;
+		noGuessRecorded(noGuess);
+	}
+
+	/**
+	 * Starts recording every interaction with the map to a file, from the board it
+	 * shows now. Replaces any recording already going on
+	 * 
+	 * @param f File to record to
+	 * @throws IOException If the file cannot be written
+	 */
+	public void startRecording(File f) throws IOException {
+		stopRecording();
+		recorder = new GameRecorder(f);
+		recorder.board(board);
+		if (flagMode)
+			recorder.flagMode(true);
+		if (noGuess)
+			recorder.noGuess(true);
+	}
+
+	/**
+	 * Stops the recording going on, if any
+	 */
+	public void stopRecording() {
+		if (recorder == null)
+			return;
+		try {
+			recorder.close();
+		} catch (IOException e) {
+			e.printStackTrace();
+		}
+		recorder = null;
+	}
+
+	/**
+	 * Stops using the map, once it has been taken off the window: stops its
+	 * recording and closes its journal. A save still being written is cancelled,
+	 * so it cannot replace the save of a map started since, and a load still
+	 * being read is dropped. The game stays saved as of its last move
+	 */
+	public void dispose() {
+		disposed = true;
+		if (busyTimer != null)
+			busyTimer.stop();
+		stopRecording();
+		if (journal != null) {
+			try {
+				journal.close();
+			} catch (IOException e) {
+				e.printStackTrace();
 			}
 		}
-		// System.out.println("Num Covered " + numCovered);
+	}
 
-		if (numCovered != mines)
-			return false;
+	/**
+	 * Stops a recording that cannot be written anymore. The game goes on
+	 * 
+	 * @param e What went wrong
+	 */
+	private void recordingFailed(IOException e) {
+		e.printStackTrace();
+		stopRecording();
+	}
 
-		for (Point m : mineLocations) {
-			if (!board[(int) m.getX()][(int) m.getY()].isCovered()) {
-				// System.out.println("Mine at " + m.getX() + "," + m.getY());
-				return false;
+	/**
+	 * Sets whether the end of a game is announced in a dialog. Replays turn it off
+	 * so they are not held up
+	 * 
+	 * @param quiet Whether dialogs are left out
+	 */
+	void setQuiet(boolean quiet) {
+		this.quiet = quiet;
+	}
 
+	/**
+	 * Shows another board, recording it if the map is being recorded
+	 * 
+	 * @param board Board to show
+	 */
+	void setBoard(MineBoard board) {
+		this.board = board;
+		victoryCalled = false;
+		if (recorder != null) {
+			try {
+				recorder.board(board);
+			} catch (IOException e) {
+				recordingFailed(e);
 			}
 		}
+		initializeView();
+	}
 
-		for (Point m : mineLocations) {
-			displayVals[(int) m.getX()][(int) m.getY()].setIcon(new ImageIcon("files/Flagged.png"));
-			board[(int) m.getX()][(int) m.getY()].setFlagged(true);
+	/**
+	 * Determines whether or not a victory condition has been met (all tiles cleared
+	 * except for those containing mines under them
+	 * 
+	 * @return Whether or not the player has won the game.
+	 */
+	public boolean victory() {
+		return board.isWon();
+	}
 
-		}
-		numFlags = mines;
-		minesLabel.repaint();
-		notRunning = true;
-		return true;
+	/**
+	 * @return The board this map displays
+	 */
+	public MineBoard getBoard() {
+		return board;
 	}
 
 	/**
-	 * Saves the current game to a
+	 * Saves the current game to a binary snapshot and starts a new journal after
+	 * it. The snapshot is written in the background; does nothing while another
+	 * save or load is running, or if the map has no journal
 	 */
 	public void saveGame() {
-		try {
-			BufferedWriter bw = new BufferedWriter(new FileWriter(new File("files/save.txt")));
-			for (int i = 0; i < board.length; i++) {
-				for (int j = 0; j < board[0].length; j++) {
-					bw.write(board[i][j].toString());
+		if (io != null || journal == null)
+			return;
+		final long start = Metrics.ENABLED ? System.nanoTime() : 0;
+		final GameJournal.PendingSnapshot snapshot = journal.beginSnapshot(board);
+		io = new SwingWorker<Boolean, Void>() {
+			@Override
+			protected Boolean doInBackground() throws IOException {
+				return journal.writeSnapshot(snapshot);
+			}
+
+			@Override
+			protected void done() {
+				if (disposed)
+					return;
+				idle();
+				try {
+					get();
+					journal.finishSnapshot(snapshot);
+					if (Metrics.ENABLED)
+						Metrics.SAVE.recordSince(start);
+				} catch (InterruptedException e) {
+					Thread.currentThread().interrupt();
+				} catch (ExecutionException | IOException e) {
+					(e instanceof ExecutionException ? e.getCause() : e).printStackTrace();
+					JOptionPane.showMessageDialog(parent, "Error Saving, sorry!");
 				}
-				bw.newLine();
 			}
-			bw.flush();
-			bw.close();
-		} catch (IOException e) {
-			// TODO Auto-generated catch block
-			e.printStackTrace();
-			JOptionPane.showMessageDialog(parent, "Error Saving, sorry!");
-		}
+		};
+		busy("Saving game...", false);
 	}
 
 	/**
-	 * Debugging purposes
+	 * Debugging purposes, saves in the text format
 	 * 
 	 * @param f File to write to
 	 */
 	protected void saveGame(File f) {
+		long start = Metrics.ENABLED ? System.nanoTime() : 0;
 		try {
-			BufferedWriter bw = new BufferedWriter(new FileWriter(f));
-			for (int i = 0; i < board.length; i++) {
-				for (int j = 0; j < board[0].length; j++) {
-					bw.write(board[i][j].toString());
-				}
-				bw.newLine();
-			}
-			bw.flush();
-			bw.close();
+			BoardFile.writeText(board, f);
+			if (Metrics.ENABLED)
+				Metrics.SAVE.recordSince(start);
 		} catch (IOException e) {
 			// TODO Auto-generated catch block
 			e.printStackTrace();
@@ -479,24 +714,93 @@ public class MineMap extends JPanel {
 	}
 
 	/**
-	 * Loads the game from the save file that has already been created. If no file
-	 * has been created, does nothing to the existing board.
+	 * Loads the game from the last snapshot and the moves journaled after it,
+	 * falling back to a save in the old text format. If no file has been created,
+	 * does nothing to the existing board. The save is read in the background, and
+	 * the window is laid out again once it is shown; does nothing while another
+	 * save or load is running, or if the map has no journal
 	 */
 	public void loadGame() {
-		try {
-			board = Tile.tilesFromFile(new File("files/save.txt"));
-			mineLocations = new HashSet<Point>();
-			displayVals = new JButton[board.length][board[0].length];
-			notRunning = false;
-			firstClick = false;
-			super.removeAll();
-			setupMapPreMade();
-			initializeButtons();
-		} catch (IOException e) {
-			// TODO Auto-generated catch block
-			e.printStackTrace();
-			JOptionPane.showMessageDialog(parent, "Error loading, sorry!");
-		}
+		if (io != null || journal == null)
+			return;
+		final long start = Metrics.ENABLED ? System.nanoTime() : 0;
+		final boolean journaled = journal.exists();
+		io = new SwingWorker<Object, Void>() {
+			@Override
+			protected Object doInBackground() throws IOException {
+				return journaled ? journal.read() : BoardFile.read(TEXT_SAVE_FILE, false);
+			}
+
+			@Override
+			protected void done() {
+				if (disposed)
+					return;
+				idle();
+				try {
+					Object saved = get();
+					MineBoard loaded = journaled ? journal.resume((GameJournal.Saved) saved)
+							: (MineBoard) saved;
+					setBoard(loaded);
+					updateLabel();
+					if (parent != null)
+						parent.pack();
+					if (Metrics.ENABLED)
+						Metrics.LOAD.recordSince(start);
+				} catch (InterruptedException e) {
+					Thread.currentThread().interrupt();
+				} catch (ExecutionException | IOException e) {
+					(e instanceof ExecutionException ? e.getCause() : e).printStackTrace();
+					JOptionPane.showMessageDialog(parent, "Error loading, sorry!");
+				}
+			}
+		};
+		busy("Loading game...", true);
+	}
+
+	/**
+	 * Starts the save, load or search for a no-guess board, and says it is
+	 * running once it has taken long enough to notice
+	 * 
+	 * @param message What the label says in the meantime
+	 * @param load    Whether clicks are ignored until it is done
+	 */
+	private void busy(final String message, boolean load) {
+		loading = load;
+		firePropertyChange("busy", false, true);
+		busyTimer = new Timer(BUSY_DELAY, new ActionListener() {
+			@Override
+			public void actionPerformed(ActionEvent e) {
+				if (minesLabel != null)
+					minesLabel.setText(message);
+				setCursor(Cursor.getPredefinedCursor(Cursor.WAIT_CURSOR));
+			}
+		});
+		busyTimer.setRepeats(false);
+		busyTimer.start();
+		io.execute();
+	}
+
+	/**
+	 * Ends the save, load or search that was running
+	 */
+	private void idle() {
+		busyTimer.stop();
+		setCursor(null);
+		updateLabel();
+		io = null;
+		loading = false;
+		firePropertyChange("busy", true, false);
+	}
+
+	/**
+	 * Whether a save, load or search is running in the background. A "busy"
+	 * property change is fired when it starts and when it ends, so controls that
+	 * would interfere can be turned off in the meantime
+	 * 
+	 * @return Whether one is running
+	 */
+	public boolean isBusy() {
+		return io != null;
 	}
 
 	/**
@@ -505,14 +809,22 @@ public class MineMap extends JPanel {
 	 * @param fromFile File to read from
 	 */
 	protected void loadGame(File fromFile) {
+		loadGame(fromFile, board.isFirstMove());
+	}
+
+	/**
+	 * Replaces the board with one read from a save file in either format
+	 * 
+	 * @param fromFile  File to read from
+	 * @param firstMove Whether the next reveal is protected from hitting a mine,
+	 *                  for text saves
+	 */
+	private void loadGame(File fromFile, boolean firstMove) {
+		long start = Metrics.ENABLED ? System.nanoTime() : 0;
 		try {
-			board = Tile.tilesFromFile(fromFile);
-			mineLocations = new HashSet<Point>();
-			displayVals = new JButton[board.length][board[0].length];
-			notRunning = false;
-			super.removeAll();
-			setupMapPreMade();
-			initializeButtons();
+			setBoard(BoardFile.read(fromFile, firstMove));
+			if (Metrics.ENABLED)
+				Metrics.LOAD.recordSince(start);
 		} catch (IOException e) {
 			// TODO Auto-generated catch block
 			e.printStackTrace();
@@ -528,7 +840,7 @@ public class MineMap extends JPanel {
 	 * @return Number of unflagged mines.
 	 */
 	public int getNumMines() {
-		return Math.max(0, mines - numFlags);
+		return board.getNumMines();
 	}
 
 	/**
@@ -538,7 +850,11 @@ public class MineMap extends JPanel {
 	 * @param y y value
 	 */
 	protected void click(int x, int y) {
-		displayVals[x][y].doClick(0);
+		if (canvas != null) {
+			handleClick(x, y);
+		} else {
+			displayVals[x][y].doClick(0);
+		}
 	}
 
 }
@@ -0,0 +1,497 @@
+import java.util.Arrays;
+
+/**
+ * MineProbabilities works out the exact chance that each covered tile of a board
+ * is a mine, from what a Solver can see and has deduced, when there is no safe
+ * tile left to click.
+ *
+ * The covered tiles next to numbers (the frontier) are put into groups of
+ * tiles next to the same numbers, which are interchangeable. Groups are linked
+ * by the numbers they share into independent components. Each component is
+ * enumerated by backtracking over how many mines each group holds, counting the
+ * ways of each total with binomials. The components are then combined with the
+ * covered tiles away from the numbers, which hold the rest of the board's
+ * mines, weighting each total by the ways of placing those mines.
+ *
+ * Everything is counted in primitive arrays, most of which are kept from one
+ * computation to the next, and binomials come from tables.
+ *
+ * @author Kanishka Ragula
+ *
+ */
+public class MineProbabilities {
+
+	// Ways to pick k mines among n tiles, for groups of up to 8 tiles
+	private static final double[][] CHOOSE = new double[9][9];
+
+	static {
+		for (int n = 0; n < 9; n++) {
+			CHOOSE[n][0] = 1;
+			for (int k = 1; k <= n; k++) {
+				CHOOSE[n][k] = CHOOSE[n - 1][k - 1] + (k < n ? CHOOSE[n - 1][k] : 0);
+			}
+		}
+	}
+
+	private final Solver solver;
+	private final MineBoard board;
+	private final int width;
+	private final int height;
+	private final double[] probability;
+
+	// Number of each uncovered tile with unknown neighbors, or -1
+	private final int[] conOf;
+	private final int[] conNeed;
+	private final int[] conCap;
+	// Groups around each number, from conStart[c] to conStart[c + 1]
+	private final int[] conStart;
+	private final int[] conGroups;
+	private int numCons;
+
+	// Group of each frontier tile, or -1
+	private final int[] groupOf;
+	private final int[] groupSize;
+	// Numbers around each group, from groupStart[g] to groupStart[g + 1]
+	private final int[] groupStart;
+	private final int[] groupCons;
+	private final int[] assigned;
+	private int numGroups;
+
+	// Groups in the order they are enumerated, component after component
+	private final int[] order;
+	private final int[] compStart;
+	private final boolean[] visited;
+	private int numComps;
+
+	// Ways of each total, per component, and mines in each group for each total
+	private final int[] distStart;
+	private double[] dist;
+	private final int[] minesStart;
+	private double[] groupMines;
+	private int minesEnd;
+	private int interior;
+
+	private final int[] around = new int[8];
+	private final int[] aroundOther = new int[8];
+
+	/**
+	 * Creates a calculator on the board of a solver
+	 *
+	 * @param solver Solver whose board and deductions are used
+	 */
+	public MineProbabilities(Solver solver) {
+		this.solver = solver;
+		board = solver.getBoard();
+		width = board.getWidth();
+		height = board.getHeight();
+		int n = width * height;
+		probability = new double[n];
+		conOf = new int[n];
+		conNeed = new int[n];
+		conCap = new int[n];
+		conStart = new int[n + 1];
+		conGroups = new int[8 * n];
+		groupOf = new int[n];
+		groupSize = new int[n];
+		groupStart = new int[n + 1];
+		groupCons = new int[8 * n];
+		assigned = new int[n];
+		order = new int[n];
+		compStart = new int[n + 1];
+		visited = new boolean[n];
+		distStart = new int[n + 1];
+		dist = new double[64];
+		minesStart = new int[n];
+		groupMines = new double[256];
+	}
+
+	/**
+	 * Brings the solver up to date and computes the chance of every tile
+	 */
+	public void compute() {
+		solver.update();
+		Arrays.fill(probability, 0);
+		if (board.isOver())
+			return;
+		findNumbers();
+		findGroups();
+		findComponents();
+		for (int c = 0; c < numComps; c++) {
+			enumerateComponent(c);
+		}
+		combine();
+	}
+
+	/**
+	 * Numbers the uncovered tiles that still have unknown neighbors, and counts
+	 * the mines they still need
+	 */
+	private void findNumbers() {
+		numCons = 0;
+		for (int cell = 0; cell < probability.length; cell++) {
+			conOf[cell] = -1;
+			if (isCovered(cell)) {
+				if (solver.isKnownMine(cell))
+					probability[cell] = 1;
+				continue;
+			}
+			int r = cell / width;
+			int c = cell % width;
+			int unknown = 0;
+			int need = board.getCell(cell) & MineBoard.VALUE;
+			for (int i = Math.max(r - 1, 0); i <= Math.min(r + 1, height - 1); i++) {
+				for (int j = Math.max(c - 1, 0); j <= Math.min(c + 1, width - 1); j++) {
+					if (solver.isKnownMine(i * width + j))
+						need--;
+					else if (isUnknown(i * width + j))
+						unknown++;
+				}
+			}
+			if (unknown > 0) {
+				conOf[cell] = numCons;
+				conNeed[numCons] = need;
+				conCap[numCons] = unknown;
+				numCons++;
+			}
+		}
+	}
+
+	/**
+	 * Groups the frontier tiles next to the same numbers, and counts the unknown
+	 * tiles away from the numbers
+	 */
+	private void findGroups() {
+		numGroups = 0;
+		interior = 0;
+		for (int cell = 0; cell < probability.length; cell++) {
+			groupOf[cell] = -1;
+			if (!isUnknown(cell))
+				continue;
+			int numAround = numbersAround(cell, around);
+			if (numAround == 0) {
+				interior++;
+				continue;
+			}
+
+			// Tiles next to the same numbers are at most two tiles apart
+			int r = cell / width;
+			int c = cell % width;
+			int group = -1;
+			for (int i = Math.max(r - 2, 0); i <= r && group < 0; i++) {
+				for (int j = Math.max(c - 2, 0); j <= Math.min(c + 2, width - 1); j++) {
+					int other = i * width + j;
+					if (other >= cell)
+						break;
+					if (groupOf[other] >= 0 && numbersAround(other, aroundOther) == numAround
+							&& Arrays.equals(around, aroundOther)) {
+						group = groupOf[other];
+						break;
+					}
+				}
+			}
+			if (group < 0) {
+				group = numGroups++;
+				groupSize[group] = 0;
+				groupStart[group + 1] = groupStart[group] + numAround;
+				System.arraycopy(around, 0, groupCons, groupStart[group], numAround);
+			}
+			groupOf[cell] = group;
+			groupSize[group]++;
+		}
+
+		// Groups around each number, filled in the same order as counted
+		Arrays.fill(conStart, 0, numCons + 1, 0);
+		for (int i = 0; i < groupStart[numGroups]; i++) {
+			conStart[groupCons[i] + 1]++;
+		}
+		for (int c = 0; c < numCons; c++) {
+			conStart[c + 1] += conStart[c];
+		}
+		for (int g = 0; g < numGroups; g++) {
+			for (int i = groupStart[g]; i < groupStart[g + 1]; i++) {
+				conGroups[conStart[groupCons[i]]++] = g;
+			}
+		}
+		for (int c = numCons; c > 0; c--) {
+			conStart[c] = conStart[c - 1];
+		}
+		conStart[0] = 0;
+	}
+
+	/**
+	 * Lists the numbers next to a tile, in order, padding the rest with -1
+	 *
+	 * @param cell Index of an unknown tile
+	 * @param into Filled with the numbers
+	 * @return How many numbers there are
+	 */
+	private int numbersAround(int cell, int[] into) {
+		int r = cell / width;
+		int c = cell % width;
+		int count = 0;
+		for (int i = Math.max(r - 1, 0); i <= Math.min(r + 1, height - 1); i++) {
+			for (int j = Math.max(c - 1, 0); j <= Math.min(c + 1, width - 1); j++) {
+				if (conOf[i * width + j] >= 0)
+					into[count++] = conOf[i * width + j];
+			}
+		}
+		Arrays.fill(into, count, into.length, -1);
+		return count;
+	}
+
+	/**
+	 * Splits the groups into components linked by shared numbers. Each component
+	 * is listed breadth first, so the numbers of a component are closed soon
+	 * after they are opened while enumerating
+	 */
+	private void findComponents() {
+		numComps = 0;
+		Arrays.fill(visited, 0, numGroups, false);
+		int end = 0;
+		for (int g = 0; g < numGroups; g++) {
+			if (visited[g])
+				continue;
+			compStart[numComps++] = end;
+			visited[g] = true;
+			order[end++] = g;
+			for (int next = end - 1; next < end; next++) {
+				int group = order[next];
+				for (int i = groupStart[group]; i < groupStart[group + 1]; i++) {
+					int con = groupCons[i];
+					for (int j = conStart[con]; j < conStart[con + 1]; j++) {
+						if (!visited[conGroups[j]]) {
+							visited[conGroups[j]] = true;
+							order[end++] = conGroups[j];
+						}
+					}
+				}
+			}
+		}
+		compStart[numComps] = end;
+	}
+
+	/**
+	 * Counts the ways of placing each number of mines in a component, and how
+	 * many mines each group holds over those ways
+	 *
+	 * @param comp Component to enumerate
+	 */
+	private void enumerateComponent(int comp) {
+		int tiles = 0;
+		for (int i = compStart[comp]; i < compStart[comp + 1]; i++) {
+			tiles += groupSize[order[i]];
+		}
+		if (comp == 0)
+			distStart[0] = 0;
+		distStart[comp + 1] = distStart[comp] + tiles + 1;
+		if (dist.length < distStart[comp + 1])
+			dist = Arrays.copyOf(dist, Math.max(dist.length * 2, distStart[comp + 1]));
+		Arrays.fill(dist, distStart[comp], distStart[comp + 1], 0);
+
+		int start = comp == 0 ? 0 : minesEnd;
+		for (int i = compStart[comp]; i < compStart[comp + 1]; i++) {
+			minesStart[order[i]] = start + (i - compStart[comp]) * (tiles + 1);
+		}
+		int end = start + (compStart[comp + 1] - compStart[comp]) * (tiles + 1);
+		if (groupMines.length < end)
+			groupMines = Arrays.copyOf(groupMines, Math.max(groupMines.length * 2, end));
+		Arrays.fill(groupMines, start, end, 0);
+		minesEnd = end;
+
+		enumerate(comp, compStart[comp], 0, 1);
+	}
+
+	/**
+	 * @param comp A component
+	 * @return Number of tiles in the component
+	 */
+	private int tiles(int comp) {
+		return distStart[comp + 1] - distStart[comp] - 1;
+	}
+
+	/**
+	 * Tries every number of mines for a group that its numbers allow, then the
+	 * next groups, and counts each full placement
+	 *
+	 * @param comp  Component being enumerated
+	 * @param pos   Position of the group in the order
+	 * @param mines Mines placed in the groups before it
+	 * @param ways  Ways of placing those mines
+	 */
+	private void enumerate(int comp, int pos, int mines, double ways) {
+		if (pos == compStart[comp + 1]) {
+			dist[distStart[comp] + mines] += ways;
+			for (int i = compStart[comp]; i < pos; i++) {
+				groupMines[minesStart[order[i]] + mines] += ways * assigned[order[i]];
+			}
+			return;
+		}
+
+		// Every number must be left able to get the mines it still needs
+		int group = order[pos];
+		int size = groupSize[group];
+		int low = 0;
+		int high = size;
+		for (int i = groupStart[group]; i < groupStart[group + 1]; i++) {
+			int con = groupCons[i];
+			low = Math.max(low, conNeed[con] - (conCap[con] - size));
+			high = Math.min(high, conNeed[con]);
+		}
+		for (int m = low; m <= high; m++) {
+			for (int i = groupStart[group]; i < groupStart[group + 1]; i++) {
+				conNeed[groupCons[i]] -= m;
+				conCap[groupCons[i]] -= size;
+			}
+			assigned[group] = m;
+			enumerate(comp, pos + 1, mines + m, ways * CHOOSE[size][m]);
+			for (int i = groupStart[group]; i < groupStart[group + 1]; i++) {
+				conNeed[groupCons[i]] += m;
+				conCap[groupCons[i]] += size;
+			}
+		}
+	}
+
+	/**
+	 * Combines the components with the unknown tiles away from the numbers, which
+	 * hold the mines the components leave over
+	 */
+	private void combine() {
+		int left = board.getMines() - solver.getKnownMines();
+		int frontier = numComps == 0 ? 0 : distStart[numComps] - numComps;
+
+		// Ways of placing the mines left away from the numbers, for each total of
+		// the frontier, relative to the largest
+		double[] rest = new double[frontier + 1];
+		double largest = Double.NEGATIVE_INFINITY;
+		for (int k = 0; k <= frontier; k++) {
+			if (left - k >= 0 && left - k <= interior)
+				largest = Math.max(largest, BoardGenerator.logChoose(interior, left - k));
+		}
+		for (int k = 0; k <= frontier; k++) {
+			if (left - k >= 0 && left - k <= interior)
+				rest[k] = Math.exp(BoardGenerator.logChoose(interior, left - k) - largest);
+		}
+
+		// Scale each component down so the products stay in range
+		for (int c = 0; c < numComps; c++) {
+			double max = 0;
+			for (int i = distStart[c]; i < distStart[c + 1]; i++) {
+				max = Math.max(max, dist[i]);
+			}
+			for (int i = distStart[c]; i < distStart[c + 1]; i++) {
+				dist[i] /= max;
+			}
+			for (int i = compStart[c]; i < compStart[c + 1]; i++) {
+				int start = minesStart[order[i]];
+				for (int k = start; k <= start + tiles(c); k++) {
+					groupMines[k] /= max;
+				}
+			}
+		}
+
+		double[] all = convolve(-1, frontier);
+		double total = 0;
+		double interiorMines = 0;
+		for (int k = 0; k <= frontier; k++) {
+			total += all[k] * rest[k];
+			interiorMines += all[k] * rest[k] * (left - k);
+		}
+		double interiorChance = interior == 0 ? 0 : interiorMines / total / interior;
+
+		// For each total of a component, the ways of the others and the rest
+		double[] groupChance = new double[numGroups];
+		for (int c = 0; c < numComps; c++) {
+			double[] others = convolve(c, frontier);
+			double[] weight = new double[tiles(c) + 1];
+			for (int k = 0; k <= tiles(c); k++) {
+				for (int j = 0; j + k <= frontier; j++) {
+					weight[k] += others[j] * rest[j + k];
+				}
+			}
+			for (int i = compStart[c]; i < compStart[c + 1]; i++) {
+				int group = order[i];
+				double mines = 0;
+				for (int k = 0; k <= tiles(c); k++) {
+					mines += groupMines[minesStart[group] + k] * weight[k];
+				}
+				groupChance[group] = mines / total / groupSize[group];
+			}
+		}
+
+		for (int cell = 0; cell < probability.length; cell++) {
+			if (groupOf[cell] >= 0)
+				probability[cell] = groupChance[groupOf[cell]];
+			else if (isUnknown(cell))
+				probability[cell] = interiorChance;
+		}
+	}
+
+	/**
+	 * Convolves the totals of the components
+	 *
+	 * @param skip     Component left out, or -1
+	 * @param frontier Number of frontier tiles
+	 * @return Ways of each total over the components
+	 */
+	private double[] convolve(int skip, int frontier) {
+		double[] ways = new double[frontier + 1];
+		double[] next = new double[frontier + 1];
+		ways[0] = 1;
+		int reach = 0;
+		for (int c = 0; c < numComps; c++) {
+			if (c == skip)
+				continue;
+			Arrays.fill(next, 0, reach + tiles(c) + 1, 0);
+			for (int i = 0; i <= reach; i++) {
+				if (ways[i] == 0)
+					continue;
+				for (int k = 0; k <= tiles(c); k++) {
+					next[i + k] += ways[i] * dist[distStart[c] + k];
+				}
+			}
+			reach += tiles(c);
+			double[] swap = ways;
+			ways = next;
+			next = swap;
+		}
+		return ways;
+	}
+
+	/**
+	 * @param cell Index of a tile
+	 * @return Whether the tile is covered (flagged or not)
+	 */
+	private boolean isCovered(int cell) {
+		return (board.getCell(cell) & MineBoard.COVERED) != 0;
+	}
+
+	/**
+	 * @param cell Index of a tile
+	 * @return Whether the tile is covered and the solver knows nothing about it
+	 */
+	private boolean isUnknown(int cell) {
+		return isCovered(cell) && !solver.isKnownMine(cell) && !solver.isKnownSafe(cell);
+	}
+
+	/**
+	 * @param cell Index of a tile
+	 * @return Chance that the tile is a mine, as of the last computation. 0 for
+	 *         uncovered tiles
+	 */
+	public double getProbability(int cell) {
+		return probability[cell];
+	}
+
+	/**
+	 * @return The covered, unflagged tile least likely to be a mine, or -1
+	 */
+	public int getSafest() {
+		int safest = -1;
+		for (int cell = 0; cell < probability.length; cell++) {
+			if (isCovered(cell) && (board.getCell(cell) & MineBoard.FLAGGED) == 0
+					&& (safest < 0 || probability[cell] < probability[safest]))
+				safest = cell;
+		}
+		return safest;
+	}
+}
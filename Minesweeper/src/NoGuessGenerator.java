@@ -0,0 +1,194 @@
+import java.util.SplittableRandom;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Finds boards that can be won without guessing from the first click. Such a
+ * board opens on the tile clicked, and the Solver then finds a safe tile to
+ * click until every safe tile is uncovered.
+ *
+ * Candidates are boards generated from seeds derived from the seed of the
+ * board, the first one being the seed itself. They are tried in parallel, one
+ * worker per thread of the pool, each with its own board and solver that are
+ * reset for every candidate. The candidate kept is the first in the order of the
+ * seeds that works, not the first found, so a no-guess board depends only on
+ * the seed and the tile clicked, not on how many threads looked for it.
+ *
+ * A first click in a game stops looking after BUDGET_MILLIS and keeps the
+ * random board, and leaves boards of more than MAX_TILES tiles alone, where
+ * every candidate takes long to solve. The first candidate is always tried in
+ * full, so a board found once is found again from its own seed whatever the
+ * budget.
+ *
+ * @author Kanishka Ragula
+ *
+ */
+public final class NoGuessGenerator {
+
+	// Candidates tried before giving up and keeping the random board
+	private static final int MAX_CANDIDATES = 4096;
+
+	/** Most tiles a board swapped on its first click may have */
+	public static final int MAX_TILES = 1 << 16;
+	/** Longest a first click looks for a board, in milliseconds */
+	public static final long BUDGET_MILLIS = 1000;
+
+	/**
+	 * Tries candidates in order until one works or a better one is found
+	 */
+	private static class Worker implements Runnable {
+		private final MineBoard board;
+		private final Solver solver;
+		private final int row;
+		private final int col;
+		private final AtomicInteger next;
+		private final AtomicInteger best;
+		private final long start;
+		private final long budget;
+
+		Worker(MineBoard original, int row, int col, AtomicInteger next, AtomicInteger best,
+				long start, long budget) {
+			board = new MineBoard(original.getWidth(), original.getHeight(), original.getMines(),
+					original.getSeed());
+			solver = new Solver(board);
+			this.row = row;
+			this.col = col;
+			this.next = next;
+			this.best = best;
+			this.start = start;
+			this.budget = budget;
+		}
+
+		@Override
+		public void run() {
+			long seed = board.getSeed();
+			while (true) {
+				int i = next.getAndIncrement();
+				if (i >= MAX_CANDIDATES || i > best.get() || i > 0 && System.nanoTime() - start > budget)
+					return;
+				if (!solvable(board, solver, candidateSeed(seed, i), row, col))
+					continue;
+				// Keep the earliest candidate that works
+				for (int found = best.get(); i < found; found = best.get()) {
+					if (best.compareAndSet(found, i))
+						break;
+				}
+			}
+		}
+	}
+
+	private NoGuessGenerator() {
+	}
+
+	/**
+	 * Tells whether a board can be swapped for a no-guess one on its first click:
+	 * nothing has been done on it yet, it was generated from a seed and it has no
+	 * more than MAX_TILES tiles
+	 *
+	 * @param board Board about to be clicked
+	 * @param row   Row of the click
+	 * @param col   Column of the click
+	 * @return Whether firstClick looks for a board
+	 */
+	public static boolean canSwap(MineBoard board, int row, int col) {
+		return board.isGenerated() && board.getMoves() == 0 && board.inBounds(row, col)
+				&& (long) board.getWidth() * board.getHeight() <= MAX_TILES;
+	}
+
+	/**
+	 * Swaps a board for a no-guess one before its first click, if it can be (see
+	 * canSwap), looking for at most BUDGET_MILLIS
+	 *
+	 * @param board Board about to be clicked
+	 * @param row   Row of the click
+	 * @param col   Column of the click
+	 * @param pool  Pool the candidates are tried on
+	 * @return Whether a board that can be won without guessing was found
+	 */
+	public static boolean firstClick(MineBoard board, int row, int col, ForkJoinPool pool) {
+		if (!canSwap(board, row, col))
+			return false;
+		return generate(board, row, col, pool, BUDGET_MILLIS * 1000000);
+	}
+
+	/**
+	 * Resets a board to the first candidate that can be won without guessing when
+	 * the given tile is clicked first. If none of the candidates can, the board is
+	 * left as it is
+	 *
+	 * @param board Board to reset, its seed decides the candidates
+	 * @param row   Row of the first click
+	 * @param col   Column of the first click
+	 * @param pool  Pool the candidates are tried on
+	 * @return Whether a board was found
+	 */
+	public static boolean generate(MineBoard board, int row, int col, ForkJoinPool pool) {
+		return generate(board, row, col, pool, Long.MAX_VALUE);
+	}
+
+	/**
+	 * Resets a board to the first candidate that can be won without guessing,
+	 * like the other generate, but stops trying new candidates once a budget is
+	 * spent. The first candidate is always tried
+	 *
+	 * @param board  Board to reset, its seed decides the candidates
+	 * @param row    Row of the first click
+	 * @param col    Column of the first click
+	 * @param pool   Pool the candidates are tried on
+	 * @param budget Nanoseconds after which no new candidate is tried
+	 * @return Whether a board was found
+	 */
+	public static boolean generate(MineBoard board, int row, int col, ForkJoinPool pool,
+			long budget) {
+		AtomicInteger next = new AtomicInteger();
+		AtomicInteger best = new AtomicInteger(Integer.MAX_VALUE);
+		long start = System.nanoTime();
+		ForkJoinTask<?>[] tasks = new ForkJoinTask<?>[Math.max(1, pool.getParallelism())];
+		for (int t = 0; t < tasks.length; t++) {
+			tasks[t] = pool.submit(new Worker(board, row, col, next, best, start, budget));
+		}
+		for (ForkJoinTask<?> task : tasks) {
+			task.join();
+		}
+		if (best.get() == Integer.MAX_VALUE)
+			return false;
+		board.reset(candidateSeed(board.getSeed(), best.get()));
+		return true;
+	}
+
+	/**
+	 * @param seed  Seed of the board
+	 * @param index Index of a candidate
+	 * @return Seed of the candidate, the seed itself for the first one
+	 */
+	static long candidateSeed(long seed, int index) {
+		if (index == 0)
+			return seed;
+		return new SplittableRandom(seed ^ index * 0x9E3779B97F4A7C15L).nextLong();
+	}
+
+	/**
+	 * Checks whether a board can be won without guessing from a first click
+	 *
+	 * @param board  Board reset to the candidate
+	 * @param solver Solver of the board
+	 * @param seed   Seed of the candidate
+	 * @param row    Row of the first click
+	 * @param col    Column of the first click
+	 * @return Whether the solver wins the board
+	 */
+	static boolean solvable(MineBoard board, Solver solver, long seed, int row, int col) {
+		board.reset(seed);
+		// Anything but an opening needs a guess straight away
+		if (board.getCell(row, col) != MineBoard.COVERED)
+			return false;
+		board.reveal(row, col);
+		solver.rescan();
+		for (int cell = solver.nextSafe(); cell >= 0; cell = solver.nextSafe()) {
+			board.reveal(cell / board.getWidth(), cell % board.getWidth());
+			solver.update();
+		}
+		return board.isWon();
+	}
+}
@@ -0,0 +1,377 @@
+import java.util.Arrays;
+
+/**
+ * Solver deduces which covered tiles of a MineBoard are certainly safe and which
+ * are certainly mines, from what a player can see: the numbers of the uncovered
+ * tiles and which tiles are still covered. Flags are the player's guesses, so
+ * they are treated like any other covered tile.
+ *
+ * Every uncovered number is a constraint on its covered neighbors. Two rules
+ * are applied until nothing more follows:
+ * <ul>
+ * <li>If a number has as many known mines around it as its value, its other
+ * covered neighbors are safe; if it needs all of them, they are mines.</li>
+ * <li>If the unknown neighbors of one number are all neighbors of another, the
+ * tiles only the second one sees hold the difference of the mines they still
+ * need, which can make them all safe or all mines.</li>
+ * </ul>
+ *
+ * The solver is incremental. After each action on the board, update only
+ * looks again at the numbers around the tiles that changed, so keeping up with
+ * a game costs a few microseconds per move.
+ *
+ * @author Kanishka Ragula
+ *
+ */
+public class Solver {
+
+	// What is known about a covered tile
+	private static final byte UNKNOWN = 0;
+	private static final byte SAFE = 1;
+	private static final byte MINE = 2;
+
+	private final MineBoard board;
+	private final int width;
+	private final int height;
+	private final byte[] known;
+	// Numbers waiting to be looked at again, in a ring that fits every tile
+	private final int[] queue;
+	private final boolean[] queued;
+	private int head;
+	private int size;
+	// Tiles found safe, some of which may have been uncovered since
+	private int[] safe = new int[64];
+	private int numSafe;
+	private int knownMines;
+	private int lastMoves;
+
+	/**
+	 * Creates a solver for a board and deduces everything it can so far
+	 *
+	 * @param board Board to solve
+	 */
+	public Solver(MineBoard board) {
+		this.board = board;
+		width = board.getWidth();
+		height = board.getHeight();
+		known = new byte[width * height];
+		queue = new int[width * height];
+		queued = new boolean[width * height];
+		rescan();
+	}
+
+	/**
+	 * Forgets every deduction and deduces again from the whole board. Needed
+	 * after the board is reset
+	 */
+	public void rescan() {
+		Arrays.fill(known, UNKNOWN);
+		Arrays.fill(queued, false);
+		head = 0;
+		size = 0;
+		numSafe = 0;
+		knownMines = 0;
+		lastMoves = board.getMoves();
+		if (board.isOver())
+			return;
+		for (int cell = 0; cell < known.length; cell++) {
+			if (!isCovered(cell))
+				enqueue(cell);
+		}
+		propagate();
+	}
+
+	/**
+	 * Catches up with the last action on the board. Must be called after every
+	 * action; if actions were missed, the solver starts over from the whole board
+	 */
+	public void update() {
+		if (board.getMoves() == lastMoves)
+			return;
+		if (board.getMoves() != lastMoves + 1 || board.getWidth() != width
+				|| board.getHeight() != height) {
+			rescan();
+			return;
+		}
+		lastMoves++;
+		if (board.isOver())
+			return;
+
+		// A tile that was uncovered changes its own number and those around it
+		for (int i = 0; i < board.getChangedCount(); i++) {
+			int cell = board.getChangedCell(i);
+			if (isCovered(cell))
+				continue;
+			int r = cell / width;
+			int c = cell % width;
+			for (int j = Math.max(r - 1, 0); j <= Math.min(r + 1, height - 1); j++) {
+				for (int k = Math.max(c - 1, 0); k <= Math.min(c + 1, width - 1); k++) {
+					if (!isCovered(j * width + k))
+						enqueue(j * width + k);
+				}
+			}
+		}
+		propagate();
+	}
+
+	/**
+	 * Applies the rules to the queued numbers until none is left
+	 */
+	private void propagate() {
+		while (size > 0) {
+			int cell = queue[head];
+			head = head + 1 == queue.length ? 0 : head + 1;
+			size--;
+			queued[cell] = false;
+			solve(cell);
+		}
+	}
+
+	/**
+	 * Applies the rules to one number
+	 *
+	 * @param x Index of an uncovered tile
+	 */
+	private void solve(int x) {
+		int unknown = unknownAround(x);
+		if (unknown == 0)
+			return;
+		int need = needed(x);
+		if (need == 0) {
+			markAround(x, -1, SAFE);
+			return;
+		}
+		if (need == unknown) {
+			markAround(x, -1, MINE);
+			return;
+		}
+
+		// Only numbers up to two tiles away can share unknown neighbors
+		int r = x / width;
+		int c = x % width;
+		for (int i = Math.max(r - 2, 0); i <= Math.min(r + 2, height - 1); i++) {
+			for (int j = Math.max(c - 2, 0); j <= Math.min(c + 2, width - 1); j++) {
+				int y = i * width + j;
+				if (y == x || isCovered(y))
+					continue;
+				int unknownY = unknownAround(y);
+				if (unknownY == 0)
+					continue;
+				if (unknownY < unknown && within(y, x)) {
+					if (deduce(x, y, need - needed(y), unknown - unknownY))
+						return;
+				} else if (unknown < unknownY && within(x, y)) {
+					if (deduce(y, x, needed(y) - need, unknownY - unknown))
+						return;
+				}
+			}
+		}
+	}
+
+	/**
+	 * Marks the unknown neighbors a number sees and a smaller one does not, if
+	 * the mines left for them decide them
+	 *
+	 * @param larger  Number whose unknown neighbors include all of smaller's
+	 * @param smaller Number whose unknown neighbors are all seen by larger
+	 * @param mines   Mines among the tiles only larger sees
+	 * @param tiles   Number of tiles only larger sees
+	 * @return Whether anything was marked
+	 */
+	private boolean deduce(int larger, int smaller, int mines, int tiles) {
+		if (mines == 0) {
+			markAround(larger, smaller, SAFE);
+			return true;
+		}
+		if (mines == tiles) {
+			markAround(larger, smaller, MINE);
+			return true;
+		}
+		return false;
+	}
+
+	/**
+	 * Checks that every unknown neighbor of a number is also next to another tile
+	 *
+	 * @param inner Number whose unknown neighbors are checked
+	 * @param outer Tile they must be next to
+	 * @return Whether the unknown neighbors of inner are all next to outer
+	 */
+	private boolean within(int inner, int outer) {
+		int r = inner / width;
+		int c = inner % width;
+		for (int i = Math.max(r - 1, 0); i <= Math.min(r + 1, height - 1); i++) {
+			for (int j = Math.max(c - 1, 0); j <= Math.min(c + 1, width - 1); j++) {
+				int n = i * width + j;
+				if (isUnknown(n) && !adjacent(n, outer))
+					return false;
+			}
+		}
+		return true;
+	}
+
+	/**
+	 * Marks the unknown neighbors of a number, leaving out the ones next to
+	 * another tile
+	 *
+	 * @param x       Number whose neighbors are marked
+	 * @param exclude Tile whose neighbors are left out, or -1
+	 * @param value   SAFE or MINE
+	 */
+	private void markAround(int x, int exclude, byte value) {
+		int r = x / width;
+		int c = x % width;
+		for (int i = Math.max(r - 1, 0); i <= Math.min(r + 1, height - 1); i++) {
+			for (int j = Math.max(c - 1, 0); j <= Math.min(c + 1, width - 1); j++) {
+				int n = i * width + j;
+				if (isUnknown(n) && (exclude < 0 || !adjacent(n, exclude)))
+					mark(n, value);
+			}
+		}
+	}
+
+	/**
+	 * Records a deduction and queues the numbers around the tile again
+	 *
+	 * @param cell  Index of a covered tile
+	 * @param value SAFE or MINE
+	 */
+	private void mark(int cell, byte value) {
+		known[cell] = value;
+		if (value == SAFE) {
+			if (numSafe == safe.length) {
+				safe = Arrays.copyOf(safe, safe.length * 2);
+			}
+			safe[numSafe++] = cell;
+		} else {
+			knownMines++;
+		}
+		int r = cell / width;
+		int c = cell % width;
+		for (int i = Math.max(r - 1, 0); i <= Math.min(r + 1, height - 1); i++) {
+			for (int j = Math.max(c - 1, 0); j <= Math.min(c + 1, width - 1); j++) {
+				if (!isCovered(i * width + j))
+					enqueue(i * width + j);
+			}
+		}
+	}
+
+	/**
+	 * Queues a number to be looked at again, unless it already is
+	 *
+	 * @param cell Index of an uncovered tile
+	 */
+	private void enqueue(int cell) {
+		if (queued[cell])
+			return;
+		queued[cell] = true;
+		int tail = head + size;
+		queue[tail >= queue.length ? tail - queue.length : tail] = cell;
+		size++;
+	}
+
+	/**
+	 * @param x Index of an uncovered tile
+	 * @return Number of covered neighbors that are neither known safe nor known
+	 *         mines
+	 */
+	private int unknownAround(int x) {
+		int r = x / width;
+		int c = x % width;
+		int unknown = 0;
+		for (int i = Math.max(r - 1, 0); i <= Math.min(r + 1, height - 1); i++) {
+			for (int j = Math.max(c - 1, 0); j <= Math.min(c + 1, width - 1); j++) {
+				if (isUnknown(i * width + j))
+					unknown++;
+			}
+		}
+		return unknown;
+	}
+
+	/**
+	 * @param x Index of an uncovered tile
+	 * @return Number of mines around the tile that are not known yet
+	 */
+	private int needed(int x) {
+		int r = x / width;
+		int c = x % width;
+		int need = board.getCell(x) & MineBoard.VALUE;
+		for (int i = Math.max(r - 1, 0); i <= Math.min(r + 1, height - 1); i++) {
+			for (int j = Math.max(c - 1, 0); j <= Math.min(c + 1, width - 1); j++) {
+				if (known[i * width + j] == MINE)
+					need--;
+			}
+		}
+		return need;
+	}
+
+	/**
+	 * @param a Index of a tile
+	 * @param b Index of another tile
+	 * @return Whether the tiles are next to each other (or the same)
+	 */
+	private boolean adjacent(int a, int b) {
+		return Math.abs(a / width - b / width) <= 1 && Math.abs(a % width - b % width) <= 1;
+	}
+
+	/**
+	 * @param cell Index of a tile
+	 * @return Whether the tile is covered (flagged or not)
+	 */
+	private boolean isCovered(int cell) {
+		return (board.getCell(cell) & MineBoard.COVERED) != 0;
+	}
+
+	/**
+	 * @param cell Index of a tile
+	 * @return Whether the tile is covered and nothing is known about it
+	 */
+	private boolean isUnknown(int cell) {
+		return known[cell] == UNKNOWN && isCovered(cell);
+	}
+
+	/**
+	 * Returns a covered tile known to be safe, if there is one
+	 *
+	 * @return Index of the tile, or -1
+	 */
+	public int nextSafe() {
+		while (numSafe > 0) {
+			int cell = safe[numSafe - 1];
+			if (isCovered(cell) && (board.getCell(cell) & MineBoard.FLAGGED) == 0)
+				return cell;
+			numSafe--;
+		}
+		return -1;
+	}
+
+	/**
+	 * @param cell Index of a tile
+	 * @return Whether the tile is covered and known to be safe
+	 */
+	public boolean isKnownSafe(int cell) {
+		return known[cell] == SAFE && isCovered(cell);
+	}
+
+	/**
+	 * @param cell Index of a tile
+	 * @return Whether the tile is known to be a mine
+	 */
+	public boolean isKnownMine(int cell) {
+		return known[cell] == MINE;
+	}
+
+	/**
+	 * @return Number of tiles known to be mines
+	 */
+	public int getKnownMines() {
+		return knownMines;
+	}
+
+	/**
+	 * @return The board being solved
+	 */
+	public MineBoard getBoard() {
+		return board;
+	}
+}
@@ -1,11 +1,17 @@
-import java.io.BufferedReader;
 import java.io.File;
-import java.io.FileReader;
 import java.io.IOException;
-import java.io.StringReader;
-import java.util.ArrayList;
 
+/**
+ * A single tile of a Minesweeper board. MineBoard stores its tiles packed into
+ * bytes; Tile is the readable view of one of them used for saving and loading.
+ * 
+ * @author Kanishka Ragula
+ *
+ */
 public class Tile {
+	// Tile values indexed by the value bits of a packed cell
+	private static final String[] VALUES = { "0", "1", "2", "3", "4", "5", "6", "7", "8", "M", "F" };
+
 	private String tileVal;
 	private boolean flagged;
 	private boolean covered;
@@ -33,60 +39,65 @@ public class Tile {
 	}
 	
 	/**
-	 * Generates a 2d array of tiles from a given save file
-	 * @param entry File to read from 
-	 * @return 2d array of tiles read from file
-	 * @throws IOException An exception, either from bad format or the file is not found
+	 * Creates a tile from a packed MineBoard cell
+	 * @param cell Value and state bits of the cell
+	 * @return Tile with the same value, flagged and covered status
 	 */
-	public static Tile[][] tilesFromFile(File entry) throws IOException {
-		BufferedReader br = new BufferedReader(new FileReader(entry));
-
-		ArrayList<String> tilesStrings = new ArrayList<String>();
-		String currLine = br.readLine();
-		while (currLine != null) {
-			tilesStrings.add(currLine);
-			currLine = br.readLine();
-		}
-		br.close();
-
-		if (tilesStrings.isEmpty())
-			throw new IOException("Input File Empty");
+	public static Tile fromCell(byte cell) {
+		return new Tile(valueOf(cell), (cell & MineBoard.FLAGGED) != 0, 
+				(cell & MineBoard.COVERED) != 0);
+	}
 
-		int length1 = tilesStrings.get(0).length();
+	/**
+	 * Returns the tile value (M, F, or any number from 0-8) of a packed MineBoard cell
+	 * @param cell Value and state bits of the cell
+	 * @return Tile value of the cell
+	 */
+	public static String valueOf(byte cell) {
+		return VALUES[cell & MineBoard.VALUE];
+	}
 
-		for (String s : tilesStrings) {
-			if (s.length() % 3 != 0 || s.length() != length1 || length1 == 0)
-				throw new IOException("Input File Formatted Poorly, length");
+	/**
+	 * Packs this tile into a MineBoard cell
+	 * @return Value and state bits of the tile
+	 * @throws IllegalArgumentException If the tile value is not valid
+	 */
+	public byte toCell() {
+		int value;
+		if (tileVal.length() != 1 || !isValidTile(tileVal.charAt(0))) {
+			throw new IllegalArgumentException("Invalid tile value " + tileVal);
+		} else if (tileVal.equals("M")) {
+			value = MineBoard.MINE;
+		} else if (tileVal.equals("F")) {
+			value = MineBoard.TRIPPED;
+		} else {
+			value = tileVal.charAt(0) - '0';
 		}
+		if (flagged) {
+			value |= MineBoard.FLAGGED;
+		}
+		if (covered) {
+			value |= MineBoard.COVERED;
+		}
+		return (byte) value;
+	}
 
-		Tile[][] returnVal = new Tile[tilesStrings.size()][length1 / 3];
-		Tile tempTile;
-		for (int i = 0; i < tilesStrings.size(); i++) {
-			StringReader sr = new StringReader(tilesStrings.get(i));
-			int index = 0;
-			do {
-				char tileVal = (char) sr.read();
-				char flaggedChar = (char) sr.read();
-				char coveredChar = (char) sr.read();
-				if (!Tile.isValidTile(tileVal) || !Tile.isBoolChar(flaggedChar) || 
-						!Tile.isBoolChar(coveredChar)) {
-					throw new IOException("Input File Formatted Poorly, char vals");
-				}
-				boolean isFlagged = true;
-				boolean isCovered = true;
-				if (flaggedChar == 'F') {
-					isFlagged = false;
-				}
-				if (coveredChar == 'F') {
-					isCovered = false;
-				}
-				tempTile = new Tile(String.valueOf(tileVal), isFlagged, isCovered);
-				returnVal[i][index] = tempTile;
-				index++;
-			} while (index < length1 / 3);
+	/**
+	 * Generates a 2d array of tiles from a given save file
+	 * @param entry File to read from 
+	 * @return 2d array of tiles read from file
+	 * @throws IOException An exception, either from bad format (with the line and 
+	 * column of the error) or the file is not found
+	 */
+	public static Tile[][] tilesFromFile(File entry) throws IOException {
+		MineBoard board = BoardFile.readText(entry, false);
 
+		Tile[][] returnVal = new Tile[board.getHeight()][board.getWidth()];
+		for (int i = 0; i < board.getHeight(); i++) {
+			for (int j = 0; j < board.getWidth(); j++) {
+				returnVal[i][j] = board.getTile(i, j);
+			}
 		}
-		
 		return returnVal;
 	}
 
@@ -0,0 +1,106 @@
+import java.awt.Graphics;
+import java.awt.image.BufferedImage;
+import java.net.URL;
+
+import javax.swing.ImageIcon;
+
+/**
+ * Shared images for the tiles of a board. Each image is decoded once per
+ * process, from the classpath if the game is packaged with its files and from
+ * the files directory otherwise, and then reused by every button of every
+ * MineMap. The same images are also packed side by side into one sprite sheet
+ * for boards that paint their tiles themselves.
+ * 
+ * @author Kanishka Ragula
+ *
+ */
+public final class TileIcons {
+
+	/** Width and height of a tile image in pixels */
+	public static final int SIZE = 16;
+
+	// Positions in the sprite sheet of the covered and flagged images, after the values
+	private static final int COVERED_SPRITE = MineBoard.TRIPPED + 1;
+	private static final int FLAGGED_SPRITE = MineBoard.TRIPPED + 2;
+
+	// Images for uncovered tiles indexed by the value bits of a packed cell
+	private static final ImageIcon[] VALUES = new ImageIcon[MineBoard.TRIPPED + 1];
+	private static final ImageIcon COVERED = load("Covered");
+	private static final ImageIcon FLAGGED = load("Flagged");
+
+	private static final BufferedImage SPRITES;
+
+	static {
+		for (int i = 0; i < VALUES.length; i++) {
+			VALUES[i] = load(Tile.valueOf((byte) i));
+		}
+
+		SPRITES = new BufferedImage(SIZE * (FLAGGED_SPRITE + 1), SIZE, BufferedImage.TYPE_INT_ARGB);
+		Graphics g = SPRITES.getGraphics();
+		for (int i = 0; i < VALUES.length; i++) {
+			g.drawImage(VALUES[i].getImage(), i * SIZE, 0, null);
+		}
+		g.drawImage(COVERED.getImage(), COVERED_SPRITE * SIZE, 0, null);
+		g.drawImage(FLAGGED.getImage(), FLAGGED_SPRITE * SIZE, 0, null);
+		g.dispose();
+	}
+
+	private TileIcons() {
+	}
+
+	/**
+	 * Loads an image from the classpath or, if it is not there, the files directory
+	 * 
+	 * @param name Name of the image without the extension
+	 * @return The loaded image
+	 */
+	private static ImageIcon load(String name) {
+		URL resource = TileIcons.class.getResource("/files/" + name + ".png");
+		if (resource != null) {
+			return new ImageIcon(resource);
+		}
+		return new ImageIcon("files/" + name + ".png");
+	}
+
+	/**
+	 * Returns the image showing a tile in its current state
+	 * 
+	 * @param cell Packed cell of a MineBoard
+	 * @return Shared image for the cell
+	 */
+	public static ImageIcon forCell(byte cell) {
+		if ((cell & MineBoard.FLAGGED) != 0) {
+			return FLAGGED;
+		} else if ((cell & MineBoard.COVERED) != 0) {
+			return COVERED;
+		} else {
+			return VALUES[cell & MineBoard.VALUE];
+		}
+	}
+
+	/**
+	 * Returns the sprite sheet holding every tile image in one row. Must not be
+	 * modified
+	 * 
+	 * @return Shared sprite sheet
+	 */
+	public static BufferedImage spriteSheet() {
+		return SPRITES;
+	}
+
+	/**
+	 * Returns the position of the image for a tile in the sprite sheet
+	 * 
+	 * @param cell Packed cell of a MineBoard
+	 * @return Column of the image in the sprite sheet
+	 */
+	public static int spriteFor(byte cell) {
+		if ((cell & MineBoard.FLAGGED) != 0) {
+			return FLAGGED_SPRITE;
+		} else if ((cell & MineBoard.COVERED) != 0) {
+			return COVERED_SPRITE;
+		} else {
+			return cell & MineBoard.VALUE;
+		}
+	}
+}
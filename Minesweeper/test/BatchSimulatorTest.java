@@ -0,0 +1,60 @@
+import static org.junit.Assert.*;
+
+import org.junit.Test;
+
+public class BatchSimulatorTest {
+
+	/**
+	 * Builds an uncovered board from rows of tile values
+	 *
+	 * @param rows Tile values, one string per row
+	 * @return The board
+	 */
+	private static MineBoard board(String... rows) {
+		Tile[][] tiles = new Tile[rows.length][rows[0].length()];
+		for (int i = 0; i < rows.length; i++) {
+			for (int j = 0; j < rows[0].length(); j++) {
+				tiles[i][j] = new Tile(String.valueOf(rows[i].charAt(j)));
+			}
+		}
+		return new MineBoard(tiles, false);
+	}
+
+	//One opening and the numbers it does not reach
+	@Test
+	public void testThreeBV() {
+		assertEquals(BatchSimulator.threeBV(board("000", "011", "01M")), 1);
+		assertEquals(BatchSimulator.threeBV(board("1M1", "111", "000")), 3);
+		// No opening at all, so every safe tile is a click
+		assertEquals(BatchSimulator.threeBV(board("M2M", "M3M")), 2);
+	}
+
+	//The totals only depend on the seeds, not on the threads
+	@Test
+	public void testSameTotalsOnAnyThreads() {
+		for (BatchSimulator.Strategy strategy : BatchSimulator.Strategy.values()) {
+			BatchSimulator simulator = new BatchSimulator(16, 16, 40, strategy, false);
+			BatchSimulator.Totals one = simulator.run(100, 300, 1);
+			BatchSimulator.Totals three = simulator.run(100, 300, 3);
+			assertEquals(one.getGames(), 300);
+			assertEquals(one.getWins(), three.getWins());
+			assertEquals(one.getMeanThreeBV(), three.getMeanThreeBV(), 0);
+			assertEquals(one.getMeanClicks(), three.getMeanClicks(), 0);
+		}
+	}
+
+	//Better strategies win more, and no-guess boards are all won by the solver
+	@Test
+	public void testStrategies() {
+		double random = new BatchSimulator(16, 16, 40, BatchSimulator.Strategy.RANDOM, false)
+				.run(0, 500, 2).getWinRate();
+		double solver = new BatchSimulator(16, 16, 40, BatchSimulator.Strategy.SOLVER, false)
+				.run(0, 500, 2).getWinRate();
+		double odds = new BatchSimulator(16, 16, 40, BatchSimulator.Strategy.ODDS, false)
+				.run(0, 500, 2).getWinRate();
+		assertTrue(random < solver);
+		assertTrue(solver < odds);
+		assertEquals(new BatchSimulator(16, 16, 40, BatchSimulator.Strategy.SOLVER, true)
+				.run(0, 100, 2).getWinRate(), 1, 0);
+	}
+}
@@ -0,0 +1,237 @@
+import static org.junit.Assert.*;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.util.Arrays;
+import java.util.Random;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+public class BoardFileTest {
+	File saveFile;
+
+	@Before
+	public void setUp() throws Exception {
+		saveFile = File.createTempFile("minesweeper", ".bin");
+	}
+
+	@After
+	public void tearDown() throws Exception {
+		saveFile.delete();
+	}
+
+	/**
+	 * Checks that two boards have the same tiles
+	 * 
+	 * @param expected Expected board
+	 * @param actual   Board to check
+	 */
+	private static void assertSameTiles(MineBoard expected, MineBoard actual) {
+		assertEquals(expected.getWidth(), actual.getWidth());
+		assertEquals(expected.getHeight(), actual.getHeight());
+		assertEquals(expected.getMines(), actual.getMines());
+		for (int i = 0; i < expected.getWidth() * expected.getHeight(); i++) {
+			assertEquals(expected.getCell(i), actual.getCell(i));
+		}
+	}
+
+	//Binary saves should load back to the same board
+	@Test
+	public void testBinaryRoundTrip() throws IOException {
+		Random random = new Random(7);
+		MineBoard board = new MineBoard(31, 17, 60); //Odd number of tiles
+		for (int i = 0; i < 20; i++) {
+			board.toggleFlag(random.nextInt(17), random.nextInt(31));
+			board.reveal(random.nextInt(17), random.nextInt(31));
+		}
+		BoardFile.writeBinary(board, saveFile);
+		MineBoard loaded = BoardFile.read(saveFile, true);
+		assertSameTiles(board, loaded);
+		assertEquals(loaded.getNumFlags(), board.getNumFlags());
+		assertEquals(loaded.getCoveredSafe(), board.getCoveredSafe());
+	}
+
+	//A lost game keeps the tripped mine
+	@Test
+	public void testBinaryTrippedMine() throws IOException {
+		MineBoard board = new MineBoard(8, 8, 10);
+		board.reveal(0, 0);
+		for (int i = 0; i < 64 && !board.isOver(); i++) {
+			board.reveal(i / 8, i % 8);
+		}
+		BoardFile.writeBinary(board, saveFile);
+		assertSameTiles(board, BoardFile.read(saveFile, false));
+	}
+
+	//The first move protection is kept in binary saves
+	@Test
+	public void testBinaryFirstMove() throws IOException {
+		MineBoard board = new MineBoard(8, 8, 10);
+		BoardFile.writeBinary(board, saveFile);
+		assertTrue(BoardFile.read(saveFile, false).isFirstMove());
+		board.reveal(4, 4);
+		BoardFile.writeBinary(board, saveFile);
+		assertFalse(BoardFile.read(saveFile, true).isFirstMove());
+	}
+
+	//Binary saves should be 4 bits per tile plus the header
+	@Test
+	public void testBinarySize() throws IOException {
+		BoardFile.writeBinary(new MineBoard(100, 100, 1000), saveFile);
+		assertEquals(saveFile.length(), 30 + 5000);
+	}
+
+	//The number of moves is kept in binary saves
+	@Test
+	public void testBinaryMoves() throws IOException {
+		MineBoard board = new MineBoard(8, 8, 10);
+		board.reveal(4, 4);
+		board.toggleFlag(0, 0);
+		BoardFile.writeBinary(board, saveFile);
+		assertEquals(BoardFile.read(saveFile, false).getMoves(), 2);
+	}
+
+	//Saves from the first version, without the number of moves, can still be loaded
+	@Test
+	public void testBinaryVersion1() throws IOException {
+		MineBoard board = new MineBoard(8, 8, 10);
+		board.reveal(4, 4);
+		BoardFile.writeBinary(board, saveFile);
+		byte[] bytes = Files.readAllBytes(saveFile.toPath());
+		byte[] old = new byte[bytes.length - 12];
+		System.arraycopy(bytes, 0, old, 0, 18);
+		System.arraycopy(bytes, 30, old, 18, bytes.length - 30);
+		old[4] = 1;
+		write(old);
+		MineBoard loaded = BoardFile.read(saveFile, true);
+		assertSameTiles(board, loaded);
+		assertEquals(loaded.getMoves(), 0);
+	}
+
+	//A generated board is saved as its seed and generated again when read
+	@Test
+	public void testSeedSave() throws IOException {
+		MineBoard board = new MineBoard(300, 200, 9000, 77L);
+		BoardFile.writeSeed(board, saveFile);
+		assertEquals(saveFile.length(), 30);
+		MineBoard loaded = BoardFile.read(saveFile, false);
+		assertSameTiles(board, loaded);
+		assertEquals(loaded.getSeed(), 77L);
+		assertTrue(loaded.isFirstMove());
+	}
+
+	//The seed is kept in full saves, so the first click moves mines the same way
+	@Test
+	public void testBinarySeed() throws IOException {
+		MineBoard board = new MineBoard(8, 8, 54, 21L);
+		BoardFile.writeBinary(board, saveFile);
+		MineBoard loaded = BoardFile.read(saveFile, false);
+		assertEquals(loaded.getSeed(), 21L);
+		int mine = 0;
+		while ((board.getCell(mine) & MineBoard.VALUE) != MineBoard.MINE) {
+			mine++;
+		}
+		board.reveal(mine / 8, mine % 8);
+		loaded.reveal(mine / 8, mine % 8);
+		assertSameTiles(board, loaded);
+	}
+
+	//Text saves can still be loaded
+	@Test
+	public void testReadText() throws IOException {
+		MineBoard board = BoardFile.read(new File("files/fromFileTest.txt"), false);
+		assertFalse(BoardFile.isBinary(new File("files/fromFileTest.txt")));
+		assertEquals(board.getTile(1, 2), new Tile("M", true, true));
+		assertEquals(board.getTile(0, 1), new Tile("1", false, false));
+	}
+
+	//Text saves round trip through the text writer
+	@Test
+	public void testTextRoundTrip() throws IOException {
+		MineBoard board = new MineBoard(12, 9, 20);
+		board.reveal(4, 4);
+		board.toggleFlag(0, 0);
+		BoardFile.writeText(board, saveFile);
+		assertSameTiles(board, BoardFile.read(saveFile, false));
+	}
+
+	//A binary save with the wrong number of mines is rejected
+	@Test(expected = IOException.class)
+	public void testBinaryWrongMines() throws IOException {
+		BoardFile.writeBinary(new MineBoard(8, 8, 10), saveFile);
+		byte[] bytes = Files.readAllBytes(saveFile.toPath());
+		bytes[17] = 11;
+		write(bytes);
+		BoardFile.read(saveFile, false);
+	}
+
+	//A truncated binary save is rejected
+	@Test(expected = IOException.class)
+	public void testBinaryTruncated() throws IOException {
+		BoardFile.writeBinary(new MineBoard(8, 8, 10), saveFile);
+		byte[] bytes = Files.readAllBytes(saveFile.toPath());
+		write(Arrays.copyOf(bytes, bytes.length - 1));
+		BoardFile.read(saveFile, false);
+	}
+
+	//Text saves with Windows line endings and no final new line
+	@Test
+	public void testReadTextLineEndings() throws IOException {
+		write("0FF1FF1FF\r\n0FF1FFMTT".getBytes());
+		MineBoard board = BoardFile.readText(saveFile, false);
+		assertEquals(board.getWidth(), 3);
+		assertEquals(board.getHeight(), 2);
+		assertEquals(board.getTile(1, 2), new Tile("M", true, true));
+	}
+
+	//Errors in text saves say where they are
+	@Test
+	public void testTextErrorPosition() throws IOException {
+		assertTextError("0FF1FF1FF\n0FF1XFMTT\n", "line 2, column 5");
+		assertTextError("0FF1FF1FF\n0FF1FF\n", "line 2, column 7");
+		assertTextError("0FF1FF\n0FF1FF1FF\n", "line 2, column 7");
+		assertTextError("0FF1F\n", "line 1, column 6");
+		assertTextError("0FF9FF\n", "line 1, column 4");
+		assertTextError("0FF1FF\n\n", "line 2, column 1");
+	}
+
+	//Empty text saves are rejected
+	@Test(expected = IOException.class)
+	public void testTextEmpty() throws IOException {
+		write(new byte[0]);
+		BoardFile.readText(saveFile, false);
+	}
+
+	/**
+	 * Checks that a text save is rejected with an error at the given position
+	 * 
+	 * @param contents Contents of the save
+	 * @param position Expected position in the message
+	 * @throws IOException If the file cannot be written
+	 */
+	private void assertTextError(String contents, String position) throws IOException {
+		write(contents.getBytes());
+		try {
+			BoardFile.readText(saveFile, false);
+			fail("No error for " + contents);
+		} catch (IOException e) {
+			assertTrue(e.getMessage(), e.getMessage().endsWith(position));
+		}
+	}
+
+	/**
+	 * Replaces the contents of the save file
+	 * 
+	 * @param bytes New contents
+	 * @throws IOException If the file cannot be written
+	 */
+	private void write(byte[] bytes) throws IOException {
+		FileOutputStream out = new FileOutputStream(saveFile);
+		out.write(bytes);
+		out.close();
+	}
+}
@@ -0,0 +1,119 @@
+import static org.junit.Assert.*;
+
+import java.util.Arrays;
+import java.util.SplittableRandom;
+import java.util.concurrent.ForkJoinPool;
+
+import org.junit.Test;
+
+public class BoardGeneratorTest {
+
+	/**
+	 * Generates a board on a pool with the given number of threads
+	 *
+	 * @param width     Width of the board
+	 * @param height    Height of the board
+	 * @param mines     Number of mines
+	 * @param seed      Seed of the board
+	 * @param threads   Number of threads
+	 * @param mineCells Filled with the mines of the board
+	 * @return Packed cells of the board
+	 */
+	private static byte[] generate(int width, int height, int mines, long seed, int threads,
+			int[] mineCells) {
+		byte[] cells = new byte[width * height];
+		ForkJoinPool pool = new ForkJoinPool(threads);
+		try {
+			BoardGenerator.generate(cells, width, mineCells, mines, new SplittableRandom(seed), pool);
+		} finally {
+			pool.shutdown();
+		}
+		return cells;
+	}
+
+	//Large boards come out the same on any number of threads
+	@Test
+	public void testSameOnAnyThreads() {
+		int[] mineCells = new int[800000];
+		byte[] expected = generate(2000, 2000, 800000, 9L, 1, mineCells);
+		for (int threads = 2; threads <= 4; threads++) {
+			assertTrue(Arrays.equals(generate(2000, 2000, 800000, 9L, threads, new int[800000]),
+					expected));
+		}
+	}
+
+	//The numbers are right at the edges of the stripes
+	@Test
+	public void testNumbersAcrossStripes() {
+		int[] mineCells = new int[300000];
+		byte[] cells = generate(1500, 2000, 300000, 4L, 3, mineCells);
+		byte[] recounted = new byte[cells.length];
+		Arrays.fill(recounted, MineBoard.COVERED);
+		for (int mine : mineCells) {
+			recounted[mine] = MineBoard.COVERED | MineBoard.MINE;
+		}
+		MineBoard.countNeighbors(recounted, 1500, mineCells, mineCells.length);
+		assertTrue(Arrays.equals(cells, recounted));
+	}
+
+	//Every mine is placed on its own tile
+	@Test
+	public void testAllMinesPlaced() {
+		int[] mineCells = new int[2900000];
+		byte[] cells = generate(1800, 1800, 2900000, 1L, 2, mineCells);
+		int mines = 0;
+		for (byte cell : cells) {
+			if ((cell & MineBoard.VALUE) == MineBoard.MINE)
+				mines++;
+		}
+		assertEquals(mines, 2900000);
+		Arrays.sort(mineCells);
+		for (int i = 1; i < mineCells.length; i++) {
+			assertTrue(mineCells[i] > mineCells[i - 1]);
+		}
+	}
+
+	//Draws match the mean and variance of the hypergeometric distribution
+	@Test
+	public void testHypergeometric() {
+		SplittableRandom random = new SplittableRandom(3);
+		long population = 1000000;
+		long successes = 200000;
+		long draws = 50000;
+		double sum = 0;
+		double squares = 0;
+		for (int i = 0; i < 20000; i++) {
+			int k = BoardGenerator.hypergeometric(random, population, successes, draws);
+			sum += k;
+			squares += (double) k * k;
+		}
+		double mean = sum / 20000;
+		double variance = squares / 20000 - mean * mean;
+		double p = (double) successes / population;
+		double expectedVariance = draws * p * (1 - p) * (population - draws) / (population - 1);
+		assertEquals(mean, draws * p, 1.0);
+		assertEquals(variance, expectedVariance, expectedVariance * 0.05);
+	}
+
+	//Draws stay within the possible counts
+	@Test
+	public void testHypergeometricBounds() {
+		SplittableRandom random = new SplittableRandom(5);
+		for (int i = 0; i < 1000; i++) {
+			int k = BoardGenerator.hypergeometric(random, 100, 95, 10);
+			assertTrue(k >= 5 && k <= 10);
+		}
+		assertEquals(BoardGenerator.hypergeometric(random, 100, 100, 10), 10);
+		assertEquals(BoardGenerator.hypergeometric(random, 100, 0, 10), 0);
+	}
+
+	//Large log factorials agree with adding up logs
+	@Test
+	public void testLogFactorial() {
+		double sum = 0;
+		for (int n = 1; n <= 5000; n++) {
+			sum += Math.log(n);
+			assertEquals(BoardGenerator.logFactorial(n), sum, sum * 1e-12);
+		}
+	}
+}
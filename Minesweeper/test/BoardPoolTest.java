@@ -0,0 +1,99 @@
+import static org.junit.Assert.*;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+public class BoardPoolTest {
+	BoardPool pool;
+
+	@Before
+	public void setUp() {
+		pool = new BoardPool(2, 2);
+	}
+
+	@After
+	public void tearDown() {
+		pool.shutdown();
+	}
+
+	/**
+	 * Waits for the background thread to have a number of boards ready
+	 *
+	 * @param width  Width of the boards
+	 * @param height Height of the boards
+	 * @param mines  Number of mines
+	 * @param count  Number of boards to wait for
+	 * @throws InterruptedException If it is interrupted
+	 */
+	private void awaitReady(int width, int height, int mines, int count)
+			throws InterruptedException {
+		for (int i = 0; i < 1000 && pool.getReady(width, height, mines) != count; i++) {
+			Thread.sleep(10);
+		}
+		assertEquals(count, pool.getReady(width, height, mines));
+	}
+
+	//The first board of a size is generated right away, then boards are kept ready
+	@Test
+	public void testFilled() throws InterruptedException {
+		MineBoard board = pool.take(30, 16, 99);
+		assertEquals(30, board.getWidth());
+		assertEquals(16, board.getHeight());
+		assertEquals(99, board.getMines());
+		awaitReady(30, 16, 99, 2);
+	}
+
+	//A board taken is new and is replaced in the background
+	@Test
+	public void testTakeReady() throws InterruptedException {
+		MineBoard first = pool.take(16, 16, 40);
+		awaitReady(16, 16, 40, 2);
+		MineBoard second = pool.take(16, 16, 40);
+		assertNotSame(first, second);
+		assertNotEquals(first.getSeed(), second.getSeed());
+		assertTrue(second.isGenerated());
+		assertEquals(0, second.getMoves());
+		assertTrue(second.isFirstMove());
+		awaitReady(16, 16, 40, 2);
+	}
+
+	//Only the sizes played most recently are kept
+	@Test
+	public void testOldSizesDropped() throws InterruptedException {
+		pool.take(9, 9, 10);
+		awaitReady(9, 9, 10, 2);
+		pool.take(16, 16, 40);
+		pool.take(9, 9, 10);
+		pool.take(30, 16, 99);
+		awaitReady(30, 16, 99, 2);
+		awaitReady(9, 9, 10, 2);
+		assertEquals(0, pool.getReady(16, 16, 40));
+	}
+
+	//Boards too large to keep are only generated when asked for
+	@Test
+	public void testLargeBoardsNotKept() throws InterruptedException {
+		MineBoard board = pool.take(1024, 1024, 10);
+		assertEquals(1024 * 1024, board.getWidth() * board.getHeight());
+		Thread.sleep(100);
+		assertEquals(0, pool.getReady(1024, 1024, 10));
+	}
+
+	//Sizes that are restricted to the same board share the boards kept for it
+	@Test
+	public void testRestrictedSizesShared() throws InterruptedException {
+		pool.take(8, 8, 10);
+		pool.take(9, 9, 10);
+		MineBoard board = pool.take(2, 3, 1);
+		assertEquals(8, board.getWidth());
+		assertEquals(8, board.getHeight());
+		assertEquals(10, board.getMines());
+		pool.take(5, 8, 0);
+		pool.take(16, 16, 40);
+		awaitReady(8, 8, 10, 2);
+		awaitReady(16, 16, 40, 2);
+		assertEquals(0, pool.getReady(9, 9, 10));
+		assertEquals(2, pool.getReady(2, 3, 1));
+	}
+}
@@ -0,0 +1,93 @@
+import static org.junit.Assert.*;
+
+import java.awt.Rectangle;
+import java.util.List;
+
+import org.junit.Test;
+
+public class DirtyRegionTest {
+
+	/**
+	 * Builds a board from rows of tile values, all covered and unflagged
+	 *
+	 * @param rows Tile values, one string per row
+	 * @return Board with those tiles
+	 */
+	private static MineBoard board(String... rows) {
+		Tile[][] tiles = new Tile[rows.length][rows[0].length()];
+		for (int i = 0; i < rows.length; i++) {
+			for (int j = 0; j < rows[0].length(); j++) {
+				tiles[i][j] = new Tile(String.valueOf(rows[i].charAt(j)));
+			}
+		}
+		return new MineBoard(tiles, false);
+	}
+
+	//Nothing changed, nothing to repaint
+	@Test
+	public void testNoChanges() {
+		MineBoard board = board("000", "011", "01M");
+		board.reveal(-1, -1);
+		assertTrue(new DirtyRegion().coalesce(board).isEmpty());
+	}
+
+	//A flag only repaints its own tile
+	@Test
+	public void testSingleTile() {
+		MineBoard board = board("000", "011", "01M");
+		board.toggleFlag(1, 2);
+		List<Rectangle> dirty = new DirtyRegion().coalesce(board);
+		assertEquals(dirty.size(), 1);
+		assertEquals(dirty.get(0), new Rectangle(2, 1, 1, 1));
+	}
+
+	//Rows of the same width are joined, different widths are not
+	@Test
+	public void testOpeningAroundFlag() {
+		MineBoard board = board("000", "011", "01M");
+		board.toggleFlag(0, 2);
+		board.reveal(0, 0);
+		List<Rectangle> dirty = new DirtyRegion().coalesce(board);
+		assertEquals(dirty.size(), 3);
+		assertEquals(dirty.get(0), new Rectangle(0, 0, 2, 1));
+		assertEquals(dirty.get(1), new Rectangle(0, 1, 3, 1));
+		assertEquals(dirty.get(2), new Rectangle(0, 2, 2, 1));
+	}
+
+	//A rectangular opening is a single rectangle
+	@Test
+	public void testRectangularOpening() {
+		MineBoard board = board("0000", "0000", "0000", "1221", "1MM1");
+		board.reveal(0, 0);
+		List<Rectangle> dirty = new DirtyRegion().coalesce(board);
+		assertEquals(dirty.size(), 1);
+		assertEquals(dirty.get(0), new Rectangle(0, 0, 4, 4));
+	}
+
+	//Runs do not wrap around to the next row
+	@Test
+	public void testRunsStopAtRowEnd() {
+		MineBoard board = board("000", "111", "1M1");
+		board.reveal(0, 0);
+		List<Rectangle> dirty = new DirtyRegion().coalesce(board);
+		assertEquals(dirty.size(), 1);
+		assertEquals(dirty.get(0), new Rectangle(0, 0, 3, 2));
+	}
+
+	//Too many rectangles collapse into their bounding box
+	@Test
+	public void testManyRectanglesCollapse() {
+		MineBoard board = new MineBoard(30, 30, 10);
+		board.reveal(15, 15);
+		List<Rectangle> dirty = new DirtyRegion().coalesce(board);
+		assertTrue(dirty.size() <= 8);
+		for (int i = 0; i < board.getChangedCount(); i++) {
+			int cell = board.getChangedCell(i);
+			boolean covered = false;
+			for (Rectangle r : dirty) {
+				covered |= r.contains(cell % 30, cell / 30);
+			}
+			assertTrue(covered);
+		}
+	}
+}
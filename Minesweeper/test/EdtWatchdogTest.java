@@ -0,0 +1,134 @@
+import static org.junit.Assert.*;
+
+import java.awt.EventQueue;
+import java.util.concurrent.CountDownLatch;
+
+import org.junit.Before;
+import org.junit.Test;
+
+public class EdtWatchdogTest {
+	// Threshold of the watchdogs stepped through by hand, in milliseconds
+	static final long THRESHOLD = 50;
+	static final long MILLIS = 1000000;
+	EdtWatchdog watchdog;
+
+	@Before
+	public void setUp() {
+		watchdog = new EdtWatchdog(THRESHOLD);
+	}
+
+	/**
+	 * Holds up the thread until it is released, under a name the stall can be
+	 * recognized by
+	 *
+	 * @param release Latch counted down to release it
+	 */
+	private static void holdUp(CountDownLatch release) {
+		try {
+			release.await();
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+		}
+	}
+
+	/**
+	 * Starts a thread that stands in for the event dispatch thread: it takes the
+	 * first heartbeat on time, then is held up until released and takes the
+	 * next one at the given time
+	 *
+	 * @param release Latch counted down to release it
+	 * @param late    Time of the second heartbeat in nanoseconds
+	 * @return The thread, held up once this returns
+	 * @throws InterruptedException If it is interrupted
+	 */
+	private Thread heldUpThread(final CountDownLatch release, final long late)
+			throws InterruptedException {
+		assertTrue(watchdog.check(1));
+		Thread thread = new Thread(new Runnable() {
+			public void run() {
+				watchdog.beat(2);
+				holdUp(release);
+				watchdog.beat(late);
+			}
+		});
+		thread.start();
+		while (thread.getState() != Thread.State.WAITING) {
+			Thread.yield();
+		}
+		return thread;
+	}
+
+	//Heartbeats that run within the threshold are no stalls
+	@Test
+	public void testNoStall() {
+		long now = 1;
+		for (int i = 0; i < 10; i++) {
+			assertTrue(watchdog.check(now));
+			now += THRESHOLD * MILLIS / 2;
+			assertFalse(watchdog.check(now));
+			now += THRESHOLD * MILLIS / 2;
+			watchdog.beat(now);
+		}
+		assertEquals(0, watchdog.getStalls());
+		assertNull(watchdog.getLastStall());
+	}
+
+	//A stall is timed and blamed on the code that held the thread up
+	@Test
+	public void testStall() throws InterruptedException {
+		CountDownLatch release = new CountDownLatch(1);
+		long late = 3 + 200 * MILLIS;
+		Thread thread = heldUpThread(release, late);
+		assertTrue(watchdog.check(3));
+		assertFalse(watchdog.check(3 + (THRESHOLD + 1) * MILLIS));
+		release.countDown();
+		thread.join();
+
+		assertEquals(1, watchdog.getStalls());
+		EdtWatchdog.Stall stall = watchdog.getLastStall();
+		assertEquals(200, stall.getMillis());
+		assertEquals("EdtWatchdogTest.holdUp", stall.getAction());
+		assertTrue(stall.toString().contains("CountDownLatch.await"));
+	}
+
+	//Each stall is reported once, however often the late heartbeat is checked
+	@Test
+	public void testSeparateStalls() throws InterruptedException {
+		for (int i = 0; i < 2; i++) {
+			CountDownLatch release = new CountDownLatch(1);
+			Thread thread = heldUpThread(release, 3 + 200 * MILLIS);
+			assertTrue(watchdog.check(3));
+			for (long t = 60; t < 200; t += 20) {
+				assertFalse(watchdog.check(3 + t * MILLIS));
+			}
+			release.countDown();
+			thread.join();
+		}
+		assertEquals(2, watchdog.getStalls());
+	}
+
+	//A running watchdog catches a long stall of the real event dispatch thread
+	@Test
+	public void testStallOnEventThread() throws Exception {
+		EdtWatchdog running = new EdtWatchdog(200);
+		running.start();
+		try {
+			EventQueue.invokeAndWait(new Runnable() {
+				public void run() {
+					try {
+						Thread.sleep(1000);
+					} catch (InterruptedException e) {
+						Thread.currentThread().interrupt();
+					}
+				}
+			});
+			for (int i = 0; i < 500 && running.getStalls() == 0; i++) {
+				Thread.sleep(10);
+			}
+			assertTrue(running.getStalls() >= 1);
+			assertTrue(running.getLastStall().getMillis() >= 200);
+		} finally {
+			running.stop();
+		}
+	}
+}
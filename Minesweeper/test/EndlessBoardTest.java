@@ -0,0 +1,164 @@
+import static org.junit.Assert.*;
+
+import java.io.File;
+import java.nio.file.Files;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+public class EndlessBoardTest {
+	File spill;
+
+	@Before
+	public void setUp() throws Exception {
+		spill = Files.createTempDirectory("minesweeper").toFile();
+	}
+
+	@After
+	public void tearDown() throws Exception {
+		for (File f : spill.listFiles()) {
+			f.delete();
+		}
+		spill.delete();
+	}
+
+	/**
+	 * Counts the mines around a tile the slow way
+	 *
+	 * @param board Board to look at
+	 * @param r     Row of the tile
+	 * @param c     Column of the tile
+	 * @return Number of neighboring mines
+	 */
+	private static int neighboringMines(EndlessBoard board, int r, int c) {
+		int count = 0;
+		for (int i = r - 1; i <= r + 1; i++) {
+			for (int j = c - 1; j <= c + 1; j++) {
+				if ((i != r || j != c) && (board.getCell(i, j) & MineBoard.VALUE) == MineBoard.MINE)
+					count++;
+			}
+		}
+		return count;
+	}
+
+	//The same seed always gives the same tiles, in whatever order they are generated
+	@Test
+	public void testSameSeedSameTiles() {
+		EndlessBoard board = new EndlessBoard(42L, 200, 9, spill);
+		EndlessBoard same = new EndlessBoard(42L, 200, 9, spill);
+		byte[] tiles = new byte[200 * 200];
+		for (int i = 0; i < tiles.length; i++) {
+			tiles[i] = board.getCell(i / 200 - 100, i % 200 + 999900);
+		}
+		for (int i = tiles.length - 1; i >= 0; i--) {
+			assertEquals(same.getCell(i / 200 - 100, i % 200 + 999900), tiles[i]);
+		}
+		EndlessBoard other = new EndlessBoard(43L, 200, 9, spill);
+		boolean differs = false;
+		for (int i = 0; i < tiles.length; i++) {
+			differs |= other.getCell(i / 200 - 100, i % 200 + 999900) != tiles[i];
+		}
+		assertTrue(differs);
+	}
+
+	//Numbers are right across the edges of chunks
+	@Test
+	public void testNumbersAcrossChunks() {
+		EndlessBoard board = new EndlessBoard(7L, 300, 16, spill);
+		for (int r = -40; r < 40; r++) {
+			for (int c = -40; c < 40; c++) {
+				int value = board.getCell(r, c) & MineBoard.VALUE;
+				if (value != MineBoard.MINE)
+					assertEquals(value, neighboringMines(board, r, c));
+			}
+		}
+	}
+
+	//Every chunk has the same number of mines
+	@Test
+	public void testMinesPerChunk() {
+		EndlessBoard board = new EndlessBoard(3L, 150, 9, spill);
+		int mines = 0;
+		for (int r = EndlessBoard.CHUNK_SIZE * 5; r < EndlessBoard.CHUNK_SIZE * 6; r++) {
+			for (int c = -EndlessBoard.CHUNK_SIZE; c < 0; c++) {
+				if ((board.getCell(r, c) & MineBoard.VALUE) == MineBoard.MINE)
+					mines++;
+			}
+		}
+		assertEquals(mines, 150);
+	}
+
+	//The game starts safely at the origin
+	@Test
+	public void testOriginIsSafe() {
+		for (long seed = 0; seed < 20; seed++) {
+			EndlessBoard board = new EndlessBoard(seed, 512, 9, spill);
+			assertEquals(board.reveal(0, 0), MineBoard.Result.REVEALED);
+			assertEquals(board.getCell(0, 0), 0);
+		}
+	}
+
+	//Memory is bounded, and only chunks with moves on them are written out
+	@Test
+	public void testEvictionSpillsTouchedChunks() {
+		EndlessBoard board = new EndlessBoard(11L, 200, 9, spill);
+		board.reveal(0, 0);
+		byte[] opened = new byte[9];
+		for (int i = 0; i < 9; i++) {
+			opened[i] = board.getCell(i - 4, 0);
+		}
+		int covered = 0;
+		while ((board.getCell(0, covered) & MineBoard.COVERED) == 0) {
+			covered++;
+		}
+		assertEquals(board.toggleFlag(0, covered), MineBoard.Result.FLAGGED);
+
+		// Wander far away, looking at many chunks
+		for (int i = 0; i < 50; i++) {
+			board.getCell(5000, i * EndlessBoard.CHUNK_SIZE);
+			assertTrue(board.getLoadedChunks() <= 9);
+		}
+		assertTrue(board.getSpilledChunks() > 0);
+		assertEquals(spill.listFiles().length, board.getSpilledChunks());
+		assertTrue(board.getSpilledChunks() <= 4);
+
+		// Coming back finds the moves where they were
+		assertEquals(board.getCell(0, covered) & MineBoard.FLAGGED, MineBoard.FLAGGED);
+		for (int i = 0; i < 9; i++) {
+			assertEquals(board.getCell(i - 4, 0), opened[i]);
+		}
+		board.deleteSpilled();
+		assertEquals(spill.listFiles().length, 0);
+	}
+
+	//An opening can be larger than the chunks kept in memory
+	@Test
+	public void testOpeningLargerThanCache() {
+		EndlessBoard board = new EndlessBoard(5L, 102, 9, spill);
+		EndlessBoard large = new EndlessBoard(5L, 102, 1000, spill);
+		board.reveal(0, 0);
+		large.reveal(0, 0);
+		assertEquals(board.getUncovered(), large.getUncovered());
+		assertEquals(board.getChangedCount(), large.getChangedCount());
+		for (int i = 0; i < board.getChangedCount(); i++) {
+			int r = board.getChangedRow(i);
+			int c = board.getChangedColumn(i);
+			assertEquals(board.getCell(r, c), large.getCell(r, c));
+		}
+	}
+
+	//Uncovering a mine ends the game
+	@Test
+	public void testMineLoses() {
+		EndlessBoard board = new EndlessBoard(9L, 300, 9, spill);
+		int c = 100;
+		while ((board.getCell(100, c) & MineBoard.VALUE) != MineBoard.MINE) {
+			c++;
+		}
+		assertEquals(board.reveal(100, c), MineBoard.Result.EXPLODED);
+		assertEquals(board.getCell(100, c), MineBoard.TRIPPED);
+		assertTrue(board.isOver());
+		assertEquals(board.reveal(0, 0), MineBoard.Result.IGNORED);
+	}
+}
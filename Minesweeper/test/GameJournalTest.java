@@ -0,0 +1,298 @@
+import static org.junit.Assert.*;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.util.Random;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+public class GameJournalTest {
+	File snapshotFile;
+	File journalFile;
+	GameJournal journal;
+
+	@Before
+	public void setUp() throws Exception {
+		snapshotFile = File.createTempFile("minesweeper", ".bin");
+		journalFile = File.createTempFile("minesweeper", ".journal");
+		journal = new GameJournal(snapshotFile, journalFile);
+	}
+
+	@After
+	public void tearDown() throws Exception {
+		journal.close();
+		snapshotFile.delete();
+		journalFile.delete();
+	}
+
+	/**
+	 * Makes random moves on a board, recording the ones that change it
+	 *
+	 * @param board  Board to play on
+	 * @param random Source of the moves
+	 * @param moves  Number of moves to try
+	 * @throws IOException If a move cannot be recorded
+	 */
+	private void play(MineBoard board, Random random, int moves) throws IOException {
+		for (int i = 0; i < moves && !board.isOver(); i++) {
+			int r = random.nextInt(board.getHeight());
+			int c = random.nextInt(board.getWidth());
+			boolean flag = random.nextInt(4) == 0;
+			MineBoard.Result result = flag ? board.toggleFlag(r, c) : board.reveal(r, c);
+			if (result != MineBoard.Result.IGNORED)
+				journal.record(board, flag, r, c);
+		}
+	}
+
+	/**
+	 * Checks that two boards have the same tiles and counters
+	 *
+	 * @param expected Expected board
+	 * @param actual   Board to check
+	 */
+	private static void assertSameBoard(MineBoard expected, MineBoard actual) {
+		assertEquals(expected.getWidth(), actual.getWidth());
+		assertEquals(expected.getHeight(), actual.getHeight());
+		for (int i = 0; i < expected.getWidth() * expected.getHeight(); i++) {
+			assertEquals(expected.getCell(i), actual.getCell(i));
+		}
+		assertEquals(expected.getMoves(), actual.getMoves());
+		assertEquals(expected.getNumFlags(), actual.getNumFlags());
+		assertEquals(expected.getCoveredSafe(), actual.getCoveredSafe());
+		assertEquals(expected.isOver(), actual.isOver());
+	}
+
+	//Nothing is written until the first move
+	@Test
+	public void testNothingWrittenBeforeMove() throws IOException {
+		snapshotFile.delete();
+		assertFalse(journal.exists());
+		MineBoard board = new MineBoard(8, 8, 10);
+		board.toggleFlag(0, 0);
+		journal.record(board, true, 0, 0);
+		assertTrue(journal.exists());
+	}
+
+	//A new game is saved as its seed and its moves
+	@Test
+	public void testNewGameSavesSeed() throws IOException {
+		MineBoard board = new MineBoard(300, 200, 9000, 12345L);
+		board.reveal(100, 150);
+		journal.record(board, false, 100, 150);
+		board.toggleFlag(0, 0);
+		journal.record(board, true, 0, 0);
+		assertEquals(snapshotFile.length(), 30);
+		assertEquals(journalFile.length(), 9 + 2 * 5);
+		assertSameBoard(board, journal.restore());
+	}
+
+	//Restoring gives back the board after the last move
+	@Test
+	public void testRestore() throws IOException {
+		MineBoard board = new MineBoard(40, 30, 100, 7L);
+		play(board, new Random(3), 200);
+		assertSameBoard(board, journal.restore());
+	}
+
+	//Moves after the first reveal go to the journal, not a new snapshot
+	@Test
+	public void testMovesAreAppended() throws IOException {
+		MineBoard board = new MineBoard(40, 30, 100, 7L);
+		board.reveal(15, 20);
+		journal.record(board, false, 15, 20);
+		long snapshotTime = snapshotFile.lastModified();
+		long journalSize = journalFile.length();
+		int moves = 0;
+		for (int i = 0; moves < 10; i++) {
+			if (board.toggleFlag(i / 40, i % 40) != MineBoard.Result.IGNORED) {
+				journal.record(board, true, i / 40, i % 40);
+				moves++;
+			}
+		}
+		assertEquals(journalFile.length(), journalSize + 5 * moves);
+		assertEquals(snapshotFile.lastModified(), snapshotTime);
+		assertSameBoard(board, journal.restore());
+	}
+
+	//A move cut short is ignored, and the journal continues after the last whole one
+	@Test
+	public void testTornMove() throws IOException {
+		MineBoard board = new MineBoard(40, 30, 100, 7L);
+		board.reveal(15, 20);
+		journal.record(board, false, 15, 20);
+		int[] covered = new int[3];
+		for (int i = 0, found = 0; found < covered.length; i++) {
+			if ((board.getCell(i) & MineBoard.COVERED) != 0)
+				covered[found++] = i;
+		}
+
+		board.toggleFlag(covered[0] / 40, covered[0] % 40);
+		journal.record(board, true, covered[0] / 40, covered[0] % 40);
+		MineBoard expected = BoardFile.readBinary(snapshotFile);
+		expected.reveal(15, 20);
+		expected.toggleFlag(covered[0] / 40, covered[0] % 40);
+		board.toggleFlag(covered[1] / 40, covered[1] % 40);
+		journal.record(board, true, covered[1] / 40, covered[1] % 40);
+		journal.close();
+
+		RandomAccessFile raf = new RandomAccessFile(journalFile, "rw");
+		raf.setLength(raf.length() - 2);
+		raf.close();
+		MineBoard restored = journal.restore();
+		assertSameBoard(expected, restored);
+
+		restored.toggleFlag(covered[2] / 40, covered[2] % 40);
+		expected.toggleFlag(covered[2] / 40, covered[2] % 40);
+		journal.record(restored, true, covered[2] / 40, covered[2] % 40);
+		assertSameBoard(expected, journal.restore());
+	}
+
+	//Moves the snapshot already has are not replayed again
+	@Test
+	public void testStaleJournal() throws IOException {
+		MineBoard board = new MineBoard(40, 30, 100, 7L);
+		play(board, new Random(5), 50);
+		File stale = File.createTempFile("minesweeper", ".journal");
+		Files.copy(journalFile.toPath(), stale.toPath(), StandardCopyOption.REPLACE_EXISTING);
+
+		// As if the game stopped right after writing the snapshot
+		journal.snapshot(board);
+		journal.close();
+		Files.move(stale.toPath(), journalFile.toPath(), StandardCopyOption.REPLACE_EXISTING);
+		assertSameBoard(board, journal.restore());
+	}
+
+	//The journal is started over once it is as large as a snapshot
+	@Test
+	public void testPeriodicSnapshot() throws IOException {
+		MineBoard board = new MineBoard(40, 30, 100, 7L);
+		board.reveal(15, 20);
+		journal.record(board, false, 15, 20);
+		int cell = 0;
+		while ((board.getCell(cell) & MineBoard.COVERED) == 0) {
+			cell++;
+		}
+		for (int i = 0; i < 1000; i++) {
+			board.toggleFlag(cell / 40, cell % 40);
+			journal.record(board, true, cell / 40, cell % 40);
+			assertTrue(journalFile.length() <= 9 + 5 * 256);
+		}
+		assertSameBoard(board, journal.restore());
+	}
+
+	//Moves made while a snapshot is written go to the journal after it
+	@Test
+	public void testBackgroundSnapshot() throws IOException {
+		MineBoard board = new MineBoard(40, 30, 100, 7L);
+		play(board, new Random(13), 30);
+		GameJournal.PendingSnapshot snapshot = journal.beginSnapshot(board);
+		play(board, new Random(14), 30);
+		assertTrue(journal.writeSnapshot(snapshot));
+		play(board, new Random(15), 30);
+		assertTrue(journal.finishSnapshot(snapshot));
+		assertSameBoard(board, journal.restore());
+
+		play(board, new Random(16), 30);
+		assertSameBoard(board, journal.restore());
+	}
+
+	//The game is restored whether or not a snapshot written in the background was finished
+	@Test
+	public void testBackgroundSnapshotUnfinished() throws IOException {
+		MineBoard board = new MineBoard(40, 30, 100, 7L);
+		play(board, new Random(13), 30);
+		GameJournal.PendingSnapshot snapshot = journal.beginSnapshot(board);
+		play(board, new Random(14), 30);
+		assertTrue(journal.writeSnapshot(snapshot));
+		play(board, new Random(15), 30);
+		journal.close();
+		assertSameBoard(board, journal.restore());
+	}
+
+	//A snapshot taken since the copy is not replaced by it
+	@Test
+	public void testBackgroundSnapshotCancelled() throws IOException {
+		MineBoard board = new MineBoard(40, 30, 100, 7L);
+		play(board, new Random(13), 30);
+		GameJournal.PendingSnapshot snapshot = journal.beginSnapshot(board);
+		MineBoard other = new MineBoard(20, 20, 50, 8L);
+		play(other, new Random(14), 30);
+		assertFalse(journal.writeSnapshot(snapshot));
+		assertFalse(journal.finishSnapshot(snapshot));
+		assertSameBoard(other, journal.restore());
+	}
+
+	//A snapshot still being written when its journal is closed does not replace
+	//the save of a journal started on the same files since
+	@Test
+	public void testBackgroundSnapshotClosed() throws IOException {
+		MineBoard board = new MineBoard(40, 30, 100, 7L);
+		play(board, new Random(13), 30);
+		GameJournal closed = journal;
+		GameJournal.PendingSnapshot snapshot = closed.beginSnapshot(board);
+		closed.close();
+		journal = new GameJournal(snapshotFile, journalFile);
+		MineBoard other = new MineBoard(20, 20, 50, 8L);
+		play(other, new Random(14), 30);
+		assertFalse(closed.writeSnapshot(snapshot));
+		assertFalse(closed.finishSnapshot(snapshot));
+		assertSameBoard(other, journal.restore());
+	}
+
+	//A loaded board with fewer mines than a new board may have is restored after a reset
+	@Test
+	public void testResetSmallLoadedBoard() throws IOException {
+		byte[] cells = new byte[10 * 10];
+		for (int i = 0; i < cells.length; i++) {
+			cells[i] = i % 20 == 0 ? MineBoard.COVERED | MineBoard.MINE : MineBoard.COVERED;
+		}
+		MineBoard board = new MineBoard(10, 10, cells, true);
+		board.reset();
+		assertEquals(5, board.getMines());
+		assertFalse(board.isGenerated());
+		play(board, new Random(19), 30);
+		journal.close();
+		assertSameBoard(board, journal.restore());
+	}
+
+	//A game read on another thread is journaled again once it is resumed
+	@Test
+	public void testReadAndResume() throws Exception {
+		MineBoard board = new MineBoard(40, 30, 100, 7L);
+		play(board, new Random(17), 100);
+		journal.close();
+		final GameJournal.Saved[] saved = new GameJournal.Saved[1];
+		final Exception[] failure = new Exception[1];
+		Thread reader = new Thread(new Runnable() {
+			public void run() {
+				try {
+					saved[0] = journal.read();
+				} catch (Exception e) {
+					failure[0] = e;
+				}
+			}
+		});
+		reader.start();
+		reader.join();
+		assertNull(failure[0]);
+		assertSameBoard(board, saved[0].getBoard());
+
+		MineBoard resumed = journal.resume(saved[0]);
+		play(resumed, new Random(18), 50);
+		assertSameBoard(resumed, journal.restore());
+	}
+
+	//A lost game is restored as lost
+	@Test
+	public void testRestoreLostGame() throws IOException {
+		MineBoard board = new MineBoard(8, 8, 40);
+		play(board, new Random(11), 500);
+		assertTrue(board.isOver());
+		assertSameBoard(board, journal.restore());
+	}
+}
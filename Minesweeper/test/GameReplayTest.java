@@ -0,0 +1,160 @@
+import static org.junit.Assert.*;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+import java.util.Random;
+import java.util.concurrent.ForkJoinPool;
+
+import org.junit.Before;
+import org.junit.Test;
+
+public class GameReplayTest {
+	ByteArrayOutputStream bytes;
+	GameRecorder recorder;
+
+	@Before
+	public void setUp() throws IOException {
+		bytes = new ByteArrayOutputStream();
+		recorder = new GameRecorder(bytes);
+	}
+
+	/**
+	 * Clicks random tiles of a board, recording every click
+	 *
+	 * @param board  Board to play on
+	 * @param random Source of the clicks
+	 * @param clicks Number of clicks to try
+	 * @throws IOException If a click cannot be recorded
+	 */
+	private void play(MineBoard board, Random random, int clicks) throws IOException {
+		for (int i = 0; i < clicks && !board.isOver(); i++) {
+			int r = random.nextInt(board.getHeight());
+			int c = random.nextInt(board.getWidth());
+			boolean flag = random.nextInt(4) == 0;
+			recorder.click(flag, r, c);
+			if (flag)
+				board.toggleFlag(r, c);
+			else
+				board.reveal(r, c);
+		}
+	}
+
+	/**
+	 * @return What has been recorded so far, played back
+	 * @throws IOException If the recording cannot be read
+	 */
+	private MineBoard replay() throws IOException {
+		return GameReplay.decode(ByteBuffer.wrap(bytes.toByteArray())).replay();
+	}
+
+	/**
+	 * Checks that two boards have the same tiles and counters
+	 *
+	 * @param expected Expected board
+	 * @param actual   Board to check
+	 */
+	private static void assertSameBoard(MineBoard expected, MineBoard actual) {
+		assertEquals(expected.getWidth(), actual.getWidth());
+		assertEquals(expected.getHeight(), actual.getHeight());
+		for (int i = 0; i < expected.getWidth() * expected.getHeight(); i++) {
+			assertEquals(expected.getCell(i), actual.getCell(i));
+		}
+		assertEquals(expected.getMoves(), actual.getMoves());
+		assertEquals(expected.isOver(), actual.isOver());
+		assertEquals(expected.isWon(), actual.isWon());
+	}
+
+	//A new board is recorded as its seed and each click in a few bytes
+	@Test
+	public void testCompact() throws IOException {
+		MineBoard board = new MineBoard(30, 16, 99, 12345L);
+		recorder.board(board);
+		int header = bytes.size();
+		recorder.click(false, 8, 15);
+		recorder.click(true, 100, 200);
+		assertTrue(header <= 5 + 1 + 1 + 3 + 8 + 1);
+		assertTrue(bytes.size() - header <= 2 * 5 + 2);
+	}
+
+	//Replaying the clicks on the seed gives back the board they were played on
+	@Test
+	public void testReplay() throws IOException {
+		Random random = new Random(3);
+		for (long seed = 0; seed < 20; seed++) {
+			setUp();
+			MineBoard board = new MineBoard(40, 30, 150, seed);
+			recorder.board(board);
+			play(board, random, 300);
+			assertSameBoard(board, replay());
+		}
+	}
+
+	//Resets and board changes are replayed in order
+	@Test
+	public void testResetAndNewBoard() throws IOException {
+		MineBoard board = new MineBoard(16, 16, 40, 1L);
+		recorder.board(board);
+		play(board, new Random(5), 100);
+		board.reset(99L);
+		recorder.reset(99L);
+		play(board, new Random(6), 100);
+		assertSameBoard(board, replay());
+
+		board = new MineBoard(9, 9, 10, 2L);
+		recorder.board(board);
+		play(board, new Random(7), 100);
+		assertSameBoard(board, replay());
+	}
+
+	//A board in play, such as a loaded game, is recorded as a whole
+	@Test
+	public void testLoadedBoard() throws IOException {
+		MineBoard board = new MineBoard(40, 30, 150, 8L);
+		play(board, new Random(9), 20);
+		setUp();
+		recorder.board(board);
+		play(board, new Random(10), 200);
+		assertSameBoard(board, replay());
+	}
+
+	//Boards swapped in by no-guess mode come back from the same first click
+	@Test
+	public void testNoGuess() throws IOException {
+		MineBoard board = new MineBoard(30, 16, 99, 4L);
+		recorder.board(board);
+		recorder.noGuess(true);
+		recorder.click(false, 8, 15);
+		NoGuessGenerator.firstClick(board, 8, 15, ForkJoinPool.commonPool());
+		board.reveal(8, 15);
+		play(board, new Random(11), 100);
+		assertSameBoard(board, replay());
+	}
+
+	//A click cut short at the end is left out
+	@Test
+	public void testTornEvent() throws IOException {
+		MineBoard board = new MineBoard(16, 16, 40, 1L);
+		recorder.board(board);
+		board.reveal(3, 4);
+		recorder.click(false, 3, 4);
+		MineBoard expected = new MineBoard(16, 16, 40, 1L);
+		expected.reveal(3, 4);
+		recorder.click(false, 10, 10);
+
+		byte[] recording = bytes.toByteArray();
+		for (int cut = 1; cut < 3; cut++) {
+			GameReplay replay = GameReplay
+					.decode(ByteBuffer.wrap(Arrays.copyOf(recording, recording.length - cut)));
+			assertEquals(replay.size(), 2);
+			assertSameBoard(expected, replay.replay());
+		}
+	}
+
+	//Anything else is not read as a recording
+	@Test(expected = IOException.class)
+	public void testNotRecording() throws IOException {
+		GameReplay.decode(ByteBuffer.wrap(BoardFile.encode(new MineBoard(8, 8, 10, 1L))));
+	}
+}
@@ -0,0 +1,93 @@
+import static org.junit.Assert.*;
+
+import java.util.Random;
+
+import org.junit.Test;
+
+public class MetricsTest {
+
+	//Every value lands in a bucket that holds it, within 1/32 of its size
+	@Test
+	public void testBuckets() {
+		Random random = new Random(1);
+		for (int i = 0; i < 100000; i++) {
+			long value = random.nextLong() >>> (1 + random.nextInt(63));
+			int bucket = Metrics.Histogram.bucket(value);
+			long highest = Metrics.Histogram.highest(bucket);
+			assertTrue(value <= highest);
+			assertTrue(bucket == 0 || Metrics.Histogram.highest(bucket - 1) < value);
+			assertTrue(highest - value <= value / 32);
+		}
+		assertEquals(Metrics.Histogram.highest(Metrics.Histogram.bucket(Long.MAX_VALUE)),
+				Long.MAX_VALUE);
+	}
+
+	//Small values are counted exactly
+	@Test
+	public void testSmallValues() {
+		Metrics.Histogram histogram = new Metrics.Histogram("test", "tiles");
+		for (int i = 1; i <= 10; i++) {
+			histogram.record(i);
+		}
+		assertEquals(histogram.getCount(), 10);
+		assertEquals(histogram.getMean(), 5.5, 1e-9);
+		assertEquals(histogram.getP50(), 5);
+		assertEquals(histogram.getPercentile(0.9), 9);
+		assertEquals(histogram.getP99(), 10);
+		assertEquals(histogram.getMax(), 10);
+	}
+
+	//Percentiles of a wide range stay within the precision of the buckets
+	@Test
+	public void testPercentiles() {
+		Metrics.Histogram histogram = new Metrics.Histogram("test", "ns");
+		for (long value = 1; value <= 1000000; value++) {
+			histogram.record(value);
+		}
+		assertEquals(histogram.getP50(), 500000, 500000 / 32);
+		assertEquals(histogram.getP99(), 990000, 990000 / 32);
+		assertEquals(histogram.getP999(), 999000, 999000 / 32);
+		assertEquals(histogram.getMax(), 1000000);
+		assertEquals(histogram.getPercentile(1), 1000000);
+
+		histogram.reset();
+		assertEquals(histogram.getCount(), 0);
+		assertEquals(histogram.getMean(), 0, 0);
+		assertEquals(histogram.getP99(), 0);
+	}
+
+	//Nothing recorded at the same time from many threads is lost
+	@Test
+	public void testConcurrentRecording() throws InterruptedException {
+		final Metrics.Histogram histogram = new Metrics.Histogram("test", "ns");
+		final Metrics.Counter counter = new Metrics.Counter("test");
+		Thread[] threads = new Thread[4];
+		for (int t = 0; t < threads.length; t++) {
+			final int offset = t;
+			threads[t] = new Thread(new Runnable() {
+				public void run() {
+					for (int i = 0; i < 100000; i++) {
+						histogram.record(i + offset);
+						counter.increment();
+					}
+				}
+			});
+			threads[t].start();
+		}
+		for (Thread thread : threads) {
+			thread.join();
+		}
+		assertEquals(histogram.getCount(), 400000);
+		assertEquals(counter.getCount(), 400000);
+		assertEquals(histogram.getMax(), 99999 + 3);
+	}
+
+	//The report has a line for every metric
+	@Test
+	public void testReport() {
+		String report = Metrics.report();
+		for (String name : new String[] { "click", "generate", "save", "load", "paint", "won" }) {
+			assertTrue(report.contains(name + " "));
+		}
+	}
+}
@@ -0,0 +1,382 @@
+import static org.junit.Assert.*;
+
+import java.util.Random;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+public class MineBoardTest {
+
+	@Before
+	public void setUp() throws Exception {
+		//Check the counters against the whole board after every action
+		MineBoard.setVerifyCounters(true);
+	}
+
+	@After
+	public void tearDown() throws Exception {
+		MineBoard.setVerifyCounters(false);
+	}
+
+	/**
+	 * Builds a board from rows of tile values, all covered and unflagged
+	 *
+	 * @param rows Tile values, one string per row
+	 * @return Tiles for the board
+	 */
+	private static Tile[][] tiles(String... rows) {
+		Tile[][] tiles = new Tile[rows.length][rows[0].length()];
+		for (int i = 0; i < rows.length; i++) {
+			for (int j = 0; j < rows[0].length(); j++) {
+				tiles[i][j] = new Tile(String.valueOf(rows[i].charAt(j)));
+			}
+		}
+		return tiles;
+	}
+
+	// A 3x3 board with a single mine in the bottom right corner
+	private static MineBoard corner(boolean firstMove) {
+		return new MineBoard(tiles("000", "011", "01M"), firstMove);
+	}
+
+	// Size restriction tests
+	@Test
+	public void testMinimumSize() {
+		MineBoard board = new MineBoard(2, 2, 2);
+		assertEquals(board.getWidth(), 8);
+		assertEquals(board.getHeight(), 8);
+		assertEquals(board.getMines(), 10);
+	}
+
+	@Test
+	public void testMaximumMines() {
+		MineBoard board = new MineBoard(10, 10, 100);
+		assertEquals(board.getMines(), 90);
+	}
+
+	@Test
+	public void testAllowed() {
+		assertTrue(MineBoard.isAllowed(8, 8, 10));
+		assertTrue(MineBoard.isAllowed(10, 10, 99));
+		assertFalse(MineBoard.isAllowed(3, 3, 2));
+		assertFalse(MineBoard.isAllowed(16, 16, 5));
+		assertFalse(MineBoard.isAllowed(10, 10, 100));
+		// A loaded board with fewer mines than allowed resets with the same number
+		MineBoard loaded = corner(true);
+		loaded.reset();
+		assertEquals(loaded.getMines(), 1);
+	}
+
+	//A save with uncovered tiles is past its first move, whatever it says
+	@Test
+	public void testLoadedFirstMove() {
+		MineBoard board = new MineBoard(tiles("000", "011", "01M"), true);
+		assertTrue(board.isFirstMove());
+		Tile[][] tiles = tiles("000", "011", "01M");
+		tiles[0][0].setCovered(false);
+		board = new MineBoard(tiles, true);
+		assertFalse(board.isFirstMove());
+		assertEquals(board.reveal(2, 2), MineBoard.Result.EXPLODED);
+	}
+
+	//A mine under the first click only moves to a covered tile
+	@Test
+	public void testRelocatedToCovered() {
+		for (int seed = 0; seed < 50; seed++) {
+			MineBoard board = new MineBoard(16, 16, 200, seed);
+			int mine = 0;
+			while (!board.getTile(mine / 16, mine % 16).getTileVal().equals("M"))
+				mine++;
+			board.reveal(mine / 16, mine % 16);
+			board.verifyCounters();
+			int mines = 0;
+			for (int i = 0; i < 16 * 16; i++) {
+				Tile tile = board.getTile(i / 16, i % 16);
+				if (tile.getTileVal().equals("M")) {
+					mines++;
+					assertTrue(tile.isCovered());
+				}
+			}
+			assertEquals(mines, 200);
+		}
+	}
+
+	@Test
+	public void testMinesPlaced() {
+		MineBoard board = new MineBoard(16, 16, 40);
+		int mines = 0;
+		for (int i = 0; i < board.getHeight(); i++) {
+			for (int j = 0; j < board.getWidth(); j++) {
+				if (board.getTile(i, j).getTileVal().equals("M"))
+					mines++;
+			}
+		}
+		assertEquals(mines, 40);
+	}
+
+	@Test
+	public void testDenseMinesPlaced() {
+		MineBoard board = new MineBoard(1000, 1000, 1000 * 1000 - 10);
+		int mines = 0;
+		for (int i = 0; i < board.getHeight(); i++) {
+			for (int j = 0; j < board.getWidth(); j++) {
+				if (board.getTile(i, j).getTileVal().equals("M"))
+					mines++;
+			}
+		}
+		assertEquals(mines, 1000 * 1000 - 10);
+	}
+
+	@Test
+	public void testMinesSpreadEvenly() {
+		MineBoard board = new MineBoard(8, 8, 32);
+		int[] hits = new int[64];
+		for (int game = 0; game < 4000; game++) {
+			board.reset(game);
+			for (int i = 0; i < 64; i++) {
+				if (board.getTile(i / 8, i % 8).getTileVal().equals("M"))
+					hits[i]++;
+			}
+		}
+		// Every tile should be a mine about half the time
+		for (int i = 0; i < 64; i++) {
+			assertTrue(hits[i] > 1700 && hits[i] < 2300);
+		}
+	}
+
+	@Test
+	public void testFirstMoveOnDenseBoard() {
+		MineBoard board = new MineBoard(8, 8, 54);
+		for (int i = 0; i < 64; i++) {
+			if (board.getTile(i / 8, i % 8).getTileVal().equals("M")) {
+				assertNotEquals(board.reveal(i / 8, i % 8), MineBoard.Result.EXPLODED);
+				assertFalse(board.getTile(i / 8, i % 8).isCovered());
+				return;
+			}
+		}
+	}
+
+	// Seed tests
+	@Test
+	public void testSameSeedSameBoard() {
+		MineBoard board = new MineBoard(30, 20, 120, 99L);
+		MineBoard same = new MineBoard(30, 20, 120, 99L);
+		MineBoard other = new MineBoard(30, 20, 120, 100L);
+		boolean differs = false;
+		for (int i = 0; i < 600; i++) {
+			assertEquals(board.getCell(i), same.getCell(i));
+			differs |= board.getCell(i) != other.getCell(i);
+		}
+		assertTrue(differs);
+		assertEquals(board.getSeed(), 99L);
+		assertTrue(board.isGenerated());
+	}
+
+	@Test
+	public void testResetToSeed() {
+		MineBoard board = new MineBoard(30, 20, 120, 5L);
+		board.reveal(10, 10);
+		board.reset(99L);
+		MineBoard expected = new MineBoard(30, 20, 120, 99L);
+		for (int i = 0; i < 600; i++) {
+			assertEquals(board.getCell(i), expected.getCell(i));
+		}
+	}
+
+	@Test
+	public void testSeedReproducesFirstMove() {
+		MineBoard board = new MineBoard(8, 8, 54, 3L);
+		MineBoard same = new MineBoard(8, 8, 54, 3L);
+		int mine = 0;
+		while ((board.getCell(mine) & MineBoard.VALUE) != MineBoard.MINE) {
+			mine++;
+		}
+		board.reveal(mine / 8, mine % 8);
+		same.reveal(mine / 8, mine % 8);
+		for (int i = 0; i < 64; i++) {
+			assertEquals(board.getCell(i), same.getCell(i));
+		}
+	}
+
+	// Reveal tests
+	@Test
+	public void testEmptyRevealWins() {
+		MineBoard board = corner(false);
+		assertEquals(board.reveal(0, 0), MineBoard.Result.WON);
+		assertTrue(board.isWon());
+		assertTrue(board.isOver());
+		assertTrue(board.getTile(2, 2).isFlagged()); // Last mine flagged automatically
+		assertEquals(board.getNumMines(), 0);
+	}
+
+	@Test
+	public void testNumberRevealOnlyUncoversOne() {
+		MineBoard board = corner(false);
+		assertEquals(board.reveal(1, 1), MineBoard.Result.REVEALED);
+		assertFalse(board.getTile(1, 1).isCovered());
+		assertTrue(board.getTile(0, 0).isCovered());
+		assertFalse(board.isWon());
+	}
+
+	@Test
+	public void testMineRevealLoses() {
+		MineBoard board = corner(false);
+		assertEquals(board.reveal(2, 2), MineBoard.Result.EXPLODED);
+		assertEquals(board.getTile(2, 2).getTileVal(), "F");
+		assertTrue(board.isOver());
+		assertFalse(board.isWon());
+		assertFalse(board.getTile(0, 0).isCovered()); // Everything is uncovered
+		assertEquals(board.reveal(0, 0), MineBoard.Result.IGNORED);
+	}
+
+	@Test
+	public void testFirstMoveMovesMine() {
+		MineBoard board = new MineBoard(tiles("0000", "0000", "0011", "001M"), true);
+		assertNotEquals(board.reveal(3, 3), MineBoard.Result.EXPLODED);
+		assertFalse(board.getTile(3, 3).getTileVal().equals("M"));
+		assertFalse(board.isOver() && !board.isWon());
+		assertEquals(board.getMines(), 1);
+	}
+
+	// Flag tests
+	@Test
+	public void testFlaggedTileNotRevealed() {
+		MineBoard board = corner(false);
+		assertEquals(board.toggleFlag(0, 0), MineBoard.Result.FLAGGED);
+		assertEquals(board.reveal(0, 0), MineBoard.Result.IGNORED);
+		assertTrue(board.getTile(0, 0).isCovered());
+		assertEquals(board.getNumMines(), 0);
+		assertEquals(board.toggleFlag(0, 0), MineBoard.Result.UNFLAGGED);
+		assertEquals(board.getNumMines(), 1);
+	}
+
+	@Test
+	public void testFlaggedTileStopsEmptyReveal() {
+		MineBoard board = corner(false);
+		board.toggleFlag(0, 2);
+		assertEquals(board.reveal(0, 0), MineBoard.Result.REVEALED);
+		assertTrue(board.getTile(0, 2).isCovered());
+		assertFalse(board.getTile(2, 0).isCovered());
+	}
+
+	@Test
+	public void testUncoveredTileCannotBeFlagged() {
+		MineBoard board = corner(false);
+		board.reveal(1, 1);
+		assertEquals(board.toggleFlag(1, 1), MineBoard.Result.IGNORED);
+	}
+
+	@Test
+	public void testOutOfBoundsIgnored() {
+		MineBoard board = corner(false);
+		assertEquals(board.reveal(-1, 0), MineBoard.Result.IGNORED);
+		assertEquals(board.toggleFlag(0, 3), MineBoard.Result.IGNORED);
+	}
+
+	// Counter tests
+	@Test
+	public void testCountersOnLoad() {
+		Tile[][] tiles = tiles("000", "011", "01M");
+		tiles[2][2].setFlagged(true);
+		tiles[0][0].setFlagged(true);
+		tiles[1][1].setCovered(false);
+		MineBoard board = new MineBoard(tiles, false);
+		assertEquals(board.getNumFlags(), 2);
+		assertEquals(board.getCorrectFlags(), 1);
+		assertEquals(board.getCoveredSafe(), 7);
+	}
+
+	@Test
+	public void testCountersFollowFlags() {
+		MineBoard board = corner(false);
+		board.toggleFlag(2, 2);
+		board.toggleFlag(0, 0);
+		assertEquals(board.getCorrectFlags(), 1);
+		board.toggleFlag(2, 2);
+		assertEquals(board.getCorrectFlags(), 0);
+		assertEquals(board.getNumFlags(), 1);
+	}
+
+	@Test
+	public void testCountersFollowReveals() {
+		MineBoard board = new MineBoard(30, 16, 99);
+		assertEquals(board.getCoveredSafe(), 30 * 16 - 99);
+		board.reveal(8, 15);
+		assertEquals(board.getCoveredSafe(), 30 * 16 - 99 - board.getChangedCount());
+	}
+
+	@Test
+	public void testCountersDuringRandomPlay() {
+		Random random = new Random(42);
+		for (int game = 0; game < 200; game++) {
+			MineBoard board = new MineBoard(9, 9, 10);
+			while (!board.isOver()) {
+				if (random.nextInt(4) == 0) {
+					board.toggleFlag(random.nextInt(9), random.nextInt(9));
+				} else {
+					board.reveal(random.nextInt(9), random.nextInt(9));
+				}
+			}
+		}
+	}
+
+	// Changed cell tests
+	@Test
+	public void testChangedCellsOfOpening() {
+		MineBoard board = corner(false);
+		board.toggleFlag(0, 2);
+		board.reveal(0, 0);
+		assertEquals(board.getChangedCount(), 7); // Everything but the flag and the mine
+		for (int i = 0; i < board.getChangedCount(); i++) {
+			assertFalse(board.getTile(board.getChangedCell(i) / 3, board.getChangedCell(i) % 3)
+					.isCovered());
+		}
+	}
+
+	@Test
+	public void testChangedCellOfFlag() {
+		MineBoard board = corner(false);
+		board.toggleFlag(1, 2);
+		assertEquals(board.getChangedCount(), 1);
+		assertEquals(board.getChangedCell(0), 5);
+		board.reveal(1, 2);
+		assertEquals(board.getChangedCount(), 0);
+	}
+
+	@Test
+	public void testHugeOpening() {
+		MineBoard board = new MineBoard(2000, 2000, 10);
+		MineBoard.Result result = board.reveal(1000, 1000);
+		int uncovered = 0;
+		for (int i = 0; i < board.getHeight(); i++) {
+			for (int j = 0; j < board.getWidth(); j++) {
+				if (!board.getTile(i, j).isCovered())
+					uncovered++;
+			}
+		}
+		assertTrue(uncovered > 2000 * 2000 - 100);
+		if (result == MineBoard.Result.WON) {
+			// The mines are flagged as part of the same action
+			assertEquals(board.getChangedCount(), uncovered + 10);
+		} else {
+			assertEquals(board.getChangedCount(), uncovered);
+		}
+	}
+
+	// Headless play test, clicks every safe tile of random boards
+	@Test
+	public void testPlayWithoutDisplay() {
+		for (int game = 0; game < 100; game++) {
+			MineBoard board = new MineBoard(16, 16, 40);
+			for (int i = 0; i < board.getHeight(); i++) {
+				for (int j = 0; j < board.getWidth(); j++) {
+					if (!board.isFirstMove() && board.getTile(i, j).getTileVal().equals("M"))
+						continue;
+					assertNotEquals(board.reveal(i, j), MineBoard.Result.EXPLODED);
+				}
+			}
+			assertTrue(board.isWon());
+		}
+	}
+}
@@ -1,8 +1,14 @@
 import static org.junit.Assert.*;
 
 import java.awt.Dimension;
+import java.awt.EventQueue;
+import java.beans.PropertyChangeEvent;
+import java.beans.PropertyChangeListener;
 import java.io.File;
 import java.io.IOException;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.List;
 
 import javax.swing.JFrame;
 import javax.swing.JLabel;
@@ -97,7 +103,7 @@ public class MineMapTest {
 	public void testFlaggedClick() {
 		try {
 			Tile[][] save1 = Tile.tilesFromFile(new File("files/fromFileTest.txt"));
-			MineMap mines = new MineMap(10,10,10, basePanel, textPanel);
+			MineMap mines = new MineMap(10,10,10, basePanel, textPanel, false, null);
 			mines.loadGame(new File("files/fromFileTest.txt"));
 			mines.click(1, 2); //Clicks on the flagged square
 			mines.saveGame(new File("files/writeTest1.txt"));
@@ -124,7 +130,7 @@ public class MineMapTest {
 	public void testEmptySquareClick() {
 		try {
 			Tile[][] expected = Tile.tilesFromFile(new File("files/fromFileTest.txt"));
-			MineMap mines = new MineMap(10,10,10, basePanel, textPanel);
+			MineMap mines = new MineMap(10,10,10, basePanel, textPanel, false, null);
 			mines.loadGame(new File("files/emptyClickTest.txt"));
 			mines.click(0, 0); //Clicks on the flagged square
 			mines.saveGame(new File("files/writeTest1.txt"));
@@ -153,7 +159,7 @@ public class MineMapTest {
 	public void testAutoFlagLast() {
 		try {
 			
-			MineMap mines = new MineMap(10,10,10, basePanel, textPanel);
+			MineMap mines = new MineMap(10,10,10, basePanel, textPanel, false, null);
 			mines.loadGame(new File("files/emptyClickTest.txt"));
 			mines.click(0, 0); //Clicks on the flagged square
 			mines.saveGame(new File("files/writeTest1.txt"));
@@ -173,8 +179,9 @@ public class MineMapTest {
 	public void testFirstClickOnMineDoesntFail() {
 		try {
 			
-			MineMap mines = new MineMap(10,10,10, basePanel, textPanel);
-			mines.loadGame(new File("files/emptyClickTest.txt"));
+			MineMap mines = new MineMap(10,10,10, basePanel, textPanel, false, null);
+			// A save with uncovered tiles has had its first move, so every tile is covered
+			mines.loadGame(new File("files/FirstClickTest.txt"));
 			mines.click(1, 2); //Clicks on the flagged square
 			mines.saveGame(new File("files/writeTest1.txt"));
 			Tile[][] save2 = Tile.tilesFromFile(new File("files/writeTest1.txt"));
@@ -188,4 +195,68 @@ public class MineMapTest {
 		}
 	}
 	
+	/**
+	 * Waits on the event dispatch thread for the map to finish its save or load
+	 *
+	 * @param mines Map to wait for
+	 * @throws Exception If waiting fails
+	 */
+	private void awaitIdle(final MineMap mines) throws Exception {
+		final boolean[] busy = { true };
+		for (int i = 0; i < 1000 && busy[0]; i++) {
+			Thread.sleep(10);
+			EventQueue.invokeAndWait(new Runnable() {
+				public void run() {
+					busy[0] = mines.isBusy();
+				}
+			});
+		}
+		assertFalse(busy[0]);
+	}
+
+	//A reset while a game is loading is left out, so the load cannot undo it
+	@Test
+	public void testResetWaitsForLoad() throws Exception {
+		File dir = Files.createTempDirectory("minemap").toFile();
+		final GameJournal journal = new GameJournal(new File(dir, "save.bin"),
+				new File(dir, "save.journal"));
+		final MineMap mines = new MineMap(16, 16, 40, null, null, false, journal);
+		final List<Object> changes = new ArrayList<Object>();
+		final long[] seeds = new long[2];
+		mines.setQuiet(true);
+		EventQueue.invokeAndWait(new Runnable() {
+			public void run() {
+				seeds[0] = mines.getBoard().getSeed();
+				mines.saveGame();
+			}
+		});
+		awaitIdle(mines);
+
+		EventQueue.invokeAndWait(new Runnable() {
+			public void run() {
+				mines.reset();
+				mines.addPropertyChangeListener("busy", new PropertyChangeListener() {
+					public void propertyChange(PropertyChangeEvent evt) {
+						changes.add(evt.getNewValue());
+					}
+				});
+				mines.loadGame();
+				assertTrue(mines.isBusy());
+				seeds[1] = mines.getBoard().getSeed();
+				mines.reset();
+				assertEquals(seeds[1], mines.getBoard().getSeed());
+			}
+		});
+		awaitIdle(mines);
+
+		assertEquals(seeds[0], mines.getBoard().getSeed());
+		assertEquals(2, changes.size());
+		assertEquals(Boolean.TRUE, changes.get(0));
+		assertEquals(Boolean.FALSE, changes.get(1));
+		mines.dispose();
+		for (File f : dir.listFiles())
+			f.delete();
+		dir.delete();
+	}
+
 }
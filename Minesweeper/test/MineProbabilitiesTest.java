@@ -0,0 +1,193 @@
+import static org.junit.Assert.*;
+
+import java.util.Random;
+
+import org.junit.Test;
+
+public class MineProbabilitiesTest {
+
+	/**
+	 * Builds a board with mines in the given tiles, all covered
+	 *
+	 * @param width  Width of the board
+	 * @param height Height of the board
+	 * @param mines  Whether each tile is a mine
+	 * @return The board
+	 */
+	private static MineBoard board(int width, int height, boolean[] mines) {
+		Tile[][] tiles = new Tile[height][width];
+		for (int i = 0; i < height; i++) {
+			for (int j = 0; j < width; j++) {
+				tiles[i][j] = mines[i * width + j] ? new Tile("M") : null;
+			}
+		}
+		return new MineBoard(tiles, false);
+	}
+
+	/**
+	 * Works out the chances by trying every placement of the mines left on the
+	 * unknown tiles and keeping the ones that match every number
+	 *
+	 * @param solver Solver of the board
+	 * @return Chance of each tile
+	 */
+	private static double[] bruteForce(Solver solver) {
+		MineBoard board = solver.getBoard();
+		int n = board.getWidth() * board.getHeight();
+		int[] unknown = new int[n];
+		int numUnknown = 0;
+		for (int i = 0; i < n; i++) {
+			if ((board.getCell(i) & MineBoard.COVERED) != 0 && !solver.isKnownMine(i)
+					&& !solver.isKnownSafe(i))
+				unknown[numUnknown++] = i;
+		}
+		int left = board.getMines() - solver.getKnownMines();
+		double[] hits = new double[n];
+		long matches = 0;
+		// Every set of left bits, in increasing order
+		for (long set = (1L << left) - 1; set < 1L << numUnknown; set = nextSet(set)) {
+			boolean[] mine = new boolean[n];
+			for (int i = 0; i < n; i++) {
+				mine[i] = solver.isKnownMine(i);
+			}
+			for (int b = 0; b < numUnknown; b++) {
+				if ((set >> b & 1) != 0)
+					mine[unknown[b]] = true;
+			}
+			if (!matches(board, mine))
+				continue;
+			matches++;
+			for (int i = 0; i < n; i++) {
+				if (mine[i])
+					hits[i]++;
+			}
+		}
+		for (int i = 0; i < n; i++) {
+			hits[i] = (board.getCell(i) & MineBoard.COVERED) != 0 ? hits[i] / matches : 0;
+		}
+		return hits;
+	}
+
+	/**
+	 * @param set A set of bits
+	 * @return The next larger number with as many bits set, or a number too large
+	 *         to be a set when there is none
+	 */
+	private static long nextSet(long set) {
+		if (set == 0)
+			return Long.MAX_VALUE;
+		long lowest = set & -set;
+		long ripple = set + lowest;
+		return ripple | ((set ^ ripple) >>> 2) / lowest;
+	}
+
+	/**
+	 * @param board Board with uncovered numbers
+	 * @param mine  A placement of mines
+	 * @return Whether the placement gives every uncovered number
+	 */
+	private static boolean matches(MineBoard board, boolean[] mine) {
+		int width = board.getWidth();
+		int height = board.getHeight();
+		for (int cell = 0; cell < width * height; cell++) {
+			if ((board.getCell(cell) & MineBoard.COVERED) != 0)
+				continue;
+			int count = 0;
+			for (int i = Math.max(cell / width - 1, 0); i <= Math.min(cell / width + 1, height - 1); i++) {
+				for (int j = Math.max(cell % width - 1, 0); j <= Math.min(cell % width + 1, width - 1); j++) {
+					if (mine[i * width + j])
+						count++;
+				}
+			}
+			if (count != (board.getCell(cell) & MineBoard.VALUE))
+				return false;
+		}
+		return true;
+	}
+
+	//Two tiles next to a single 1, with nothing else left, are even odds
+	@Test
+	public void testEvenOdds() {
+		MineBoard board = board(3, 1, new boolean[] { true, false, false });
+		board.reveal(0, 1);
+		MineProbabilities odds = new MineProbabilities(new Solver(board));
+		odds.compute();
+		assertEquals(odds.getProbability(0), 0.5, 1e-12);
+		assertEquals(odds.getProbability(1), 0, 0);
+		assertEquals(odds.getProbability(2), 0.5, 1e-12);
+	}
+
+	//The chances match trying every placement on small boards
+	@Test
+	public void testMatchesBruteForce() {
+		Random random = new Random(23);
+		for (int game = 0; game < 300; game++) {
+			int width = 4 + random.nextInt(3);
+			int height = 4;
+			boolean[] mines = new boolean[width * height];
+			for (int placed = 0, target = 3 + random.nextInt(4); placed < target;) {
+				int cell = random.nextInt(mines.length);
+				if (!mines[cell]) {
+					mines[cell] = true;
+					placed++;
+				}
+			}
+			MineBoard board = board(width, height, mines);
+			Solver solver = new Solver(board);
+			MineProbabilities odds = new MineProbabilities(solver);
+			// Reveal a few safe tiles, checking the chances after each
+			for (int move = 0; move < 3 && !board.isOver(); move++) {
+				int cell = random.nextInt(mines.length);
+				if (mines[cell])
+					continue;
+				board.reveal(cell / width, cell % width);
+				odds.compute();
+				if (board.isOver())
+					break;
+				double[] expected = bruteForce(solver);
+				for (int i = 0; i < mines.length; i++) {
+					assertEquals(expected[i], odds.getProbability(i), 1e-9);
+				}
+			}
+		}
+	}
+
+	//The chances over the covered tiles add up to the mines of the board
+	@Test
+	public void testExpectedMines() {
+		for (int game = 0; game < 50; game++) {
+			MineBoard board = new MineBoard(30, 16, 99, game);
+			Solver solver = new Solver(board);
+			MineProbabilities odds = new MineProbabilities(solver);
+			board.reveal(8, 15);
+			while (!board.isOver()) {
+				odds.compute();
+				double sum = 0;
+				for (int i = 0; i < 30 * 16; i++) {
+					double p = odds.getProbability(i);
+					assertTrue(p >= 0 && p <= 1 + 1e-9);
+					sum += p;
+				}
+				assertEquals(sum, 99, 1e-6);
+				int cell = odds.getSafest();
+				board.reveal(cell / 30, cell % 30);
+			}
+		}
+	}
+
+	//Tiles the solver knows are certain
+	@Test
+	public void testKnownTiles() {
+		MineBoard board = new MineBoard(30, 16, 99, 4L);
+		Solver solver = new Solver(board);
+		MineProbabilities odds = new MineProbabilities(solver);
+		board.reveal(8, 15);
+		odds.compute();
+		for (int i = 0; i < 30 * 16; i++) {
+			if (solver.isKnownMine(i))
+				assertEquals(odds.getProbability(i), 1, 0);
+			if (solver.isKnownSafe(i))
+				assertEquals(odds.getProbability(i), 0, 0);
+		}
+	}
+}
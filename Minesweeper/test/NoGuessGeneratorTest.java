@@ -0,0 +1,95 @@
+import static org.junit.Assert.*;
+
+import java.util.concurrent.ForkJoinPool;
+
+import org.junit.Test;
+
+public class NoGuessGeneratorTest {
+
+	//The board found opens on the click and the solver wins it from there
+	@Test
+	public void testSolvableWithoutGuessing() {
+		for (long seed = 0; seed < 10; seed++) {
+			MineBoard board = new MineBoard(30, 16, 99, seed);
+			assertTrue(NoGuessGenerator.generate(board, 8, 15, ForkJoinPool.commonPool()));
+			assertTrue(board.isFirstMove());
+			assertEquals(board.getCell(8, 15), MineBoard.COVERED);
+
+			Solver solver = new Solver(board);
+			board.reveal(8, 15);
+			solver.update();
+			for (int cell = solver.nextSafe(); cell >= 0; cell = solver.nextSafe()) {
+				assertNotEquals(board.reveal(cell / 30, cell % 30), MineBoard.Result.EXPLODED);
+				solver.update();
+			}
+			assertTrue(board.isWon());
+		}
+	}
+
+	//The board found only depends on the seed and the click, not the threads
+	@Test
+	public void testSameBoardOnAnyPool() {
+		ForkJoinPool one = new ForkJoinPool(1);
+		ForkJoinPool four = new ForkJoinPool(4);
+		try {
+			for (long seed = 0; seed < 10; seed++) {
+				MineBoard board = new MineBoard(16, 16, 40, seed);
+				MineBoard same = new MineBoard(16, 16, 40, seed);
+				NoGuessGenerator.generate(board, 3, 12, one);
+				NoGuessGenerator.generate(same, 3, 12, four);
+				assertEquals(board.getSeed(), same.getSeed());
+			}
+		} finally {
+			one.shutdown();
+			four.shutdown();
+		}
+	}
+
+	//The seed found generates the same board again, so seed saves still work
+	@Test
+	public void testSeedReproducesBoard() {
+		MineBoard board = new MineBoard(30, 16, 99, 7L);
+		NoGuessGenerator.generate(board, 0, 0, ForkJoinPool.commonPool());
+		MineBoard same = new MineBoard(30, 16, 99, board.getSeed());
+		for (int i = 0; i < 30 * 16; i++) {
+			assertEquals(board.getCell(i), same.getCell(i));
+		}
+	}
+
+	//A board with no room for an opening is kept as it is
+	@Test
+	public void testGivesUp() {
+		MineBoard board = new MineBoard(8, 8, 54, 3L);
+		assertFalse(NoGuessGenerator.generate(board, 4, 4, ForkJoinPool.commonPool()));
+		assertEquals(board.getSeed(), 3L);
+		assertTrue(board.isFirstMove());
+	}
+
+	//Out of budget, only the first candidate is tried, and a board found is found again
+	@Test
+	public void testBudget() {
+		for (long seed = 0; seed < 10; seed++) {
+			MineBoard board = new MineBoard(30, 16, 99, seed);
+			MineBoard candidate = new MineBoard(30, 16, 99, seed);
+			boolean first = NoGuessGenerator.solvable(candidate, new Solver(candidate), seed, 8, 15);
+			assertEquals(first, NoGuessGenerator.generate(board, 8, 15, ForkJoinPool.commonPool(), 0));
+			assertEquals(board.getSeed(), seed);
+
+			NoGuessGenerator.generate(board, 8, 15, ForkJoinPool.commonPool());
+			long found = board.getSeed();
+			MineBoard again = new MineBoard(30, 16, 99, found);
+			assertTrue(NoGuessGenerator.generate(again, 8, 15, ForkJoinPool.commonPool(), 0));
+			assertEquals(again.getSeed(), found);
+		}
+	}
+
+	//Boards too large to look through are clicked as they are
+	@Test
+	public void testLargeBoardLeftAlone() {
+		MineBoard board = new MineBoard(300, 300, 18000, 5L);
+		assertFalse(NoGuessGenerator.canSwap(board, 150, 150));
+		assertFalse(NoGuessGenerator.firstClick(board, 150, 150, ForkJoinPool.commonPool()));
+		assertEquals(board.getSeed(), 5L);
+		assertTrue(NoGuessGenerator.canSwap(new MineBoard(256, 256, 13000, 5L), 0, 0));
+	}
+}
@@ -0,0 +1,176 @@
+import static org.junit.Assert.*;
+
+import java.util.Random;
+
+import org.junit.Test;
+
+public class SolverTest {
+
+	/**
+	 * Builds a board from rows of tiles: M is a covered mine, # a covered safe
+	 * tile and . an uncovered safe tile, whose number is counted
+	 *
+	 * @param rows Tiles, one string per row
+	 * @return The board
+	 */
+	private static MineBoard board(String... rows) {
+		int height = rows.length;
+		int width = rows[0].length();
+		Tile[][] tiles = new Tile[height][width];
+		for (int i = 0; i < height; i++) {
+			for (int j = 0; j < width; j++) {
+				char tile = rows[i].charAt(j);
+				if (tile == 'M') {
+					tiles[i][j] = new Tile("M");
+					continue;
+				}
+				int mines = 0;
+				for (int k = Math.max(i - 1, 0); k <= Math.min(i + 1, height - 1); k++) {
+					for (int l = Math.max(j - 1, 0); l <= Math.min(j + 1, width - 1); l++) {
+						if (rows[k].charAt(l) == 'M')
+							mines++;
+					}
+				}
+				tiles[i][j] = new Tile(String.valueOf(mines), false, tile == '#');
+			}
+		}
+		return new MineBoard(tiles, false);
+	}
+
+	/**
+	 * Checks every deduction of a solver against the mines of its board
+	 *
+	 * @param solver Solver to check
+	 */
+	private static void assertSound(Solver solver) {
+		MineBoard board = solver.getBoard();
+		for (int i = 0; i < board.getWidth() * board.getHeight(); i++) {
+			boolean mine = (board.getCell(i) & MineBoard.VALUE) == MineBoard.MINE;
+			if (solver.isKnownMine(i))
+				assertTrue(mine);
+			if (solver.isKnownSafe(i))
+				assertFalse(mine);
+		}
+	}
+
+	//A number that needs all of its unknown neighbors makes them mines, and a
+	//number with all its mines known makes the rest safe
+	@Test
+	public void testSingleCell() {
+		MineBoard board = board("M.", "..", "##");
+		Solver solver = new Solver(board);
+		assertTrue(solver.isKnownMine(0));
+		assertTrue(solver.isKnownSafe(4));
+		assertTrue(solver.isKnownSafe(5));
+		assertEquals(solver.getKnownMines(), 1);
+		int safe = solver.nextSafe();
+		assertTrue(safe == 4 || safe == 5);
+	}
+
+	//Nothing is deduced from a number with too many choices
+	@Test
+	public void testNoDeduction() {
+		MineBoard board = board("#M#", "#.#", "###");
+		Solver solver = new Solver(board);
+		assertEquals(solver.nextSafe(), -1);
+		assertEquals(solver.getKnownMines(), 0);
+	}
+
+	//The 1-2-1 pattern needs the subset rule
+	@Test
+	public void testSubset() {
+		MineBoard board = board("M#M", "...", "...");
+		Solver solver = new Solver(board);
+		assertTrue(solver.isKnownMine(0));
+		assertTrue(solver.isKnownSafe(1));
+		assertTrue(solver.isKnownMine(2));
+		assertEquals(solver.getKnownMines(), 2);
+	}
+
+	//Flags are guesses, so a wrong flag does not fool the solver
+	@Test
+	public void testFlagsIgnored() {
+		MineBoard board = board("M#M", "...", "...");
+		board.toggleFlag(0, 1);
+		Solver solver = new Solver(board);
+		assertTrue(solver.isKnownMine(0));
+		assertTrue(solver.isKnownMine(2));
+		// Known safe, but flagged, so not offered
+		assertTrue(solver.isKnownSafe(1));
+		assertEquals(solver.nextSafe(), -1);
+	}
+
+	//Keeping up move by move gives the same deductions as starting over, and
+	//they are all right
+	@Test
+	public void testIncrementalMatchesRescan() {
+		Random random = new Random(17);
+		for (int game = 0; game < 30; game++) {
+			MineBoard board = new MineBoard(30, 16, 99, game);
+			Solver solver = new Solver(board);
+			board.reveal(8, 15);
+			while (!board.isOver()) {
+				solver.update();
+				assertSound(solver);
+				Solver fresh = new Solver(board);
+				for (int i = 0; i < 30 * 16; i++) {
+					assertEquals(solver.isKnownMine(i), fresh.isKnownMine(i));
+					assertEquals(solver.isKnownSafe(i), fresh.isKnownSafe(i));
+				}
+				int cell = solver.nextSafe();
+				if (cell < 0) {
+					// Stuck, so guess or flag a known mine
+					cell = random.nextInt(30 * 16);
+					if (solver.isKnownMine(cell)) {
+						board.toggleFlag(cell / 30, cell % 30);
+						continue;
+					}
+				}
+				board.reveal(cell / 30, cell % 30);
+			}
+		}
+	}
+
+	//Playing only the safe tiles found never loses, and wins some expert boards
+	@Test
+	public void testSolvesExpertBoards() {
+		int won = 0;
+		for (int game = 0; game < 200; game++) {
+			MineBoard board = new MineBoard(30, 16, 99, game);
+			Solver solver = new Solver(board);
+			// Start on an opening, most expert boards need a guess otherwise
+			int zero = 0;
+			while ((board.getCell(zero) & MineBoard.VALUE) != 0) {
+				zero++;
+			}
+			board.reveal(zero / 30, zero % 30);
+			solver.update();
+			for (int cell = solver.nextSafe(); cell >= 0; cell = solver.nextSafe()) {
+				assertNotEquals(board.reveal(cell / 30, cell % 30), MineBoard.Result.EXPLODED);
+				solver.update();
+			}
+			if (board.isWon())
+				won++;
+		}
+		assertTrue(won > 0);
+	}
+
+	//A reset board is scanned again, and so is one with moves the solver missed
+	@Test
+	public void testResetBoard() {
+		MineBoard board = new MineBoard(30, 16, 99, 1L);
+		Solver solver = new Solver(board);
+		board.reveal(8, 15);
+		solver.update();
+		board.reset(2L);
+		solver.rescan();
+		assertEquals(solver.getKnownMines(), 0);
+		board.reveal(8, 15);
+		board.toggleFlag(0, 0);
+		// Two actions in one update
+		solver.update();
+		assertSound(solver);
+		Solver fresh = new Solver(board);
+		assertEquals(solver.getKnownMines(), fresh.getKnownMines());
+	}
+}
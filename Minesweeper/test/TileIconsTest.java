@@ -0,0 +1,28 @@
+import static org.junit.Assert.*;
+
+import java.awt.MediaTracker;
+
+import org.junit.Test;
+
+public class TileIconsTest {
+
+	//Every state should get a loaded image
+	@Test
+	public void testAllImagesLoaded() {
+		for (int i = 0; i <= MineBoard.TRIPPED; i++) {
+			assertEquals(TileIcons.forCell((byte) i).getImageLoadStatus(), MediaTracker.COMPLETE);
+		}
+		assertEquals(TileIcons.forCell(MineBoard.COVERED).getImageLoadStatus(),
+				MediaTracker.COMPLETE);
+	}
+
+	//The same image should be shared between tiles in the same state
+	@Test
+	public void testImagesShared() {
+		assertSame(TileIcons.forCell((byte) 3), TileIcons.forCell((byte) 3));
+		assertSame(TileIcons.forCell(MineBoard.COVERED), TileIcons.forCell((byte) (MineBoard.COVERED | 5)));
+		assertSame(TileIcons.forCell((byte) (MineBoard.COVERED | MineBoard.FLAGGED)), 
+				TileIcons.forCell((byte) (MineBoard.COVERED | MineBoard.FLAGGED | MineBoard.MINE)));
+		assertNotSame(TileIcons.forCell((byte) 1), TileIcons.forCell((byte) 2));
+	}
+}
@@ -93,6 +93,33 @@ public class TileTest {
 		assertFalse(tl.isCovered());
 	}
 	
+	//Packed cell tests
+	@Test
+	public void testToCellFlaggedMine() {
+		Tile tl = new Tile("M", true, true);
+		assertEquals(tl.toCell(), MineBoard.MINE | MineBoard.FLAGGED | MineBoard.COVERED);
+	}
+	
+	@Test
+	public void testToCellUncoveredNum() {
+		Tile tl = new Tile("3", false, false);
+		assertEquals(tl.toCell(), 3);
+	}
+	
+	@Test
+	public void testCellRoundTrip() {
+		String[] vals = {"0", "1", "2", "3", "4", "5", "6", "7", "8", "M", "F"};
+		for (String val : vals) {
+			Tile tl = new Tile(val, true, false);
+			assertEquals(Tile.fromCell(tl.toCell()), tl);
+		}
+	}
+	
+	@Test(expected = IllegalArgumentException.class)
+	public void testToCellInvalid() {
+		new Tile("X").toCell();
+	}
+	
 	//From file tests
 	public void testFromFile() {
 		try {